@@ -0,0 +1,160 @@
+package com.parking;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * Push feed of the available capacity of the pools of a {@link Parking}, for signage and mobile applications
+ * instead of polling {@link Parking#getAvailableCapacity(Object)}
+ * The parking only stores the new available capacity of a pool on each registration and check out, whatever the
+ * number of subscribers: a publisher thread coalesces the changes over the interval of the feed and delivers them
+ * to every subscriber as one {@link AvailabilityUpdate}
+ * Created with {@link Builder#publishAvailability(Duration)}, the publisher thread is started by the first
+ * subscription
+ */
+public final class AvailabilityFeed implements AutoCloseable {
+
+    private final Duration interval;
+
+    /**
+     * Available capacity of each pool, written under the parking lock
+     */
+    private final AtomicIntegerArray available;
+
+    /**
+     * Set when a pool changed since the last publication
+     */
+    private volatile boolean changed;
+
+    /**
+     * Available capacity of each pool at the last publication, only used by the publisher thread
+     */
+    private final int[] published;
+    private long sequence;
+
+    private final List<Consumer<AvailabilityUpdate>> subscribers = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService publisher;
+    private boolean closed;
+
+    /**
+     * @param interval the coalescing interval
+     * @param capacities the capacity of each pool, all free
+     */
+    AvailabilityFeed(Duration interval, int[] capacities) {
+        this.interval = interval;
+        this.available = new AtomicIntegerArray(capacities);
+        this.published = capacities.clone();
+    }
+
+    /**
+     * @return the coalescing interval of the changes
+     */
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * @param pool the index of the pool in {@link Parking#getPools()}
+     * @return the latest available capacity of the pool
+     */
+    public int getAvailable(int pool) {
+        return available.get(pool);
+    }
+
+    /**
+     * Deliver the next updates to the subscriber, on the publisher thread
+     * A subscriber throwing an exception is unsubscribed
+     * @param subscriber the subscriber
+     * @return closing it unsubscribes the subscriber
+     */
+    public AutoCloseable subscribe(Consumer<AvailabilityUpdate> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber cannot be null !");
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The availability feed is closed!");
+            }
+            if (publisher == null) {
+                publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "parking-availability");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long nanos = interval.toNanos();
+                publisher.scheduleAtFixedRate(this::publish, nanos, nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    /**
+     * @return the number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Store the new available capacity of the pool, called under the parking lock
+     */
+    void changed(int pool, int availableCapacity) {
+        available.set(pool, availableCapacity);
+        changed = true;
+    }
+
+    /**
+     * Publisher thread: deliver the pools changed since the last publication, a pool back to its published
+     * capacity is not part of the update
+     */
+    void publish() {
+        if (!changed) {
+            return;
+        }
+        changed = false;
+        int[] pools = new int[published.length];
+        int[] capacities = new int[published.length];
+        int[] deltas = new int[published.length];
+        int count = 0;
+        for (int pool = 0; pool < published.length; pool++) {
+            int capacity = available.get(pool);
+            if (capacity != published[pool]) {
+                pools[count] = pool;
+                capacities[count] = capacity;
+                deltas[count++] = capacity - published[pool];
+                published[pool] = capacity;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        AvailabilityUpdate update = new AvailabilityUpdate(++sequence, Arrays.copyOf(pools, count),
+                Arrays.copyOf(capacities, count), Arrays.copyOf(deltas, count));
+        for (Consumer<AvailabilityUpdate> subscriber : subscribers) {
+            try {
+                subscriber.accept(update);
+            } catch (RuntimeException e) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Stop the publisher thread, the pending changes are not delivered
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (publisher != null) {
+            publisher.shutdownNow();
+        }
+    }
+
+}
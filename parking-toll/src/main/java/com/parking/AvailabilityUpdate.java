@@ -0,0 +1,59 @@
+package com.parking;
+
+/**
+ * Batched delta of the available capacity of the pools of a parking, delivered by an {@link AvailabilityFeed}
+ * Only the pools whose available capacity changed since the previous update are part of it
+ */
+public final class AvailabilityUpdate {
+
+    private final long sequence;
+    private final int[] pools;
+    private final int[] available;
+    private final int[] deltas;
+
+    AvailabilityUpdate(long sequence, int[] pools, int[] available, int[] deltas) {
+        this.sequence = sequence;
+        this.pools = pools;
+        this.available = available;
+        this.deltas = deltas;
+    }
+
+    /**
+     * @return the number of the update, from 1
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the number of changed pools
+     */
+    public int size() {
+        return pools.length;
+    }
+
+    /**
+     * @param change the index of the change, from 0 to {@link #size()} - 1
+     * @return the index of the changed pool in {@link Parking#getPools()}
+     */
+    public int getPool(int change) {
+        return pools[change];
+    }
+
+    /**
+     * @param change the index of the change
+     * @return the available capacity of the pool
+     */
+    public int getAvailable(int change) {
+        return available[change];
+    }
+
+    /**
+     * @param change the index of the change
+     * @return the change of the available capacity of the pool since the previous update
+     */
+    public int getDelta(int change) {
+        return deltas[change];
+    }
+
+}
@@ -3,6 +3,8 @@ package com.parking;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This class exposes bill details return when the Vehicle leaves the Parking
@@ -16,7 +18,15 @@ public final class Bill<T> {
 	 * in order to keep all the details for billing purposes 
 	 */
     private final Slot<T> slotSnapShot;
+    /**
+     * Snapshots of all the slots of the vehicle, from the first one
+     */
+    private final List<Slot<T>> slotSnapShots;
     private final BigDecimal price;
+    /**
+     * Version of the pricing policy of the price, {@code null} if unknown
+     */
+    private final PricingVersion<T> pricingVersion;
     private LocalDateTime creationDateTime;
 
 
@@ -26,19 +36,57 @@ public final class Bill<T> {
      * @param price 
      */
     Bill(Slot<T> slot, BigDecimal price) {
+        this(Collections.singletonList(slot), price);
+    }
+
+    /**
+     * Constructor of the Bill of a vehicle taking several slots
+     * @param slots the consecutive slots related to the bill, from the first one
+     * @param price the price of all the slots
+     */
+    Bill(List<Slot<T>> slots, BigDecimal price) {
+        this(slots, price, null);
+    }
+
+    /**
+     * Constructor of the Bill priced by a version of the pricing policy
+     * @param slots the consecutive slots related to the bill, from the first one
+     * @param price the price of all the slots
+     * @param pricingVersion the version of the pricing policy
+     */
+    Bill(List<Slot<T>> slots, BigDecimal price, PricingVersion<T> pricingVersion) {
     	this.creationDateTime = LocalDateTime.now();
-        this.slotSnapShot = slot;
+        this.slotSnapShot = slots.get(0);
+        this.slotSnapShots = Collections.unmodifiableList(slots);
         this.price = price;
+        this.pricingVersion = pricingVersion;
     }
 
+    /**
+     * @return the first slot of the vehicle
+     */
     public Slot<T> getSlot() {
         return slotSnapShot;
     }
 
+    /**
+     * @return all the slots of the vehicle, from the first one
+     */
+    public List<Slot<T>> getSlots() {
+        return slotSnapShots;
+    }
+
     public BigDecimal getPrice() {
         return price;
     }
 
+    /**
+     * @return the version of the pricing policy of the price, {@code null} if unknown
+     */
+    public PricingVersion<T> getPricingVersion() {
+        return pricingVersion;
+    }
+
 	public LocalDateTime getCreationDateTime() {
 		return creationDateTime;
 	}
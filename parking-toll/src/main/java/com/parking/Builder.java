@@ -1,6 +1,22 @@
 package com.parking;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import com.parking.exception.ParkingException;
 
 /**
  * The parking builder used for creating {@link Parking} instance
@@ -13,18 +29,67 @@ public class Builder<T> {
 	/**
 	 * A simple slots counter
 	 */
-    private Long slotsCounter = 0L;
+    private long slotsCounter = 0L;
 
     /**
      * Parking instance
      */
     private final Parking<T> parking;
 
+    /**
+     * Shared layout of the parking, {@code null} when the slots are added to this builder
+     */
+    private final ParkingLayout<T> layout;
+
+    /**
+     * Ranges of consecutive ids of the added slots, in their order: position of the first slot and its id
+     */
+    private int[] rangeStarts = new int[4];
+    private long[] rangeFirstIds = new long[4];
+    private int rangeCount;
+    private int slotCount;
+
+    /**
+     * Start position and allocation strategy of each pool of consecutive slots sharing the same strategy instance
+     */
+    private final List<Integer> poolStarts = new ArrayList<>();
+    private final List<Predicate<T>> poolStrategies = new ArrayList<>();
+
+    /**
+     * Zones in their declaration order: path, parent, first pool and pool after the last pool, see
+     * {@link #beginZone(String)}
+     */
+    private final List<String> zonePaths = new ArrayList<>();
+    private final List<Integer> zoneParents = new ArrayList<>();
+    private final List<Integer> zoneFirstPools = new ArrayList<>();
+    private final List<Integer> zoneEndPools = new ArrayList<>();
+    private final Deque<Integer> openZones = new ArrayDeque<>();
+
+    /**
+     * Start a new pool with the next slots, even with the strategy of the last pool, at the bounds of a zone
+     */
+    private boolean newPool;
+
+    /**
+     * Allocation strategies of the capability slots by mask, and the capabilities required by the vehicles
+     */
+    private final Map<Long, CapabilityMatch<T>> capabilityStrategies = new HashMap<>();
+    private final CapabilityMatch.Required<T> requiredCapabilities = new CapabilityMatch.Required<>();
+
     /**
      * Builder Constructor to initialize the parking instance  
      */
     Builder() {
+        this(null);
+    }
+
+    /**
+     * Builder of a parking with the slots of the layout
+     * @param layout the shared layout, {@code null} to add the slots to the builder
+     */
+    Builder(ParkingLayout<T> layout) {
         this.parking = new Parking<>();
+        this.layout = layout;
     }
 
     /**
@@ -36,6 +101,41 @@ public class Builder<T> {
     	return slotsCounter;
     }
 
+    /**
+     * Add a range of slots with consecutive ids, extending the last range and pool when possible
+     */
+    private Builder<T> addRange(long firstId, Predicate<T> allocationStrategy, int numberOfSlots) {
+        Objects.requireNonNull(allocationStrategy, "allocationStrategy cannot be null !");
+        if (layout != null) {
+            throw new IllegalStateException("Slots are given by the layout of the parking!");
+        }
+        if (numberOfSlots <= 0) {
+            return this;
+        }
+        if (numberOfSlots > Integer.MAX_VALUE - 8 - slotCount) {
+            throw new IllegalArgumentException("A parking cannot have more than " + (Integer.MAX_VALUE - 8)
+                    + " slots!");
+        }
+        if (newPool || poolStrategies.isEmpty()
+                || poolStrategies.get(poolStrategies.size() - 1) != allocationStrategy) {
+            poolStarts.add(slotCount);
+            poolStrategies.add(allocationStrategy);
+            newPool = false;
+        }
+        boolean extendsLastRange = rangeCount > 0
+                && rangeFirstIds[rangeCount - 1] + (slotCount - rangeStarts[rangeCount - 1]) == firstId;
+        if (!extendsLastRange) {
+            if (rangeCount == rangeStarts.length) {
+                rangeStarts = Arrays.copyOf(rangeStarts, rangeCount * 2);
+                rangeFirstIds = Arrays.copyOf(rangeFirstIds, rangeCount * 2);
+            }
+            rangeStarts[rangeCount] = slotCount;
+            rangeFirstIds[rangeCount++] = firstId;
+        }
+        slotCount += numberOfSlots;
+        return this;
+    }
+
     /**
      * Set the pricing policy {@link PricingPolicy} that will be used for the {@link Bill}
      * @param pricingPolicy the pricing policy used
@@ -46,6 +146,255 @@ public class Builder<T> {
         return this;
     }
     
+    /**
+     * Price the stays with the version of the pricing policy in force at the arrival of the vehicles, instead of the
+     * version in force at their departure, when the policy is replaced with
+     * {@link Parking#updatePricingPolicy(PricingPolicy)}
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> priceWithArrivalPolicy() {
+        this.parking.priceWithArrivalPolicy();
+        return this;
+    }
+
+    /**
+     * Keep the occupancy state of the slots (occupancy flag, arrival date time and occupant key) off the java heap
+     * The heap usage of the parking then stays flat whatever the number of slots or vehicles
+     * Vehicles are identified by their key instead of their reference, a vehicle can only be registered once at a time
+     * @param occupantKey function giving the unique key of a vehicle
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> useOffHeapOccupancy(ToLongFunction<T> occupantKey) {
+        this.parking.setOffHeapOccupancy(occupantKey);
+        return this;
+    }
+
+    /**
+     * Record the per minute occupancy history of each {@link SlotPool} of the parking
+     * @param window the recorded window, the memory used by the history only depends on it
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> recordOccupancy(Duration window) {
+        this.parking.setOccupancyHistoryWindow(window);
+        return this;
+    }
+
+    /**
+     * Declare the charging power of the slots of an allocation strategy, used by the power budgets
+     * @param allocationStrategy the allocation strategy of the charging slots
+     * @param kilowatts the charging power of a slot
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> setChargingPower(Predicate<T> allocationStrategy, long kilowatts) {
+        this.parking.setChargingPower(allocationStrategy, kilowatts);
+        return this;
+    }
+
+    /**
+     * Limit the power of the occupied charging slots of a zone, like the grid connection of the site or the
+     * transformer of a level: a registration only takes a charging slot if every budget covering it has the power
+     * of the slot left, checked and reserved under the parking lock
+     * @param zone the name of the zone
+     * @param kilowatts the maximum power of the zone
+     * @param allocationStrategies the allocation strategies of the slots of the zone, empty for the whole site
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> addPowerBudget(String zone, long kilowatts, Collection<Predicate<T>> allocationStrategies) {
+        Objects.requireNonNull(allocationStrategies, "allocationStrategies cannot be null !");
+        this.parking.addPowerBudget(zone, kilowatts, new ArrayList<>(allocationStrategies));
+        return this;
+    }
+
+    /**
+     * Limit the power of the occupied charging slots of the whole site, see
+     * {@link Builder#addPowerBudget(String, long, Collection)}
+     * @param zone the name of the zone
+     * @param kilowatts the maximum power of the site
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> addPowerBudget(String zone, long kilowatts) {
+        return addPowerBudget(zone, kilowatts, Collections.emptyList());
+    }
+
+    /**
+     * When the power budget of the first matching slots is reached, register the vehicle in the next matching
+     * slots fitting the budgets, like lower power or non charging slots, instead of refusing it
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> allowPowerFallback() {
+        this.parking.allowPowerFallback();
+        return this;
+    }
+
+    /**
+     * Let vehicles like buses or trucks take several consecutive slots of a pool, a row or a lane of the parking
+     * The free runs of each pool are kept in a segment tree, so finding consecutive free slots takes a logarithmic
+     * time. A vehicle is billed the sum of the prices of its slots
+     * @param vehicleSlots the number of consecutive slots taken by a vehicle, which should not change while it is in
+     * the parking
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> setVehicleSlots(ToIntFunction<T> vehicleSlots) {
+        this.parking.setVehicleSlots(Objects.requireNonNull(vehicleSlots, "vehicleSlots cannot be null !"));
+        return this;
+    }
+
+    /**
+     * Maintain a {@link StaySketch} of the stay durations of each {@link SlotPool}, updated on every check out, to
+     * answer {@link Parking#expectedFreeIn(Object, java.time.LocalDateTime)}
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> estimateStays() {
+        this.parking.estimateStays();
+        return this;
+    }
+
+    /**
+     * Publish an immutable {@link OccupancyView} on every registration and check out, so that reporting and signage
+     * read a consistent occupancy with {@link Parking#getOccupancyView()} without blocking the gates
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> publishOccupancyViews() {
+        this.parking.publishOccupancyViews();
+        return this;
+    }
+
+    /**
+     * Push the available capacity of the pools to subscribers with an {@link AvailabilityFeed}, given by
+     * {@link Parking#getAvailabilityFeed()}: the changes are coalesced over the interval and delivered as one update
+     * @param interval the coalescing interval of the changes, like 250 milliseconds
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> publishAvailability(Duration interval) {
+        this.parking.publishAvailability(interval);
+        return this;
+    }
+
+    /**
+     * Maintain an index of the occupied slots by arrival date time, queried with {@link Parking#getOccupancyIndex()}
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> indexOccupancy() {
+        this.parking.addOccupancyIndex(null, null);
+        return this;
+    }
+
+    /**
+     * Maintain an index of the occupied slots by value of an attribute of the slot or its vehicle, like the level
+     * of the slot or the type of the vehicle, queried with {@link OccupancyIndex#find(String, Object)}
+     * @param name the name of the index
+     * @param attribute the attribute of an occupied slot, a slot with a {@code null} value is not indexed
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> addOccupancyIndex(String name, Function<? super Slot<T>, ?> attribute) {
+        Objects.requireNonNull(attribute, "attribute cannot be null !");
+        this.parking.addOccupancyIndex(name, attribute);
+        return this;
+    }
+
+    /**
+     * Deduplicate the retried registrations and check outs, done with an idempotency key by
+     * {@link Parking#register(Object, java.time.LocalDateTime, String)} and
+     * {@link Parking#checkOut(Object, java.time.LocalDateTime, String)}
+     * @param maxKeys the maximum number of kept keys of each operation, the oldest are evicted first
+     * @param retention how long the result of an operation is given back to its retries
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> deduplicateRetries(int maxKeys, Duration retention) {
+        this.parking.deduplicateRetries(maxKeys, retention);
+        return this;
+    }
+
+    /**
+     * Add a listener of the slots allocations and releases of the parking
+     * @param listener the {@link ParkingListener}
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> addListener(ParkingListener<T> listener) {
+        this.parking.addListener(listener);
+        return this;
+    }
+
+    /**
+     * Set the capabilities required by the vehicles, matched with the capability slots
+     * @param requiredCapabilities the bitmask of the capabilities required by a vehicle, like
+     * {@code vehicle -> vehicle.isElectric() ? CHARGER : 0}
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> setRequiredCapabilities(ToLongFunction<T> requiredCapabilities) {
+        Objects.requireNonNull(requiredCapabilities, "requiredCapabilities cannot be null !");
+        if (layout != null) {
+            throw new IllegalStateException("Slots are given by the layout of the parking!");
+        }
+        this.requiredCapabilities.set(requiredCapabilities);
+        return this;
+    }
+
+    /**
+     * Allocation strategy of the capability slots, to declare their charging power or power budgets
+     * @param capabilities the bitmask of the capabilities of the slots
+     * @return the strategy matching the vehicles requiring a subset of the capabilities
+     */
+    public Predicate<T> capabilityStrategy(long capabilities) {
+        return capabilityStrategies.computeIfAbsent(capabilities,
+                mask -> new CapabilityMatch<>(mask, requiredCapabilities));
+    }
+
+    /**
+     * Create multiple slots with a capability bitmask, like a charger, a cover, a wide or a disabled access slot,
+     * with the next generated ids. A vehicle matches the slots having all the capabilities it requires, see
+     * {@link #setRequiredCapabilities(ToLongFunction)}: the parking compares the masks without calling any predicate
+     * @param capabilities the bitmask of the capabilities of the slots
+     * @param numberOfSlots the number of new slot to create
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> addCapabilitySlots(long capabilities, int numberOfSlots) {
+        return addSlots(capabilityStrategy(capabilities), numberOfSlots);
+    }
+
+    /**
+     * Start a zone of the parking, like a level, an area or a row: the next added slots are in the zone until
+     * {@link #endZone()}. Zones started inside a zone are its children, the free slots of every zone are counted on
+     * each registration and check out, see {@link Parking#getZoneAvailableCapacity(String)} and
+     * {@link Parking#registerInZone(Object, java.time.LocalDateTime, String)}
+     * @param name the name of the zone, unique among its siblings
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> beginZone(String name) {
+        Objects.requireNonNull(name, "name cannot be null !");
+        if (layout != null) {
+            throw new IllegalStateException("Slots are given by the layout of the parking!");
+        }
+        if (name.isEmpty() || name.indexOf('/') >= 0) {
+            throw new IllegalArgumentException("Zone name " + name + " should not be empty or contain '/'!");
+        }
+        Integer parent = openZones.peek();
+        String path = parent == null ? name : zonePaths.get(parent) + "/" + name;
+        if (zonePaths.contains(path)) {
+            throw new IllegalArgumentException("Zone " + path + " is already declared!");
+        }
+        openZones.push(zonePaths.size());
+        zonePaths.add(path);
+        zoneParents.add(parent == null ? -1 : parent);
+        zoneFirstPools.add(poolStrategies.size());
+        zoneEndPools.add(poolStrategies.size());
+        newPool = true;
+        return this;
+    }
+
+    /**
+     * End the last started zone
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> endZone() {
+        if (openZones.isEmpty()) {
+            throw new IllegalStateException("There is no zone to end!");
+        }
+        zoneEndPools.set(openZones.pop(), poolStrategies.size());
+        newPool = true;
+        return this;
+    }
+
     /**
      * Add a new slot in the parking
      * @param allocationStrategy the {@link Predicate} used by the slot
@@ -62,30 +411,74 @@ public class Builder<T> {
      * @return {@link Builder} the parking builder
      */
     public Builder<T> addSlot(Long id, Predicate<T> alocationStrategy) {
-        this.parking.addSlot(id, alocationStrategy);
-        return this;
+        Objects.requireNonNull(id, "id cannot be null !");
+        return addRange(id, alocationStrategy, 1);
     }
 
     /**
-     * Create multiple slots in the parking
+     * Create multiple slots in the parking, with the next generated ids
+     * The slots are a single range: nothing is allocated per slot, the state of a slot is created on its first use
      * @param allocationStrategy the {@link Predicate} of created slots
      * @param numberOfSlots the number of new slot to create
      * @return {@link Builder} the parking builder
      */
     public Builder<T> addSlots(Predicate<T> allocationStrategy, int numberOfSlots) {
-        for (int i = 0; i < numberOfSlots; i++) {
-        	addSlot(allocationStrategy);
-        }
+        long firstId = slotsCounter + 1;
+        addRange(firstId, allocationStrategy, numberOfSlots);
+        slotsCounter += Math.max(numberOfSlots, 0);
         return this;
     }
 
+    /**
+     * Create a range of slots in the parking, with the ids firstId, firstId + 1, ..., firstId + numberOfSlots - 1
+     * The slots are a single range: nothing is allocated per slot, the state of a slot is created on its first use
+     * @param firstId id of the first {@link Slot} of the range
+     * @param allocationStrategy the {@link Predicate} of created slots
+     * @param numberOfSlots the number of new slot to create
+     * @return {@link Builder} the parking builder
+     */
+    public Builder<T> addSlots(Long firstId, Predicate<T> allocationStrategy, int numberOfSlots) {
+        Objects.requireNonNull(firstId, "firstId cannot be null !");
+        return addRange(firstId, allocationStrategy, numberOfSlots);
+    }
+
     
+    /**
+     * Build the immutable layout of the added slots, to share it between parkings with
+     * {@link Parking#builder(ParkingLayout)}. The pricing policy and the options of this builder are not part of it.
+     * @return the {@link ParkingLayout} of the slots
+     * @throws ParkingException if there is no slot
+     */
+    public ParkingLayout<T> buildLayout() {
+        if (layout != null) {
+            return layout;
+        }
+        if (slotCount == 0) {
+            throw new ParkingException("The paking should contain at least one slot!");
+        }
+        return newLayout();
+    }
+
+    private ParkingLayout<T> newLayout() {
+        if (!capabilityStrategies.isEmpty() && !requiredCapabilities.isSet()) {
+            throw new ParkingException("The required capabilities of the vehicles are not set!");
+        }
+        if (!openZones.isEmpty()) {
+            throw new ParkingException("Zone " + zonePaths.get(openZones.peek()) + " is not ended!");
+        }
+        return new ParkingLayout<>(slotCount, Arrays.copyOf(rangeStarts, rangeCount),
+                Arrays.copyOf(rangeFirstIds, rangeCount), poolStarts, poolStrategies,
+                new ZoneTree(zonePaths, zoneParents, zoneFirstPools, zoneEndPools, poolStrategies.size()));
+    }
+
     /**
      * The last step of the building, validate {@link Parking#validate()}
      * @return the corresponding {@link Parking}
      */
     public Parking<T> build() {
+        this.parking.setLayout(layout != null ? layout : newLayout());
         this.parking.validate();
+        this.parking.initOccupancy();
         return this.parking;
     }
 }
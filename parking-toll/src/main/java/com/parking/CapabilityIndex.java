@@ -0,0 +1,93 @@
+package com.parking;
+
+import java.util.Arrays;
+
+/**
+ * Pools of a layout indexed by capability mask
+ * The capabilities required by a vehicle are extracted once per search and compared to each distinct mask of the
+ * layout, a pool then matches with an array lookup instead of a call of its allocation strategy
+ * Only used under the parking lock
+ * @param <T> the vehicle class
+ */
+final class CapabilityIndex<T> {
+
+    /**
+     * Index in {@link #masks} of the mask of each pool, -1 for the pools with a predicate strategy
+     */
+    private final int[] poolMasks;
+
+    /**
+     * Distinct masks of the pools
+     */
+    private final long[] masks;
+
+    /**
+     * Masks having the capabilities required by the last prepared vehicle
+     */
+    private final boolean[] compatible;
+
+    private final CapabilityMatch.Required<T> required;
+
+    private CapabilityIndex(int[] poolMasks, long[] masks, CapabilityMatch.Required<T> required) {
+        this.poolMasks = poolMasks;
+        this.masks = masks;
+        this.compatible = new boolean[masks.length];
+        this.required = required;
+    }
+
+    /**
+     * @param layout the layout of the parking
+     * @return the index of the capability pools of the layout, {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    static <T> CapabilityIndex<T> of(ParkingLayout<T> layout) {
+        int[] poolMasks = new int[layout.getPoolCount()];
+        long[] masks = new long[0];
+        CapabilityMatch.Required<T> required = null;
+        for (int pool = 0; pool < poolMasks.length; pool++) {
+            poolMasks[pool] = -1;
+            if (layout.poolStrategy(pool) instanceof CapabilityMatch) {
+                CapabilityMatch<T> strategy = (CapabilityMatch<T>) layout.poolStrategy(pool);
+                required = strategy.getRequired();
+                int mask = 0;
+                while (mask < masks.length && masks[mask] != strategy.getCapabilities()) {
+                    mask++;
+                }
+                if (mask == masks.length) {
+                    masks = Arrays.copyOf(masks, mask + 1);
+                    masks[mask] = strategy.getCapabilities();
+                }
+                poolMasks[pool] = mask;
+            }
+        }
+        return required == null ? null : new CapabilityIndex<>(poolMasks, masks, required);
+    }
+
+    /**
+     * Extract the capabilities required by the vehicle and find the compatible masks
+     * @param vehicle the searched vehicle
+     */
+    void prepare(T vehicle) {
+        long capabilities = required.of(vehicle);
+        for (int mask = 0; mask < masks.length; mask++) {
+            compatible[mask] = CapabilityMatch.matches(masks[mask], capabilities);
+        }
+    }
+
+    /**
+     * @param pool the index of the pool
+     * @return {@code true} if the pool has a predicate strategy, not indexed
+     */
+    boolean isPredicate(int pool) {
+        return poolMasks[pool] < 0;
+    }
+
+    /**
+     * @param pool the index of a capability pool
+     * @return {@code true} if the slots of the pool have the capabilities of the last prepared vehicle
+     */
+    boolean matches(int pool) {
+        return compatible[poolMasks[pool]];
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.parking;
+
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Allocation strategy of the slots declared with a capability bitmask by {@link Builder#addCapabilitySlots(long, int)}
+ * A vehicle matches the slots having all the capabilities it requires. The parking does not call it when searching
+ * a free slot, see {@link CapabilityIndex}
+ * @param <T> the vehicle class
+ */
+final class CapabilityMatch<T> implements Predicate<T> {
+
+    /**
+     * Extractor of the capabilities required by the vehicles, shared by the capability strategies of a builder
+     */
+    static final class Required<T> {
+
+        private ToLongFunction<T> extractor;
+
+        void set(ToLongFunction<T> extractor) {
+            this.extractor = extractor;
+        }
+
+        boolean isSet() {
+            return extractor != null;
+        }
+
+        long of(T vehicle) {
+            return extractor.applyAsLong(vehicle);
+        }
+
+    }
+
+    private final long capabilities;
+    private final Required<T> required;
+
+    CapabilityMatch(long capabilities, Required<T> required) {
+        this.capabilities = capabilities;
+        this.required = required;
+    }
+
+    long getCapabilities() {
+        return capabilities;
+    }
+
+    Required<T> getRequired() {
+        return required;
+    }
+
+    /**
+     * @param capabilities the capabilities of a slot
+     * @param required the capabilities required by a vehicle
+     * @return {@code true} if the slot has all the required capabilities
+     */
+    static boolean matches(long capabilities, long required) {
+        return (capabilities & required) == required;
+    }
+
+    @Override
+    public boolean test(T vehicle) {
+        return matches(capabilities, required.of(vehicle));
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.parking;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of the results of the operations by idempotency key, evicting the keys older than the retention
+ * Reads are lock free, so a retried operation costs one lookup; writes are done by one thread at a time, under the
+ * parking lock. Keys are evicted in their order of insertion, when the cache is full or they are too old
+ * @param <V> the result class
+ */
+final class DedupeCache<V> {
+
+    private final int maxKeys;
+    private final long retentionNanos;
+    private final LongSupplier nanoTime;
+
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry<V>> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    DedupeCache(int maxKeys, Duration retention, LongSupplier nanoTime) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys should be positive!");
+        }
+        Objects.requireNonNull(retention, "retention cannot be null !");
+        if (retention.isNegative() || retention.isZero()) {
+            throw new IllegalArgumentException("retention should be positive!");
+        }
+        this.maxKeys = maxKeys;
+        this.retentionNanos = retention.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    DedupeCache(int maxKeys, Duration retention) {
+        this(maxKeys, retention, System::nanoTime);
+    }
+
+    /**
+     * @param key the idempotency key
+     * @return the result of the operation with the key, {@code null} if unknown or evicted
+     */
+    V get(String key) {
+        Entry<V> entry = entries.get(key);
+        return entry == null || nanoTime.getAsLong() - entry.insertion > retentionNanos ? null : entry.value;
+    }
+
+    /**
+     * Keep the result of the operation with the key, evicting the oldest keys
+     * @param key the idempotency key
+     * @param value the result of the operation
+     */
+    void put(String key, V value) {
+        long now = nanoTime.getAsLong();
+        Entry<V> entry = new Entry<>(key, value, now);
+        Entry<V> previous = entries.put(key, entry);
+        if (previous != null) {
+            insertionOrder.remove(previous);
+        }
+        insertionOrder.add(entry);
+        Entry<V> oldest;
+        while ((oldest = insertionOrder.peek()) != null
+                && (entries.size() > maxKeys || now - oldest.insertion > retentionNanos)) {
+            insertionOrder.poll();
+            entries.remove(oldest.key, oldest);
+        }
+    }
+
+    /**
+     * @return number of kept keys
+     */
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<V> {
+
+        private final String key;
+        private final V value;
+        private final long insertion;
+
+        private Entry(String key, V value, long insertion) {
+            this.key = key;
+            this.value = value;
+            this.insertion = insertion;
+        }
+
+    }
+
+}
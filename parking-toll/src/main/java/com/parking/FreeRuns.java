@@ -0,0 +1,94 @@
+package com.parking;
+
+/**
+ * Segment tree of the free slots of a {@link SlotPool}, to find the first run of consecutive free slots of a given
+ * length in a logarithmic time. Each node keeps the longest free run of its slots and the free runs at its edges
+ * Only used under the parking lock
+ */
+final class FreeRuns {
+
+    /**
+     * Number of leaves, a power of two, the leaves after the slots of the pool are never free
+     */
+    private final int leaves;
+    private final int[] prefix;
+    private final int[] suffix;
+    private final int[] longest;
+
+    /**
+     * @param length number of slots, all free
+     */
+    FreeRuns(int length) {
+        int size = 1;
+        while (size < length) {
+            size <<= 1;
+        }
+        this.leaves = size;
+        this.prefix = new int[2 * size];
+        this.suffix = new int[2 * size];
+        this.longest = new int[2 * size];
+        for (int position = 0; position < length; position++) {
+            prefix[size + position] = 1;
+            suffix[size + position] = 1;
+            longest[size + position] = 1;
+        }
+        int span = 1;
+        for (int first = size >> 1; first >= 1; first >>= 1, span <<= 1) {
+            for (int node = first; node < 2 * first; node++) {
+                combine(node, span);
+            }
+        }
+    }
+
+    /**
+     * @param position position of the slot in the pool
+     * @param free {@code true} if the slot is free
+     */
+    void set(int position, boolean free) {
+        int node = leaves + position;
+        int value = free ? 1 : 0;
+        prefix[node] = value;
+        suffix[node] = value;
+        longest[node] = value;
+        for (int span = 1; node > 1; span <<= 1) {
+            node >>= 1;
+            combine(node, span);
+        }
+    }
+
+    /**
+     * Update the node from its two children, each covering span slots
+     */
+    private void combine(int node, int span) {
+        int left = 2 * node;
+        int right = left + 1;
+        prefix[node] = prefix[left] == span ? span + prefix[right] : prefix[left];
+        suffix[node] = suffix[right] == span ? span + suffix[left] : suffix[right];
+        longest[node] = Math.max(Math.max(longest[left], longest[right]), suffix[left] + prefix[right]);
+    }
+
+    /**
+     * @param length number of consecutive free slots
+     * @return the position of the first slot of the first free run of the length, -1 if there is none
+     */
+    int find(int length) {
+        if (longest[1] < length) {
+            return -1;
+        }
+        int node = 1;
+        int first = 0;
+        for (int span = leaves >> 1; span >= 1; span >>= 1) {
+            int left = 2 * node;
+            if (longest[left] >= length) {
+                node = left;
+            } else if (suffix[left] + prefix[left + 1] >= length) {
+                return first + span - suffix[left];
+            } else {
+                node = left + 1;
+                first += span;
+            }
+        }
+        return first;
+    }
+
+}
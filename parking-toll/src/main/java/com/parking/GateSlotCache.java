@@ -0,0 +1,117 @@
+package com.parking;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Free slots reserved by one entry gate, like a thread local allocation buffer for slots, created with
+ * {@link Parking#newGateSlotCache(int)}
+ * A gate reserves a batch of free slots of a pool at once and hands them out to the next vehicles, so the gates
+ * allocate different slots instead of all competing for the first free slot, and the search of free slots is done
+ * once per batch instead of once per vehicle. Other registrations skip the reserved slots while there are other free
+ * slots, and take them when the pool runs low. {@link GateSlotCache#close()} gives back the unused slots
+ * Registrations through a cache still take the parking lock, like every allocation since it updates the occupancy,
+ * the pools and the listeners: a cache shortens the time the lock is held, the registrations of the gates are still
+ * done one at a time. The reservations are a bit set of the slot positions, a parking never used with a cache pays
+ * nothing for them
+ * A cache is used by one gate thread at a time
+ * @param <T> the vehicle class
+ */
+public final class GateSlotCache<T> implements AutoCloseable {
+
+    private final Parking<T> parking;
+    private final int id;
+    private final int batchSize;
+
+    /**
+     * Reserved slot positions of each pool, handed out from the first one
+     */
+    private final int[][] slots;
+    private final int[] next;
+    private final int[] count;
+
+    GateSlotCache(Parking<T> parking, int id, int batchSize, int poolCount) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize should be positive!");
+        }
+        this.parking = parking;
+        this.id = id;
+        this.batchSize = batchSize;
+        this.slots = new int[poolCount][];
+        this.next = new int[poolCount];
+        this.count = new int[poolCount];
+    }
+
+    /**
+     * Register a vehicle in a slot reserved by the gate if there is any that matches the allocation strategy
+     * @param vehicle vehicle class
+     * @param arrivalDateTime the arrival date and time.
+     * @return {@link Registration} that contains the allocated slot if a free match is found
+     */
+    public Registration<T> register(T vehicle, LocalDateTime arrivalDateTime) {
+        return parking.register(this, vehicle, arrivalDateTime);
+    }
+
+    /**
+     * Register the vehicle
+     * @param vehicle vehicle class
+     * @return {@link Registration} containing the allocated slot if a free match is found
+     */
+    public Registration<T> register(T vehicle) {
+        return register(vehicle, LocalDateTime.now());
+    }
+
+    /**
+     * @return the id of the cache in its parking, marking the slots it reserved
+     */
+    int getId() {
+        return id;
+    }
+
+    /**
+     * @return the number of slots of a pool reserved at once
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return the number of slots reserved by the gate, including the slots already taken by other registrations
+     */
+    public synchronized int getReservedSlots() {
+        return Arrays.stream(count).sum() - Arrays.stream(next).sum();
+    }
+
+    /**
+     * Give back the unused reserved slots to the parking, the cache can still be used afterwards
+     */
+    @Override
+    public void close() {
+        parking.unreserve(this);
+    }
+
+    /**
+     * @return the next reserved slot of the pool, -1 if there is none
+     */
+    synchronized int next(int pool) {
+        if (next[pool] == count[pool]) {
+            return -1;
+        }
+        return slots[pool][next[pool]++];
+    }
+
+    /**
+     * Add a reserved slot of the pool, only called once all the reserved slots of the pool are handed out
+     */
+    synchronized void add(int pool, int index) {
+        if (slots[pool] == null) {
+            slots[pool] = new int[batchSize];
+        }
+        if (next[pool] == count[pool]) {
+            next[pool] = 0;
+            count[pool] = 0;
+        }
+        slots[pool][count[pool]++] = index;
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.parking;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Default {@link OccupancyStore}: the occupants and arrival date times are kept in arrays indexed by slot position,
+ * the ids and allocation strategies of the slots stay in the shared {@link ParkingLayout}
+ * Arrays are split in chunks created on the first allocation of one of their slots, so a huge parking is created
+ * instantly and only pays for the parts actually used. Full chunks are skipped when looking for a free slot, empty
+ * chunks when looking for a vehicle.
+ * @param <T> the vehicle class
+ */
+final class HeapOccupancy<T> implements OccupancyStore<T> {
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final ParkingLayout<T> layout;
+    private final Object[][] vehicles;
+    private final LocalDateTime[][] arrivals;
+
+    /**
+     * Number of occupied slots of each chunk
+     */
+    private final int[] occupied;
+
+    HeapOccupancy(ParkingLayout<T> layout) {
+        this.layout = layout;
+        int chunks = (layout.getCapacity() + CHUNK_MASK) >>> CHUNK_SHIFT;
+        this.vehicles = new Object[chunks][];
+        this.arrivals = new LocalDateTime[chunks][];
+        this.occupied = new int[chunks];
+    }
+
+    @Override
+    public boolean isFree(int index) {
+        Object[] chunk = vehicles[index >>> CHUNK_SHIFT];
+        return chunk == null || chunk[index & CHUNK_MASK] == null;
+    }
+
+    @Override
+    public int firstFree(int from, int to) {
+        int index = from;
+        while (index < to) {
+            int chunk = index >>> CHUNK_SHIFT;
+            int chunkEnd = Math.min(to, (chunk + 1) << CHUNK_SHIFT);
+            if (vehicles[chunk] == null) {
+                return index;
+            }
+            if (occupied[chunk] < CHUNK_SIZE) {
+                Object[] chunkVehicles = vehicles[chunk];
+                for (; index < chunkEnd; index++) {
+                    if (chunkVehicles[index & CHUNK_MASK] == null) {
+                        return index;
+                    }
+                }
+            }
+            index = chunkEnd;
+        }
+        return -1;
+    }
+
+    @Override
+    public Slot<T> allocate(int index, T vehicle, LocalDateTime arrivalDateTime) {
+        Objects.requireNonNull(arrivalDateTime, "arrivalDateTime cannot be null !");
+        Objects.requireNonNull(vehicle, "vehicle cannot be null !");
+        int chunk = index >>> CHUNK_SHIFT;
+        if (vehicles[chunk] == null) {
+            vehicles[chunk] = new Object[CHUNK_SIZE];
+            arrivals[chunk] = new LocalDateTime[CHUNK_SIZE];
+        }
+        vehicles[chunk][index & CHUNK_MASK] = vehicle;
+        arrivals[chunk][index & CHUNK_MASK] = arrivalDateTime;
+        occupied[chunk]++;
+        return layout.slot(index, vehicle, arrivalDateTime, null);
+    }
+
+    @Override
+    public Slot<T> free(int index, T vehicle, LocalDateTime departureDateTime) {
+        Objects.requireNonNull(departureDateTime);
+        int chunk = index >>> CHUNK_SHIFT;
+        LocalDateTime arrivalDateTime = arrivals[chunk][index & CHUNK_MASK];
+        if (departureDateTime.isBefore(arrivalDateTime)) {
+            throw new IllegalArgumentException("departureDateTime should be after arrivalDateTime!");
+        }
+        vehicles[chunk][index & CHUNK_MASK] = null;
+        arrivals[chunk][index & CHUNK_MASK] = null;
+        occupied[chunk]--;
+        return layout.slot(index, vehicle, arrivalDateTime, departureDateTime);
+    }
+
+    @Override
+    public LocalDateTime arrivalOf(int index) {
+        return arrivals[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    @Override
+    public int indexOf(T vehicle) {
+        for (int chunk = 0; chunk < vehicles.length; chunk++) {
+            if (occupied[chunk] > 0) {
+                Object[] chunkVehicles = vehicles[chunk];
+                for (int i = 0; i < CHUNK_SIZE; i++) {
+                    if (chunkVehicles[i] == vehicle) {
+                        return (chunk << CHUNK_SHIFT) + i;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+}
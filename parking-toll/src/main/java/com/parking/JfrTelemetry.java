@@ -0,0 +1,76 @@
+package com.parking;
+
+/**
+ * {@link ParkingTelemetry} emitting the {@link ParkingEvents} to the Java Flight Recorder
+ * Only loaded by reflection, so that the parking runs without the {@code jdk.jfr} module
+ */
+final class JfrTelemetry extends ParkingTelemetry {
+
+    JfrTelemetry() {
+        // fails with a LinkageError without the jdk.jfr module
+        new ParkingEvents.RegisterEvent().isEnabled();
+    }
+
+    private static <E extends jdk.jfr.Event> E begin(E event) {
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    Object beginRegister() {
+        return begin(new ParkingEvents.RegisterEvent());
+    }
+
+    @Override
+    void commitRegister(Object started, int poolsSearched, int predicatesEvaluated, boolean successful,
+            long slotId) {
+        ParkingEvents.RegisterEvent event = (ParkingEvents.RegisterEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.poolsSearched = poolsSearched;
+            event.predicatesEvaluated = predicatesEvaluated;
+            event.successful = successful;
+            event.slotId = slotId;
+            event.commit();
+        }
+    }
+
+    @Override
+    Object beginCheckOut() {
+        return begin(new ParkingEvents.CheckOutEvent());
+    }
+
+    @Override
+    void commitCheckOut(Object started, long slotId, long lookupTime, long pricingTime) {
+        ParkingEvents.CheckOutEvent event = (ParkingEvents.CheckOutEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.slotId = slotId;
+            event.lookupTime = lookupTime;
+            event.pricingTime = pricingTime;
+            event.commit();
+        }
+    }
+
+    @Override
+    Object beginPricing() {
+        return begin(new ParkingEvents.PricingEvent());
+    }
+
+    @Override
+    void commitPricing(Object started, PricingVersion<?> version, long stay, Object price) {
+        ParkingEvents.PricingEvent event = (ParkingEvents.PricingEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.policy = version.getPolicy().getClass();
+            event.policyVersion = version.getVersion();
+            event.stay = stay;
+            event.price = String.valueOf(price);
+            event.commit();
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.parking;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link ReplicationTransport} to a backup in the same JVM, for tests: each batch is copied and applied on a thread
+ * of the transport, then acknowledged. Batches refused by the backup, once it is promoted, are not acknowledged
+ */
+public final class LoopbackTransport implements ReplicationTransport {
+
+    private final ParkingBackup<?> backup;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "parking-replication-loopback");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile LongConsumer acknowledgements = event -> {
+    };
+
+    /**
+     * @param backup the backup receiving the batches
+     */
+    public LoopbackTransport(ParkingBackup<?> backup) {
+        this.backup = Objects.requireNonNull(backup, "backup cannot be null !");
+    }
+
+    @Override
+    public void setAcknowledgementListener(LongConsumer acknowledgements) {
+        this.acknowledgements = Objects.requireNonNull(acknowledgements, "acknowledgements cannot be null !");
+    }
+
+    @Override
+    public void send(ByteBuffer batch) {
+        ByteBuffer copy = ByteBuffer.allocate(batch.remaining());
+        copy.put(batch).flip();
+        executor.execute(() -> {
+            try {
+                acknowledgements.accept(backup.apply(copy));
+            } catch (IllegalStateException e) {
+                // a promoted backup no longer acknowledges the events
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+}
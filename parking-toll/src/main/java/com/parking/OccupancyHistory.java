@@ -0,0 +1,183 @@
+package com.parking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per minute occupancy history of a {@link SlotPool}, kept in a fixed size ring buffer of primitives
+ * Updated on each allocation and release of a slot of the pool with the arrival or departure date time,
+ * so the memory used only depends on the recorded window, not on the uptime
+ * A release or allocation in the past updates every recorded minute since then
+ */
+public final class OccupancyHistory {
+
+    /**
+     * Resolutions of the history queries
+     */
+    public enum Resolution {
+        MINUTE(1), HOUR(60), DAY(24 * 60);
+
+        private final int minutes;
+
+        Resolution(int minutes) {
+            this.minutes = minutes;
+        }
+    }
+
+    /**
+     * Occupancy of the pool during a period of the history
+     */
+    public static final class Sample {
+
+        private final LocalDateTime start;
+        private final double averageOccupiedSlots;
+        private final int peakOccupiedSlots;
+
+        Sample(LocalDateTime start, double averageOccupiedSlots, int peakOccupiedSlots) {
+            this.start = start;
+            this.averageOccupiedSlots = averageOccupiedSlots;
+            this.peakOccupiedSlots = peakOccupiedSlots;
+        }
+
+        /**
+         * @return the start date time of the period
+         */
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        /**
+         * @return the average of the number of occupied slots at the end of each minute of the period
+         */
+        public double getAverageOccupiedSlots() {
+            return averageOccupiedSlots;
+        }
+
+        /**
+         * @return the maximum number of occupied slots during the period
+         */
+        public int getPeakOccupiedSlots() {
+            return peakOccupiedSlots;
+        }
+    }
+
+    /**
+     * Number of occupied slots at the end of each minute
+     */
+    private final int[] occupied;
+
+    /**
+     * Maximum number of occupied slots during each minute
+     */
+    private final int[] peak;
+
+    /**
+     * Last recorded minute since epoch, {@link Long#MIN_VALUE} before the first record
+     */
+    private long lastMinute = Long.MIN_VALUE;
+
+    private int current;
+
+    /**
+     * @param window the recorded window, rounded to the minute
+     */
+    OccupancyHistory(Duration window) {
+        int minutes = (int) Math.min(Integer.MAX_VALUE, window.toMinutes());
+        if (minutes <= 0) {
+            throw new IllegalArgumentException("The history window should be at least one minute!");
+        }
+        this.occupied = new int[minutes];
+        this.peak = new int[minutes];
+    }
+
+    private static long minuteOf(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60L);
+    }
+
+    private int position(long minute) {
+        return (int) Math.floorMod(minute, (long) occupied.length);
+    }
+
+    /**
+     * Record an allocation (+1) or a release (-1) of a slot of the pool
+     * @param dateTime date time of the allocation or release
+     * @param delta the change of the number of occupied slots
+     */
+    synchronized void record(LocalDateTime dateTime, int delta) {
+        long minute = minuteOf(dateTime);
+        if (lastMinute == Long.MIN_VALUE) {
+            lastMinute = minute;
+        }
+        if (minute > lastMinute) {
+            // the occupancy did not change since the last record
+            long from = Math.max(lastMinute + 1, minute - occupied.length + 1);
+            for (long m = from; m <= minute; m++) {
+                occupied[position(m)] = current;
+                peak[position(m)] = current;
+            }
+            lastMinute = minute;
+        }
+        current += delta;
+        for (long m = Math.max(minute, lastMinute - occupied.length + 1); m <= lastMinute; m++) {
+            int position = position(m);
+            occupied[position] += delta;
+            peak[position] = m == minute ? Math.max(peak[position], occupied[position]) : peak[position] + delta;
+        }
+    }
+
+    /**
+     * @param dateTime the date time
+     * @return the number of occupied slots at the end of the minute of the date time
+     * @throws IllegalArgumentException if the date time is before the recorded window
+     */
+    public synchronized int getOccupiedSlots(LocalDateTime dateTime) {
+        long minute = minuteOf(dateTime);
+        if (minute >= lastMinute) {
+            return current;
+        }
+        checkRecorded(minute);
+        return occupied[position(minute)];
+    }
+
+    /**
+     * Downsampled history between two date times
+     * @param from the start date time, included
+     * @param to the end date time, excluded
+     * @param resolution the length of the periods of the samples, aligned on UTC minutes, hours or days
+     * @return one sample per period
+     * @throws IllegalArgumentException if the start is before the recorded window
+     */
+    public synchronized List<Sample> query(LocalDateTime from, LocalDateTime to, Resolution resolution) {
+        List<Sample> samples = new ArrayList<>();
+        long first = Math.floorDiv(minuteOf(from), (long) resolution.minutes) * resolution.minutes;
+        long end = minuteOf(to.minusNanos(1)) + 1;
+        if (end <= first) {
+            return samples;
+        }
+        checkRecorded(first);
+        for (long start = first; start < end; start += resolution.minutes) {
+            long sum = 0;
+            int max = 0;
+            long stop = Math.min(start + resolution.minutes, end);
+            for (long m = start; m < stop; m++) {
+                int value = m > lastMinute ? current : occupied[position(m)];
+                sum += value;
+                max = Math.max(max, m > lastMinute ? current : peak[position(m)]);
+            }
+            samples.add(new Sample(LocalDateTime.ofEpochSecond(start * 60, 0, ZoneOffset.UTC),
+                    (double) sum / (stop - start), max));
+        }
+        return samples;
+    }
+
+    private void checkRecorded(long minute) {
+        // before the first record the pool has always been empty
+        if (lastMinute != Long.MIN_VALUE && minute <= lastMinute - occupied.length) {
+            throw new IllegalArgumentException("The date time is out of the recorded window!");
+        }
+    }
+
+}
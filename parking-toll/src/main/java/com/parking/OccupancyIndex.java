@@ -0,0 +1,154 @@
+package com.parking;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Secondary indexes of the occupied slots of a parking, maintained on every allocation and release and returned by
+ * {@link Parking#getOccupancyIndex()}: the slots by arrival date time in a concurrent skip list, and the slots by
+ * value of each attribute declared with {@link Builder#addOccupancyIndex(String, Function)}
+ * Queries take a logarithmic time plus the number of returned slots, without any scan of the parking nor its lock,
+ * and see the registrations and check outs done during the query or not
+ * Slots are identified by their id, which should be unique in the parking
+ * @param <T> the vehicle class
+ */
+public final class OccupancyIndex<T> implements ParkingListener<T> {
+
+    private final ConcurrentNavigableMap<ArrivalKey, Slot<T>> arrivals = new ConcurrentSkipListMap<>();
+    private final Map<String, AttributeIndex<T>> attributes = new HashMap<>();
+
+    OccupancyIndex() {
+    }
+
+    /**
+     * Declare an attribute index, before the first allocation
+     */
+    void addAttribute(String name, Function<? super Slot<T>, ?> attribute) {
+        Objects.requireNonNull(name, "name cannot be null !");
+        Objects.requireNonNull(attribute, "attribute cannot be null !");
+        if (attributes.putIfAbsent(name, new AttributeIndex<>(attribute)) != null) {
+            throw new IllegalArgumentException("Index " + name + " is already declared!");
+        }
+    }
+
+    @Override
+    public void allocated(Slot<T> slot) {
+        arrivals.put(new ArrivalKey(slot.getArrivalDateTime(), slot.getId()), slot);
+        attributes.values().forEach(index -> index.add(slot));
+    }
+
+    @Override
+    public void released(Slot<T> slot) {
+        arrivals.remove(new ArrivalKey(slot.getArrivalDateTime(), slot.getId()));
+        attributes.values().forEach(index -> index.remove(slot));
+    }
+
+    /**
+     * @return number of occupied slots
+     */
+    public int size() {
+        return arrivals.size();
+    }
+
+    /**
+     * @param dateTime the date time
+     * @return the occupied slots whose vehicle arrived before the date time, by arrival date time
+     */
+    public Stream<Slot<T>> arrivedBefore(LocalDateTime dateTime) {
+        Objects.requireNonNull(dateTime, "dateTime cannot be null !");
+        return arrivals.headMap(new ArrivalKey(dateTime, Long.MIN_VALUE)).values().stream();
+    }
+
+    /**
+     * @param from the first date time, included
+     * @param to the last date time, excluded
+     * @return the occupied slots whose vehicle arrived in the range, by arrival date time
+     */
+    public Stream<Slot<T>> arrivedBetween(LocalDateTime from, LocalDateTime to) {
+        Objects.requireNonNull(from, "from cannot be null !");
+        Objects.requireNonNull(to, "to cannot be null !");
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("to should be after from!");
+        }
+        return arrivals.subMap(new ArrivalKey(from, Long.MIN_VALUE), new ArrivalKey(to, Long.MIN_VALUE)).values()
+                .stream();
+    }
+
+    /**
+     * @param name the name of the attribute index
+     * @param value the value of the attribute
+     * @return the occupied slots with this value of the attribute, by slot id
+     * @throws IllegalArgumentException if the index is not declared
+     */
+    public Stream<Slot<T>> find(String name, Object value) {
+        AttributeIndex<T> index = attributes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Index " + name + " is not declared!");
+        }
+        return index.find(value);
+    }
+
+    /**
+     * Occupied slots by value of one attribute, slots with a {@code null} value are not indexed
+     */
+    private static final class AttributeIndex<T> {
+
+        private final Function<? super Slot<T>, ?> attribute;
+        private final ConcurrentMap<Object, ConcurrentNavigableMap<Long, Slot<T>>> slots = new ConcurrentHashMap<>();
+
+        private AttributeIndex(Function<? super Slot<T>, ?> attribute) {
+            this.attribute = attribute;
+        }
+
+        private void add(Slot<T> slot) {
+            Object value = attribute.apply(slot);
+            if (value != null) {
+                slots.computeIfAbsent(value, key -> new ConcurrentSkipListMap<>()).put(slot.getId(), slot);
+            }
+        }
+
+        private void remove(Slot<T> slot) {
+            Object value = attribute.apply(slot);
+            ConcurrentNavigableMap<Long, Slot<T>> valueSlots = value == null ? null : slots.get(value);
+            if (valueSlots != null) {
+                valueSlots.remove(slot.getId());
+            }
+        }
+
+        private Stream<Slot<T>> find(Object value) {
+            ConcurrentNavigableMap<Long, Slot<T>> valueSlots = value == null ? null : slots.get(value);
+            return valueSlots == null ? Stream.empty() : valueSlots.values().stream();
+        }
+
+    }
+
+    /**
+     * Arrival date time then slot id, to keep the vehicles arrived at the same time
+     */
+    private static final class ArrivalKey implements Comparable<ArrivalKey> {
+
+        private final LocalDateTime arrivalDateTime;
+        private final long slotId;
+
+        private ArrivalKey(LocalDateTime arrivalDateTime, long slotId) {
+            this.arrivalDateTime = arrivalDateTime;
+            this.slotId = slotId;
+        }
+
+        @Override
+        public int compareTo(ArrivalKey other) {
+            int compare = arrivalDateTime.compareTo(other.arrivalDateTime);
+            return compare != 0 ? compare : Long.compare(slotId, other.slotId);
+        }
+
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.parking;
+
+import java.time.LocalDateTime;
+
+/**
+ * Storage of the occupancy state of the parking slots (occupant and arrival date time)
+ * Slots are addressed by their position in the {@link Parking}, the store is only used under the parking lock
+ * @param <T> the vehicle class
+ */
+interface OccupancyStore<T> {
+
+    /**
+     * @param index position of the slot
+     * @return {@code true} if the slot is free
+     */
+    boolean isFree(int index);
+
+    /**
+     * @param from position of the first slot
+     * @param to position after the last slot
+     * @return the position of the first free slot of the range, -1 if they are all occupied
+     */
+    default int firstFree(int from, int to) {
+        for (int index = from; index < to; index++) {
+            if (isFree(index)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Occupy the slot by the vehicle
+     * @param index position of the slot
+     * @param vehicle the vehicle
+     * @param arrivalDateTime the arrival date time of the vehicle
+     * @return a copy of the {@link Slot} for reporting needs
+     */
+    Slot<T> allocate(int index, T vehicle, LocalDateTime arrivalDateTime);
+
+    /**
+     * Free the slot occupied by the vehicle
+     * @param index position of the slot
+     * @param vehicle the vehicle leaving the slot
+     * @param departureDateTime the departure date time of the vehicle
+     * @return a copy of the {@link Slot} just before freeing it for reporting needs
+     * @throws IllegalArgumentException if departureDateTime is before arrivalDateTime
+     */
+    Slot<T> free(int index, T vehicle, LocalDateTime departureDateTime);
+
+    /**
+     * @param index position of an occupied slot
+     * @return the arrival date time of the vehicle in the slot
+     */
+    LocalDateTime arrivalOf(int index);
+
+    /**
+     * @param vehicle the vehicle
+     * @return the position of the slot occupied by the vehicle, -1 if the vehicle is not in the parking
+     */
+    int indexOf(T vehicle);
+
+}
@@ -0,0 +1,169 @@
+package com.parking;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable point in time view of the occupancy of all the slots, returned by {@link Parking#getOccupancyView()}
+ * Views are persistent tries of slot snapshots: each registration or check out publishes a new view sharing all
+ * but one path of 32 wide nodes with the previous view. Readers get the latest view with a volatile read, never take
+ * the parking lock, and can iterate a view for as long as they want without any effect on the gates
+ * Only occupied slots are stored, free slots and empty subtrees are {@code null} and read from the {@link ParkingLayout},
+ * so the first view is created in constant time whatever the number of slots
+ * @param <T> the vehicle class
+ */
+public final class OccupancyView<T> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final ParkingLayout<T> layout;
+    private final Object[] root;
+    /**
+     * Bit shift of the index at the root level, 0 when the root holds the slots
+     */
+    private final int shift;
+    private final int size;
+    private final int occupied;
+    private final long version;
+
+    private OccupancyView(ParkingLayout<T> layout, Object[] root, int shift, int size, int occupied, long version) {
+        this.layout = layout;
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+        this.occupied = occupied;
+        this.version = version;
+    }
+
+    /**
+     * @param layout the layout of the parking
+     * @return the first view, with version 0 and all the slots free
+     */
+    static <T> OccupancyView<T> of(ParkingLayout<T> layout) {
+        int shift = 0;
+        while (shift + BITS < Integer.SIZE && layout.getCapacity() > 1 << (shift + BITS)) {
+            shift += BITS;
+        }
+        return new OccupancyView<>(layout, new Object[WIDTH], shift, layout.getCapacity(), 0, 0L);
+    }
+
+    /**
+     * New view with the slot snapshot at the position, copying the path from the root to the slot
+     * @param index position of the slot
+     * @param slot snapshot of the slot
+     * @return the next view
+     */
+    OccupancyView<T> with(int index, Slot<T> slot) {
+        Slot<T> previous = get(index);
+        int delta = (slot.isFree() ? 0 : 1) - (previous.isFree() ? 0 : 1);
+        Object[] newRoot = copyPath(root, shift, index, slot.isFree() ? null : slot);
+        return new OccupancyView<>(layout, newRoot, shift, size, occupied + delta, version + 1);
+    }
+
+    private static Object[] copyPath(Object[] node, int shift, int index, Object slot) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        int position = (index >>> shift) & MASK;
+        copy[position] = shift == 0 ? slot
+                : copyPath(node == null ? null : (Object[]) node[position], shift - BITS, index, slot);
+        return copy;
+    }
+
+    /**
+     * @return number of registrations and check outs applied before this view
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return number of slots of the parking
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of occupied slots in this view
+     */
+    public int getOccupiedSlots() {
+        return occupied;
+    }
+
+    /**
+     * @param index position of the slot in the parking, from 0
+     * @return snapshot of the slot, without vehicle if the slot is free
+     */
+    @SuppressWarnings("unchecked")
+    public Slot<T> get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Slot position " + index + " out of 0.." + (size - 1));
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0 && node != null; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        Object slot = node == null ? null : node[index & MASK];
+        return slot == null ? layout.freeSlot(index) : (Slot<T>) slot;
+    }
+
+    /**
+     * @param action called with the snapshot of every slot, in the order of the slots
+     */
+    public void forEach(Consumer<? super Slot<T>> action) {
+        forEach(root, shift, 0, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forEach(Object[] node, int shift, int first, Consumer<? super Slot<T>> action) {
+        for (int position = 0; position < WIDTH; position++) {
+            long start = first + ((long) position << shift);
+            if (start >= size) {
+                return;
+            }
+            Object child = node == null ? null : node[position];
+            if (shift == 0) {
+                action.accept(child == null ? layout.freeSlot((int) start) : (Slot<T>) child);
+            } else {
+                forEach((Object[]) child, shift - BITS, (int) start, action);
+            }
+        }
+    }
+
+    /**
+     * @return the snapshots of the slots, in the order of the slots
+     */
+    public Stream<Slot<T>> stream() {
+        Spliterator<Slot<T>> slots = Spliterators.spliterator(new Iterator<Slot<T>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Slot<T> next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+        }, size, Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        return StreamSupport.stream(slots, false);
+    }
+
+    /**
+     * @return the snapshots of the occupied slots, in the order of the slots
+     */
+    public Stream<Slot<T>> occupiedSlots() {
+        return stream().filter(slot -> !slot.isFree());
+    }
+
+}
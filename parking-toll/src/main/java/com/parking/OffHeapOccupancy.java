@@ -0,0 +1,212 @@
+package com.parking;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+import com.parking.exception.ParkingException;
+
+/**
+ * {@link OccupancyStore} keeping the whole occupancy state outside of the java heap, in direct {@link ByteBuffer}s
+ * Each slot has a fixed size record: occupancy flag, arrival date time (epoch second and nano) and occupant key
+ * Occupants are identified by a long key given by the occupant key function, an off-heap hash table maps keys to slots
+ * So the heap usage does not depend on the number of vehicles in the parking
+ * @param <T> the vehicle class
+ */
+final class OffHeapOccupancy<T> implements OccupancyStore<T> {
+
+    /**
+     * Record layout: flag (int), arrival nano (int), arrival epoch second (long), occupant key (long)
+     */
+    private static final int RECORD_SIZE = 24;
+    private static final int FLAG = 0;
+    private static final int NANO = 4;
+    private static final int SECOND = 8;
+    private static final int KEY = 16;
+
+    /**
+     * Hash table entry layout: occupant key (long), slot position + 1 (int, 0 for an empty entry), padding
+     */
+    private static final int ENTRY_SIZE = 16;
+    private static final int ENTRY_KEY = 0;
+    private static final int ENTRY_SLOT = 8;
+
+    /**
+     * Buffers are split in chunks of 2^20 records or entries to stay far from the 2GB limit of a single buffer
+     */
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    /**
+     * The hash table has at most 2^30 entries, its positions are ints
+     */
+    private static final long MAX_TABLE_SIZE = 1L << 30;
+
+    private final ParkingLayout<T> layout;
+    private final ToLongFunction<T> occupantKey;
+    private final ByteBuffer[] records;
+    private final ByteBuffer[] entries;
+    private final int entryMask;
+
+    /**
+     * @param layout the layout of the parking, only used for the slot id and allocation strategy
+     * @param occupantKey function giving the unique key of a vehicle
+     */
+    OffHeapOccupancy(ParkingLayout<T> layout, ToLongFunction<T> occupantKey) {
+        this.layout = layout;
+        this.occupantKey = Objects.requireNonNull(occupantKey, "occupantKey cannot be null !");
+        int tableSize = tableSize(layout.getCapacity());
+        this.records = allocate(layout.getCapacity(), RECORD_SIZE);
+        this.entries = allocate(tableSize, ENTRY_SIZE);
+        this.entryMask = tableSize - 1;
+    }
+
+    /**
+     * @return the size of the hash table for the capacity, a power of two keeping the load factor under 0.5
+     * @throws ParkingException if the capacity is too large for the table
+     */
+    static int tableSize(int capacity) {
+        long tableSize = (long) Integer.highestOneBit(Math.max(capacity, 1)) << 2;
+        if (tableSize > MAX_TABLE_SIZE) {
+            throw new ParkingException("The off-heap occupancy holds at most " + (MAX_TABLE_SIZE / 2 - 1)
+                    + " slots!");
+        }
+        return (int) tableSize;
+    }
+
+    private static ByteBuffer[] allocate(int count, int size) {
+        ByteBuffer[] buffers = new ByteBuffer[(count + CHUNK_MASK) >>> CHUNK_SHIFT];
+        for (int i = 0; i < buffers.length; i++) {
+            int chunkCount = Math.min(CHUNK_MASK + 1, count - (i << CHUNK_SHIFT));
+            // direct buffers are zero filled: every slot is free and every entry is empty
+            buffers[i] = ByteBuffer.allocateDirect(chunkCount * size);
+        }
+        return buffers;
+    }
+
+    @Override
+    public boolean isFree(int index) {
+        return records[index >>> CHUNK_SHIFT].getInt(recordOffset(index) + FLAG) == 0;
+    }
+
+    @Override
+    public Slot<T> allocate(int index, T vehicle, LocalDateTime arrivalDateTime) {
+        Objects.requireNonNull(arrivalDateTime, "arrivalDateTime cannot be null !");
+        Objects.requireNonNull(vehicle, "vehicle cannot be null !");
+        long key = occupantKey.applyAsLong(vehicle);
+        if (find(key) >= 0) {
+            throw new ParkingException("Vehicle " + vehicle + " is already in the parking !");
+        }
+        ByteBuffer record = records[index >>> CHUNK_SHIFT];
+        int offset = recordOffset(index);
+        record.putInt(offset + FLAG, 1);
+        record.putInt(offset + NANO, arrivalDateTime.getNano());
+        record.putLong(offset + SECOND, arrivalDateTime.toEpochSecond(ZoneOffset.UTC));
+        record.putLong(offset + KEY, key);
+        insert(key, index);
+        return layout.slot(index, vehicle, arrivalDateTime, null);
+    }
+
+    @Override
+    public Slot<T> free(int index, T vehicle, LocalDateTime departureDateTime) {
+        Objects.requireNonNull(departureDateTime);
+        ByteBuffer record = records[index >>> CHUNK_SHIFT];
+        int offset = recordOffset(index);
+        LocalDateTime arrivalDateTime = arrivalOf(index);
+        if (departureDateTime.isBefore(arrivalDateTime)) {
+            throw new IllegalArgumentException("departureDateTime should be after arrivalDateTime!");
+        }
+        remove(record.getLong(offset + KEY));
+        record.putInt(offset + FLAG, 0);
+        return layout.slot(index, vehicle, arrivalDateTime, departureDateTime);
+    }
+
+    @Override
+    public LocalDateTime arrivalOf(int index) {
+        ByteBuffer record = records[index >>> CHUNK_SHIFT];
+        int offset = recordOffset(index);
+        return LocalDateTime.ofEpochSecond(record.getLong(offset + SECOND), record.getInt(offset + NANO),
+                ZoneOffset.UTC);
+    }
+
+    @Override
+    public int indexOf(T vehicle) {
+        return find(occupantKey.applyAsLong(vehicle));
+    }
+
+    private static int recordOffset(int index) {
+        return (index & CHUNK_MASK) * RECORD_SIZE;
+    }
+
+    private static int entryOffset(int entry) {
+        return (entry & CHUNK_MASK) * ENTRY_SIZE;
+    }
+
+    private int home(long key) {
+        // murmur3 finalizer, keys are often sequential
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & entryMask;
+    }
+
+    private long keyAt(int entry) {
+        return entries[entry >>> CHUNK_SHIFT].getLong(entryOffset(entry) + ENTRY_KEY);
+    }
+
+    private int slotAt(int entry) {
+        return entries[entry >>> CHUNK_SHIFT].getInt(entryOffset(entry) + ENTRY_SLOT);
+    }
+
+    private void put(int entry, long key, int slot) {
+        ByteBuffer buffer = entries[entry >>> CHUNK_SHIFT];
+        buffer.putLong(entryOffset(entry) + ENTRY_KEY, key);
+        buffer.putInt(entryOffset(entry) + ENTRY_SLOT, slot);
+    }
+
+    /**
+     * Linear probing lookup
+     * @return the slot position of the key, -1 if not found
+     */
+    private int find(long key) {
+        for (int entry = home(key);; entry = (entry + 1) & entryMask) {
+            int slot = slotAt(entry);
+            if (slot == 0) {
+                return -1;
+            }
+            if (keyAt(entry) == key) {
+                return slot - 1;
+            }
+        }
+    }
+
+    private void insert(long key, int index) {
+        int entry = home(key);
+        while (slotAt(entry) != 0) {
+            entry = (entry + 1) & entryMask;
+        }
+        put(entry, key, index + 1);
+    }
+
+    /**
+     * Remove the key using backward shift deletion, so no tombstone is needed
+     */
+    private void remove(long key) {
+        int hole = home(key);
+        while (keyAt(hole) != key || slotAt(hole) == 0) {
+            hole = (hole + 1) & entryMask;
+        }
+        for (int entry = (hole + 1) & entryMask; slotAt(entry) != 0; entry = (entry + 1) & entryMask) {
+            int home = home(keyAt(entry));
+            boolean stays = hole <= entry ? hole < home && home <= entry : hole < home || home <= entry;
+            if (!stays) {
+                put(hole, keyAt(entry), slotAt(entry));
+                hole = entry;
+            }
+        }
+        put(hole, 0L, 0);
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.parking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Detects the vehicles staying longer than their maximum stay, without any scan of the slots
+ * Add it to the parking with {@link Builder#addListener(ParkingListener)}: each allocation schedules a timer at the
+ * arrival date time plus the maximum stay of the vehicle in a {@link TimingWheel}, each release cancels it
+ * Call {@link OverstayMonitor#advanceTo(LocalDateTime)} periodically to fire the overstay callbacks
+ * Slots are identified by their id, which should be unique in the parking
+ * @param <T> the vehicle class
+ */
+public final class OverstayMonitor<T> implements ParkingListener<T> {
+
+    private final Function<? super T, Duration> maxStay;
+    private final Duration tick;
+    private final Consumer<Slot<T>> onOverstay;
+
+    /**
+     * Pending timers by slot id
+     */
+    private final Map<Long, TimingWheel.Timer<Slot<T>>> timers = new HashMap<>();
+
+    /**
+     * Created on the first allocation, so the wheel starts at the time of the parking
+     */
+    private TimingWheel<Slot<T>> wheel;
+
+    /**
+     * @param maxStay the maximum stay of a vehicle, {@code null} for no maximum
+     * @param tick the resolution of the detection, like one minute
+     * @param onOverstay called with the allocated slot snapshot of each vehicle staying too long
+     */
+    public OverstayMonitor(Function<? super T, Duration> maxStay, Duration tick, Consumer<Slot<T>> onOverstay) {
+        this.maxStay = Objects.requireNonNull(maxStay, "maxStay cannot be null !");
+        this.tick = Objects.requireNonNull(tick, "tick cannot be null !");
+        this.onOverstay = Objects.requireNonNull(onOverstay, "onOverstay cannot be null !");
+    }
+
+    /**
+     * @param maxStay the maximum stay of every vehicle
+     * @param tick the resolution of the detection, like one minute
+     * @param onOverstay called with the allocated slot snapshot of each vehicle staying too long
+     */
+    public OverstayMonitor(Duration maxStay, Duration tick, Consumer<Slot<T>> onOverstay) {
+        this(vehicle -> maxStay, tick, onOverstay);
+    }
+
+    @Override
+    public synchronized void allocated(Slot<T> slot) {
+        Duration stay = maxStay.apply(slot.getVehicle());
+        if (stay == null) {
+            return;
+        }
+        if (wheel == null) {
+            wheel = new TimingWheel<>(tick, slot.getArrivalDateTime());
+        }
+        TimingWheel.Timer<Slot<T>> previous = timers.put(slot.getId(),
+                wheel.schedule(slot.getArrivalDateTime().plus(stay), slot));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    @Override
+    public synchronized void released(Slot<T> slot) {
+        TimingWheel.Timer<Slot<T>> timer = timers.remove(slot.getId());
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    /**
+     * Fire the overstay callback of each vehicle whose maximum stay ended before or at the date time
+     * The callbacks run in the calling thread, outside of the monitor lock
+     * @param now the current date time
+     */
+    public void advanceTo(LocalDateTime now) {
+        List<Slot<T>> overstays = new ArrayList<>();
+        synchronized (this) {
+            if (wheel == null) {
+                return;
+            }
+            wheel.advanceTo(now, slot -> {
+                timers.remove(slot.getId());
+                overstays.add(slot);
+            });
+        }
+        overstays.forEach(onOverstay);
+    }
+
+    /**
+     * @return number of vehicles in the parking not yet over their maximum stay
+     */
+    public synchronized int getMonitoredVehicles() {
+        return timers.size();
+    }
+
+}
@@ -1,11 +1,22 @@
 package com.parking;
 
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 import com.parking.exception.ParkingException;
 import com.parking.exception.PrincingPolicyException;
@@ -22,16 +33,139 @@ public class Parking<T> {
 
 	
 	/**
-	 *List of all parking slots
-	 *This list should contains at least one element 
+	 * Layout of the parking slots, possibly shared with other parkings
+	 * The layout should contain at least one slot
 	 */
-	private final List<Slot<T>> slots = new ArrayList<>();
+	private ParkingLayout<T> layout;
+
+	/**
+	 * Pools of consecutive slots sharing the same allocation strategy, in the order of the slots
+	 * Same pools as the layout, with the occupancy of this parking
+	 */
+	private final List<SlotPool<T>> pools = new ArrayList<>();
 	
     /**
-     * Pricing policy used during {@link Parking#checkOut(Object)}
-     * Required for creating a parking
+     * Version of the pricing policy in force, used during {@link Parking#checkOut(Object)}
+     * Required for creating a parking, replaced without the parking lock
+     */
+    private final AtomicReference<PricingVersion<T>> pricing = new AtomicReference<>();
+    /**
+     * Serializes the notifications of the pricing updates to the listeners, apart from the parking lock
+     */
+    private final Object pricingNotifications = new Object();
+    /**
+     * Last version notified to the listeners, guarded by pricingNotifications
+     */
+    private long notifiedPricingVersion;
+
+    /**
+     * Pricing version in force at the arrival of each occupied slot, by slot position, {@code null} if the stays are
+     * priced with the version in force at departure
+     */
+    private Map<Integer, PricingVersion<T>> arrivalPricing;
+
+    /**
+     * Occupancy state of the slots, on the heap by default
+     * Created by the builder once all the slots are added
      */
-    private PricingPolicy<T> pricingPolicy;
+    private OccupancyStore<T> occupancy;
+
+    /**
+     * Unique key of the vehicles, only set when the occupancy is kept off the java heap
+     */
+    private ToLongFunction<T> offHeapOccupantKey;
+
+    /**
+     * Window of the occupancy history of the pools, {@code null} if not recorded
+     */
+    private Duration occupancyHistoryWindow;
+
+    /**
+     * Latest occupancy view, {@code null} if views are not published
+     * Written under the parking lock, read without any lock
+     */
+    private volatile OccupancyView<T> occupancyView;
+
+    /**
+     * Publish an occupancy view on every registration and check out
+     */
+    private boolean publishOccupancyViews;
+
+    /**
+     * Maintain a {@link StaySketch} of each pool
+     */
+    private boolean estimateStays;
+
+    /**
+     * Secondary indexes of the occupied slots, {@code null} if not maintained
+     */
+    private OccupancyIndex<T> occupancyIndex;
+
+    /**
+     * Number of consecutive slots taken by a vehicle, {@code null} if every vehicle takes one slot
+     */
+    private ToIntFunction<T> vehicleSlots;
+
+    /**
+     * Free runs of each pool, only maintained when vehicles can take several slots
+     */
+    private FreeRuns[] freeRuns;
+
+    /**
+     * Charging power of the slots and power budgets, {@code null} if there is none
+     */
+    private PowerBudgets<T> power;
+
+    /**
+     * Search the other matching pools when the power budget of a pool is reached
+     */
+    private boolean powerFallback;
+
+    /**
+     * Feed of the available capacity of the pools, {@code null} if not published
+     */
+    private AvailabilityFeed availabilityFeed;
+    private Duration availabilityInterval;
+
+    /**
+     * Free slots of each zone of the layout, {@code null} if the layout has no zone
+     */
+    private int[] zoneFree;
+
+    /**
+     * Pools with a capability mask, {@code null} if every pool has a predicate strategy
+     */
+    private CapabilityIndex<T> capabilities;
+
+    /**
+     * Emitter of the {@link ParkingEvents}, loaded with the parking rather than by the first gate operation
+     */
+    private final ParkingTelemetry telemetry = ParkingTelemetry.INSTANCE;
+
+    /**
+     * Cost of the last search of a free slot, for the {@link ParkingEvents}
+     */
+    private int poolsSearched;
+    private int predicatesEvaluated;
+
+    /**
+     * Positions of the free slots reserved by a {@link GateSlotCache}, and id of the cache by slot position,
+     * {@code null} until the first cache is created so that plain registrations never look them up
+     */
+    private BitSet reserved;
+    private int[] reservedBy;
+    private int gateSlotCaches;
+
+    /**
+     * Results of the registrations and check outs by idempotency key, {@code null} if retries are not deduplicated
+     */
+    private DedupeCache<Registration<T>> registrations;
+    private DedupeCache<Bill<T>> bills;
+
+    /**
+     * Listeners of the slots allocations and releases
+     */
+    private final List<ParkingListener<T>> listeners = new ArrayList<>();
 
     /**
      * Constructor used by the Builder
@@ -47,13 +181,24 @@ public class Parking<T> {
     public static <T> Builder<T> builder() {
         return new Builder<T>();
     }
+
+    /**
+     * Return new {@link Builder} of a parking with the slots of a shared layout
+     * Slots cannot be added to the builder, the parking only holds its own occupancy state
+     * @param layout the layout built with {@link Builder#buildLayout()}
+     * @param <T> your vehicle class
+     * @return the builder
+     */
+    public static <T> Builder<T> builder(ParkingLayout<T> layout) {
+        return new Builder<T>(Objects.requireNonNull(layout, "layout cannot be null !"));
+    }
     
     /**
      * Capacity of the parking, total number of slots
      * @return the capacity of the parking.
      */
     public long getCapacity() {
-        return slots.size();
+        return layout.getCapacity();
     }
     
     /**
@@ -63,41 +208,420 @@ public class Parking<T> {
      * @return number of slots for this vehicle.
      */
     public long getCapacity(T vehicle) {
-        return slots.stream().filter(slot -> slot.test(vehicle)).count();
+        return pools.stream().filter(pool -> pool.getAllocationStrategy().test(vehicle))
+                .mapToLong(SlotPool::getCapacity).sum();
     }
 
     /**
-     * Get Current Available slots of the parking
-     * @return {@link Slot} stream on free slots.
+     * Find the first available slot for this vehicle using allocation policy strategy
+     * Pools without free slot or not matching the vehicle are skipped, slots reserved by a {@link GateSlotCache}
+     * are only taken when there is no other free slot for the vehicle
+     * @param vehicle vehicle class
+     * @return position of the first available slot for the vehicle, -1 if there is none
      */
-    private Stream<Slot<T>> getAvailable() {
-        return slots.stream().filter(Slot::isFree);
+    private int getAvailable(T vehicle, int slots) {
+        prepareSearch(vehicle);
+        return getAvailable(vehicle, slots, 0, pools.size());
     }
-    
+
+    /**
+     * Reset the cost of the search and extract the capabilities required by the vehicle
+     */
+    private void prepareSearch(T vehicle) {
+        poolsSearched = 0;
+        predicatesEvaluated = 0;
+        if (capabilities != null) {
+            capabilities.prepare(vehicle);
+        }
+    }
+
+    /**
+     * @return position of the first available slot for the vehicle in the pools from fromPool to toPool excluded,
+     * -1 if there is none
+     */
+    private int getAvailable(T vehicle, int slots, int fromPool, int toPool) {
+        if (slots > 1) {
+            return getAvailableRun(vehicle, slots, fromPool, toPool);
+        }
+        for (int pool = fromPool; pool < toPool; pool++) {
+            SlotPool<T> slotPool = pools.get(pool);
+            if (slotPool.getAvailableCapacity() > 0 && matches(pool, vehicle)) {
+                if (!powered(pool, 1)) {
+                    if (powerFallback) {
+                        continue;
+                    }
+                    return -1;
+                }
+                poolsSearched++;
+                int index = firstUnreserved(pool, slotPool.getStart());
+                if (index >= 0) {
+                    return index;
+                }
+            }
+        }
+        if (reserved != null) {
+            for (int pool = fromPool; pool < toPool; pool++) {
+                SlotPool<T> slotPool = pools.get(pool);
+                if (slotPool.getAvailableCapacity() > 0 && isReserved(pool) && matches(pool, vehicle)
+                        && powered(pool, 1)) {
+                    int index = stealReserved(pool);
+                    if (index >= 0) {
+                        return index;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return {@code true} if the power budgets allow charging in the slots of the pool
+     */
+    private boolean powered(int pool, int slots) {
+        return power == null || power.fits(pool, slots);
+    }
+
+    /**
+     * @return position of the first slot of the first run of free slots for the vehicle, -1 if there is none
+     */
+    private int getAvailableRun(T vehicle, int slots, int fromPool, int toPool) {
+        for (int pool = fromPool; pool < toPool; pool++) {
+            SlotPool<T> slotPool = pools.get(pool);
+            if (slotPool.getAvailableCapacity() >= slots && matches(pool, vehicle)) {
+                if (!powered(pool, slots)) {
+                    if (powerFallback) {
+                        continue;
+                    }
+                    return -1;
+                }
+                poolsSearched++;
+                int start = freeRuns[pool].find(slots);
+                if (start >= 0) {
+                    return slotPool.getStart() + start;
+                }
+            }
+        }
+        return -1;
+    }
+
     /**
-     * Return a stream containing all available slots for this vehicle using allocation policy strategy
      * @param vehicle vehicle class
-     * @return stream on available slots for the vehicle
+     * @return the number of consecutive slots taken by the vehicle
      */
-    private Stream<Slot<T>> getAvailable(T vehicle) {
-        return getAvailable().filter(slot -> slot.test(vehicle));
+    private int slotsOf(T vehicle) {
+        if (vehicleSlots == null) {
+            return 1;
+        }
+        int slots = vehicleSlots.applyAsInt(vehicle);
+        if (slots <= 0) {
+            throw new IllegalArgumentException("The number of slots of a vehicle should be positive!");
+        }
+        return slots;
     }
-    
+
+    /**
+     * Match the vehicle with a pool, with the capabilities of the vehicle prepared when the parking has capability
+     * pools
+     */
+    private boolean matches(int pool, T vehicle) {
+        if (capabilities != null && !capabilities.isPredicate(pool)) {
+            return capabilities.matches(pool);
+        }
+        predicatesEvaluated++;
+        return pools.get(pool).getAllocationStrategy().test(vehicle);
+    }
+
+    /**
+     * @return the position of the first free slot of the pool from the position not reserved by a gate, -1 if none
+     */
+    private int firstUnreserved(int pool, int from) {
+        int end = pools.get(pool).getEnd();
+        int index = occupancy.firstFree(from, end);
+        if (reserved == null) {
+            return index;
+        }
+        // skips the runs of reserved slots, then the runs of occupied slots
+        while (index >= 0 && reserved.get(index)) {
+            index = occupancy.firstFree(reserved.nextClearBit(index), end);
+        }
+        return index;
+    }
+
+    /**
+     * @return {@code true} if a free slot of the pool is reserved by a gate
+     */
+    private boolean isReserved(int pool) {
+        int index = reserved.nextSetBit(pools.get(pool).getStart());
+        return index >= 0 && index < pools.get(pool).getEnd();
+    }
+
+    /**
+     * Take back the first free slot of the pool reserved by a gate, which finds it missing when handing it out
+     * @return the position of the slot, -1 if no slot of the pool is reserved
+     */
+    private int stealReserved(int pool) {
+        int index = reserved.nextSetBit(pools.get(pool).getStart());
+        if (index < 0 || index >= pools.get(pool).getEnd()) {
+            return -1;
+        }
+        reserved.clear(index);
+        return index;
+    }
+
+    /**
+     * Create a cache of free slots for one gate, see {@link GateSlotCache}
+     * @param batchSize the number of slots of a pool reserved at once by the gate
+     * @return the cache of the gate
+     */
+    public synchronized GateSlotCache<T> newGateSlotCache(int batchSize) {
+        GateSlotCache<T> cache = new GateSlotCache<>(this, ++gateSlotCaches, batchSize, layout.getPoolCount());
+        if (reserved == null) {
+            reserved = new BitSet(layout.getCapacity());
+            reservedBy = new int[layout.getCapacity()];
+        }
+        return cache;
+    }
+
+    /**
+     * Register the vehicle in a slot reserved by the gate, reserving the next batch of free slots of a pool when the
+     * gate has no slot left in it, or taking a slot reserved by another gate when the pool runs low
+     * @param cache the cache of the gate
+     * @param vehicle vehicle class
+     * @param arrivalDateTime the arrival date and time.
+     * @return {@link Registration} that contains the allocated slot if a free match is found
+     */
+    synchronized Registration<T> register(GateSlotCache<T> cache, T vehicle, LocalDateTime arrivalDateTime) {
+        if (slotsOf(vehicle) > 1) {
+            return register(vehicle, arrivalDateTime);
+        }
+        Registration<T> registration = new Registration<T>();
+        if (capabilities != null) {
+            capabilities.prepare(vehicle);
+        }
+        for (int pool = 0; pool < pools.size(); pool++) {
+            SlotPool<T> slotPool = pools.get(pool);
+            if (slotPool.getAvailableCapacity() > 0 && matches(pool, vehicle)) {
+                if (!powered(pool, 1)) {
+                    if (powerFallback) {
+                        continue;
+                    }
+                    return registration;
+                }
+                int index = takeReserved(cache, pool);
+                if (index < 0) {
+                    reserve(cache, pool);
+                    index = takeReserved(cache, pool);
+                }
+                if (index < 0) {
+                    index = stealReserved(pool);
+                }
+                if (index >= 0) {
+                    registration.setSlot(allocate(index, vehicle, arrivalDateTime));
+                    registration.setPricingVersion(pricingOf(index));
+                    return registration;
+                }
+            }
+        }
+        return registration;
+    }
+
+    /**
+     * @return the position of the next slot of the pool still reserved by the gate, -1 if there is none
+     */
+    private int takeReserved(GateSlotCache<T> cache, int pool) {
+        int index;
+        while ((index = cache.next(pool)) >= 0) {
+            if (unreserve(cache, index)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return {@code true} if the free slot at the position was still reserved by the gate
+     */
+    private boolean unreserve(GateSlotCache<T> cache, int index) {
+        if (reserved.get(index) && reservedBy[index] == cache.getId()) {
+            reserved.clear(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reserve the next batch of free slots of the pool not reserved by other gates
+     */
+    private void reserve(GateSlotCache<T> cache, int pool) {
+        SlotPool<T> slotPool = pools.get(pool);
+        int index = slotPool.getStart();
+        for (int count = 0; count < cache.getBatchSize(); count++) {
+            index = firstUnreserved(pool, index);
+            if (index < 0) {
+                return;
+            }
+            reserved.set(index);
+            reservedBy[index] = cache.getId();
+            cache.add(pool, index++);
+        }
+    }
+
+    /**
+     * Give back the free slots reserved by the gate
+     * @param cache the cache of the gate
+     */
+    synchronized void unreserve(GateSlotCache<T> cache) {
+        int index;
+        for (int pool = 0; pool < pools.size(); pool++) {
+            while ((index = cache.next(pool)) >= 0) {
+                unreserve(cache, index);
+            }
+        }
+    }
+
     /**
      * Available capacity of the parking for the vehicle (number of free slots for the vehicle) 
      * @param vehicle vehicle class
      * @return number of free slots for this vehicle.
      */
     public long getAvailableCapacity(T vehicle) {
-        return getAvailable(vehicle).count();
+        return pools.stream().filter(pool -> pool.getAllocationStrategy().test(vehicle))
+                .mapToLong(SlotPool::getAvailableCapacity).sum();
     }
     
+    /**
+     * Expected time until a slot for the vehicle is free: the median time until the first departure from the
+     * matching pools, from the stay sketches of the pools and the arrival date times of the vehicles in them
+     * A vehicle taking several slots is one stay, and waits for a departure when no matching pool has a run of free
+     * slots long enough for it, like a vehicle charging in pools whose power budgets are exhausted
+     * Only the arrival minutes and the sketches of the matching pools are copied under the parking lock, the
+     * estimate itself is computed outside of it
+     * @param vehicle vehicle class
+     * @param dateTime the current date time
+     * @return {@link Duration#ZERO} if a slot is free, {@code null} if no departure is expected from the past stays
+     * @throws IllegalStateException if the stays are not estimated, see {@link Builder#estimateStays()}
+     */
+    public Duration expectedFreeIn(T vehicle, LocalDateTime dateTime) {
+        Objects.requireNonNull(dateTime, "dateTime cannot be null !");
+        if (!estimateStays) {
+            throw new IllegalStateException("The stays are not estimated by this parking!");
+        }
+        List<SlotPool.Departures> departures = new ArrayList<>();
+        synchronized (this) {
+            int slots = slotsOf(vehicle);
+            // the registration stops at the first pool out of power, unless it falls back to the next pools
+            boolean searching = true;
+            for (int pool = 0; pool < pools.size(); pool++) {
+                SlotPool<T> slotPool = pools.get(pool);
+                if (slotPool.getAllocationStrategy().test(vehicle)) {
+                    if (searching && slotPool.getAvailableCapacity() >= slots) {
+                        if (!powered(pool, slots)) {
+                            searching = powerFallback;
+                        } else if (slots == 1 || freeRuns[pool].find(slots) >= 0) {
+                            return Duration.ZERO;
+                        }
+                    }
+                    // a pool with free slots but without a run long enough or without power waits for departures too
+                    departures.add(slotPool.departures(dateTime));
+                }
+            }
+        }
+        double horizon = 0d;
+        for (SlotPool.Departures pool : departures) {
+            horizon = Math.max(horizon, pool.getLongestStay());
+        }
+        if (logProbabilityNoDeparture(departures, horizon) > Math.log(0.5)) {
+            return null;
+        }
+        double low = 0d;
+        double high = horizon;
+        while (high - low > 1d) {
+            double middle = (low + high) / 2;
+            if (logProbabilityNoDeparture(departures, middle) > Math.log(0.5)) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return Duration.ofSeconds((long) Math.ceil(high));
+    }
+
+    private static double logProbabilityNoDeparture(List<SlotPool.Departures> departures, double seconds) {
+        double logProbability = 0d;
+        for (SlotPool.Departures pool : departures) {
+            logProbability += pool.logProbabilityNoDeparture(seconds);
+        }
+        return logProbability;
+    }
+
     /**
      * Available capacity of the parking (number of free slots)
      * @return number of free slots
      */
     public long getAvailableCapacity() {
-        return getAvailable().count();
+        return pools.stream().mapToLong(SlotPool::getAvailableCapacity).sum();
+    }
+
+    /**
+     * @return the paths of the zones of the parking, parents before their children, see
+     * {@link Builder#beginZone(String)}
+     */
+    public List<String> getZones() {
+        return layout.getZones();
+    }
+
+    /**
+     * Capacity of a zone of the parking
+     * @param zone the path of the zone, like {@code "level-2"}
+     * @return number of slots of the zone and its child zones
+     * @throws IllegalArgumentException if the zone is not declared
+     */
+    public int getZoneCapacity(String zone) {
+        Objects.requireNonNull(zone, "zone cannot be null !");
+        return layout.zoneCapacity(layout.zones().zone(zone));
+    }
+
+    /**
+     * Available capacity of a zone of the parking, maintained on every registration and check out
+     * @param zone the path of the zone, like {@code "level-2"}
+     * @return number of free slots of the zone and its child zones
+     * @throws IllegalArgumentException if the zone is not declared
+     */
+    public synchronized int getZoneAvailableCapacity(String zone) {
+        Objects.requireNonNull(zone, "zone cannot be null !");
+        return zoneFree[layout.zones().zone(zone)];
+    }
+
+    /**
+     * Pools of the parking, in the order of the slots
+     * @return the {@link SlotPool}s of the parking
+     */
+    public List<SlotPool<T>> getPools() {
+        return Collections.unmodifiableList(pools);
+    }
+
+    /**
+     * @param index position of a slot
+     * @return the pool of the slot
+     */
+    private SlotPool<T> poolOf(int index) {
+        return pools.get(layout.poolOf(index));
+    }
+
+    /**
+     * Layout of the parking, to share with other parkings
+     * @return the {@link ParkingLayout} of the parking
+     */
+    public ParkingLayout<T> getLayout() {
+        return layout;
+    }
+
+    /**
+     * Setter of the layout, called by the builder
+     * @param layout the layout of the slots
+     */
+    void setLayout(ParkingLayout<T> layout) {
+        this.layout = layout;
     }
 
     /**
@@ -105,33 +629,526 @@ public class Parking<T> {
      * @param pricingPolicy pricing policy
      */
     void setPricingPolicy(PricingPolicy<T> pricingPolicy) {
-        this.pricingPolicy = pricingPolicy;
+        this.pricing.set(pricingPolicy == null ? null : new PricingVersion<>(1, pricingPolicy));
+    }
+
+    /**
+     * Price the stays with the version of the pricing policy in force at the arrival of the vehicles
+     */
+    void priceWithArrivalPolicy() {
+        this.arrivalPricing = new HashMap<>();
+    }
+
+    /**
+     * Replace the pricing policy, without waiting for the registrations and check outs in progress
+     * The stays are priced with the new version from now on, or only the stays of the vehicles arriving from now on
+     * if the parking prices with the policy in force at arrival, see {@link Builder#priceWithArrivalPolicy()}
+     * @param pricingPolicy the new pricing policy
+     * @return the new version of the pricing policy
+     */
+    public PricingVersion<T> updatePricingPolicy(PricingPolicy<T> pricingPolicy) {
+        Objects.requireNonNull(pricingPolicy, "pricingPolicy cannot be null !");
+        PricingVersion<T> current;
+        PricingVersion<T> next;
+        do {
+            current = pricing.get();
+            next = new PricingVersion<>(current.getVersion() + 1, pricingPolicy);
+        } while (!pricing.compareAndSet(current, next));
+        if (!listeners.isEmpty()) {
+            // outside the parking lock, the gates never wait for the listeners of the update
+            synchronized (pricingNotifications) {
+                if (next.getVersion() > notifiedPricingVersion) {
+                    notifiedPricingVersion = next.getVersion();
+                    PricingVersion<T> updated = next;
+                    listeners.forEach(listener -> listener.pricingUpdated(updated));
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Put a replicated version of the pricing policy in force, unless a later version already is
+     * @param version the version of the primary parking
+     */
+    void replicatePricingVersion(PricingVersion<T> version) {
+        PricingVersion<T> current;
+        do {
+            current = pricing.get();
+        } while (current.getVersion() < version.getVersion() && !pricing.compareAndSet(current, version));
+    }
+
+    /**
+     * @return the version of the pricing policy in force
+     */
+    public PricingVersion<T> getPricingVersion() {
+        return pricing.get();
     }
 
     /**
-     * Add a new slot to the parking
-     * @param id id of the slot
-     * @param allocationStrategy the allocation strategy that will be used for that slot
+     * @param index position of an occupied slot
+     * @return the pricing version of the stay in the slot
      */
-    void addSlot(Long id, Predicate<T> allocationStrategy) {
-        slots.add(new Slot<>(id, allocationStrategy));
+    private PricingVersion<T> pricingOf(int index) {
+        PricingVersion<T> version = arrivalPricing == null ? null : arrivalPricing.get(index);
+        return version != null ? version : pricing.get();
+    }
+
+    /**
+     * Keep the occupancy state off the java heap
+     * @param occupantKey function giving the unique key of a vehicle
+     */
+    void setOffHeapOccupancy(ToLongFunction<T> occupantKey) {
+        this.offHeapOccupantKey = occupantKey;
+    }
+
+    /**
+     * Record the occupancy history of each pool
+     * @param window the recorded window
+     */
+    void setOccupancyHistoryWindow(Duration window) {
+        this.occupancyHistoryWindow = window;
+    }
+
+    /**
+     * Setter of the number of consecutive slots taken by a vehicle
+     * @param vehicleSlots the number of slots of a vehicle
+     */
+    void setVehicleSlots(ToIntFunction<T> vehicleSlots) {
+        this.vehicleSlots = vehicleSlots;
+    }
+
+    /**
+     * @param allocationStrategy the allocation strategy of the charging slots
+     * @param kilowatts the charging power of a slot
+     */
+    void setChargingPower(Predicate<T> allocationStrategy, long kilowatts) {
+        powerBudgets().setChargingPower(allocationStrategy, kilowatts);
+    }
+
+    /**
+     * @param zone the name of the zone
+     * @param kilowatts the maximum power of the charging slots of the zone
+     * @param allocationStrategies the allocation strategies of the slots of the zone, empty for the whole site
+     */
+    void addPowerBudget(String zone, long kilowatts, Collection<Predicate<T>> allocationStrategies) {
+        powerBudgets().addBudget(zone, kilowatts, allocationStrategies);
+    }
+
+    private PowerBudgets<T> powerBudgets() {
+        if (power == null) {
+            power = new PowerBudgets<>();
+        }
+        return power;
+    }
+
+    /**
+     * Search the other matching pools when the power budget of a pool is reached
+     */
+    void allowPowerFallback() {
+        this.powerFallback = true;
+    }
+
+    /**
+     * @param zone the name of a zone with a power budget
+     * @return the maximum power of the charging slots of the zone
+     * @throws IllegalArgumentException if the zone has no power budget
+     */
+    public long getPowerBudget(String zone) {
+        return powerBudgets(zone).getCap(zone);
+    }
+
+    /**
+     * @param zone the name of a zone with a power budget
+     * @return the power of the occupied charging slots of the zone
+     * @throws IllegalArgumentException if the zone has no power budget
+     */
+    public synchronized long getUsedPower(String zone) {
+        return powerBudgets(zone).getUsed(zone);
+    }
+
+    private PowerBudgets<T> powerBudgets(String zone) {
+        if (power == null) {
+            throw new IllegalArgumentException("Zone " + zone + " has no power budget!");
+        }
+        return power;
+    }
+
+    /**
+     * Maintain the stay sketches of the pools
+     */
+    void estimateStays() {
+        this.estimateStays = true;
+    }
+
+    /**
+     * Publish an occupancy view on every registration and check out
+     */
+    void publishOccupancyViews() {
+        this.publishOccupancyViews = true;
+    }
+
+    /**
+     * Latest consistent view of the occupancy of all the slots, read without blocking the gates
+     * @return the view of the occupancy after the last registration or check out
+     * @throws IllegalStateException if the views are not published, see {@link Builder#publishOccupancyViews()}
+     */
+    public OccupancyView<T> getOccupancyView() {
+        OccupancyView<T> view = occupancyView;
+        if (view == null) {
+            throw new IllegalStateException("Occupancy views are not published by this parking!");
+        }
+        return view;
+    }
+
+    /**
+     * Maintain the secondary indexes of the occupied slots, with the attribute index if not {@code null}
+     * @param name the name of the attribute index
+     * @param attribute the indexed attribute
+     */
+    void addOccupancyIndex(String name, Function<? super Slot<T>, ?> attribute) {
+        if (occupancyIndex == null) {
+            occupancyIndex = new OccupancyIndex<>();
+            listeners.add(occupancyIndex);
+        }
+        if (attribute != null) {
+            occupancyIndex.addAttribute(name, attribute);
+        }
+    }
+
+    /**
+     * Publish the available capacity of the pools with an {@link AvailabilityFeed}
+     * @param interval the coalescing interval of the changes
+     */
+    void publishAvailability(Duration interval) {
+        Objects.requireNonNull(interval, "interval cannot be null !");
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("interval should be positive!");
+        }
+        this.availabilityInterval = interval;
+    }
+
+    /**
+     * Feed of the available capacity of the pools, pushed to its subscribers
+     * @return the feed of the parking
+     * @throws IllegalStateException if the availability is not published, see
+     * {@link Builder#publishAvailability(Duration)}
+     */
+    public AvailabilityFeed getAvailabilityFeed() {
+        if (availabilityFeed == null) {
+            throw new IllegalStateException("Availability is not published by this parking!");
+        }
+        return availabilityFeed;
+    }
+
+    /**
+     * Secondary indexes of the occupied slots, by arrival date time and by declared attributes
+     * @return the indexes, updated on every registration and check out
+     * @throws IllegalStateException if the indexes are not maintained, see {@link Builder#indexOccupancy()}
+     */
+    public OccupancyIndex<T> getOccupancyIndex() {
+        if (occupancyIndex == null) {
+            throw new IllegalStateException("Occupancy indexes are not maintained by this parking!");
+        }
+        return occupancyIndex;
+    }
+
+    /**
+     * Keep the results of the registrations and check outs done with an idempotency key
+     * @param maxKeys the maximum number of kept keys of each operation
+     * @param retention how long the keys are kept
+     */
+    void deduplicateRetries(int maxKeys, Duration retention) {
+        this.registrations = new DedupeCache<>(maxKeys, retention);
+        this.bills = new DedupeCache<>(maxKeys, retention);
+    }
+
+    /**
+     * Add a listener of the slots allocations and releases
+     * @param listener the listener
+     */
+    void addListener(ParkingListener<T> listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener cannot be null !"));
+    }
+
+    /**
+     * Create the pools, the occupancy store and histories, called by the builder once the layout is set
+     */
+    void initOccupancy() {
+        for (int pool = 0; pool < layout.getPoolCount(); pool++) {
+            pools.add(new SlotPool<>(layout.poolStart(pool), layout.poolEnd(pool), layout.poolStrategy(pool)));
+        }
+        this.occupancy = offHeapOccupantKey != null ? new OffHeapOccupancy<>(layout, offHeapOccupantKey)
+                : new HeapOccupancy<>(layout);
+        if (occupancyHistoryWindow != null) {
+            pools.forEach(pool -> pool.recordHistory(occupancyHistoryWindow));
+        }
+        if (estimateStays) {
+            pools.forEach(SlotPool::estimateStays);
+        }
+        this.capabilities = CapabilityIndex.of(layout);
+        if (power != null) {
+            power.init(layout);
+        }
+        if (vehicleSlots != null) {
+            freeRuns = pools.stream().map(pool -> new FreeRuns(pool.getCapacity())).toArray(FreeRuns[]::new);
+        }
+        if (publishOccupancyViews) {
+            this.occupancyView = OccupancyView.of(layout);
+        }
+        if (layout.zones().size() > 0) {
+            this.zoneFree = new int[layout.zones().size()];
+            for (int zone = 0; zone < zoneFree.length; zone++) {
+                zoneFree[zone] = layout.zoneCapacity(zone);
+            }
+        }
+        if (availabilityInterval != null) {
+            this.availabilityFeed = new AvailabilityFeed(availabilityInterval,
+                    pools.stream().mapToInt(SlotPool::getCapacity).toArray());
+        }
     }
 
 
     /**
      * Register a vehicle in the parking if there is any available slot that matches the allocation strategy
+     * A vehicle taking several slots, see {@link Builder#setVehicleSlots}, gets the first run of consecutive free
+     * slots of a matching pool
      * Synchronized method in order to make the registration thread safe
      * @param vehicle vehicle class
      * @param arrivalDateTime the arrival date and time.
      * @return {@link Registration} that contains the allocated slot if a free match is found
      */
     public synchronized Registration<T> register(T vehicle, LocalDateTime arrivalDateTime) {
+        Object event = telemetry.beginRegister();
         Registration<T> registration = new Registration<T>();
-        getAvailable(vehicle).findFirst().ifPresent(
-                slot -> registration.setSlot(slot.allocate(vehicle, arrivalDateTime)));
+        int slots = slotsOf(vehicle);
+        int index = getAvailable(vehicle, slots);
+        if (index >= 0) {
+            allocate(registration, index, slots, vehicle, arrivalDateTime);
+        }
+        if (event != null) {
+            telemetry.commitRegister(event, poolsSearched, predicatesEvaluated,
+                    registration.isSuccessful(), registration.isSuccessful() ? registration.getSlot().getId() : 0L);
+        }
+        return registration;
+    }
+
+    /**
+     * Allocate the consecutive slots from the position to the vehicle
+     */
+    private void allocate(Registration<T> registration, int index, int slots, T vehicle,
+            LocalDateTime arrivalDateTime) {
+        registration.setSlot(allocate(index, vehicle, arrivalDateTime));
+        registration.setPricingVersion(pricingOf(index));
+        for (int next = index + 1; next < index + slots; next++) {
+            registration.addSlot(allocate(next, vehicle, arrivalDateTime, pricing.get(), false));
+        }
+    }
+
+    /**
+     * Register a vehicle in a zone of the parking, or in the nearest sibling zone having a free matching slot when
+     * the zone has none, see {@link Builder#beginZone(String)}. Zones without enough free slots are skipped without
+     * searching their pools
+     * Synchronized method in order to make the registration thread safe
+     * @param vehicle vehicle class
+     * @param arrivalDateTime the arrival date and time.
+     * @param zone the path of the zone, like {@code "level-2/row-B"}
+     * @return {@link Registration} that contains the allocated slot if a free match is found
+     * @throws IllegalArgumentException if the zone is not declared
+     */
+    public synchronized Registration<T> registerInZone(T vehicle, LocalDateTime arrivalDateTime, String zone) {
+        Objects.requireNonNull(zone, "zone cannot be null !");
+        ZoneTree zones = layout.zones();
+        int requested = zones.zone(zone);
+        Registration<T> registration = new Registration<T>();
+        int slots = slotsOf(vehicle);
+        prepareSearch(vehicle);
+        int index = getAvailableIn(requested, vehicle, slots);
+        if (index < 0) {
+            for (int sibling : zones.siblings(requested)) {
+                index = getAvailableIn(sibling, vehicle, slots);
+                if (index >= 0) {
+                    break;
+                }
+            }
+        }
+        if (index >= 0) {
+            allocate(registration, index, slots, vehicle, arrivalDateTime);
+        }
         return registration;
     }
 
+    /**
+     * @return position of the first available slot for the vehicle in the zone, -1 if there is none
+     */
+    private int getAvailableIn(int zone, T vehicle, int slots) {
+        if (zoneFree[zone] < slots) {
+            return -1;
+        }
+        ZoneTree zones = layout.zones();
+        return getAvailable(vehicle, slots, zones.firstPool(zone), zones.endPool(zone));
+    }
+
+    /**
+     * Register a vehicle, or give back the registration already done with the same idempotency key
+     * A retried registration then neither takes a second slot nor fails. Only successful registrations are kept:
+     * a retry of a registration without free slot tries again
+     * @param vehicle vehicle class
+     * @param arrivalDateTime the arrival date and time.
+     * @param idempotencyKey the key of the registration, the same for all its retries
+     * @return {@link Registration} that contains the allocated slot if a free match is found
+     * @throws IllegalStateException if the retries are not deduplicated, see {@link Builder#deduplicateRetries}
+     */
+    public Registration<T> register(T vehicle, LocalDateTime arrivalDateTime, String idempotencyKey) {
+        DedupeCache<Registration<T>> cache = dedupeCache(registrations, idempotencyKey);
+        Registration<T> registration = cache.get(idempotencyKey);
+        if (registration != null) {
+            return registration;
+        }
+        synchronized (this) {
+            registration = cache.get(idempotencyKey);
+            if (registration == null) {
+                registration = register(vehicle, arrivalDateTime);
+                if (registration.isSuccessful()) {
+                    cache.put(idempotencyKey, registration);
+                }
+            }
+            return registration;
+        }
+    }
+
+    /**
+     * Check out a vehicle, or give back the bill of the check out already done with the same idempotency key
+     * A retried check out then does not fail because the vehicle already left
+     * @param vehicle vehicle class
+     * @param departureDateTime The departure date and time.
+     * @param idempotencyKey the key of the check out, the same for all its retries
+     * @return {@link Bill} containing slot snapshot and price.
+     * @throws ParkingException if the vehicle is not in the parking and the key is unknown
+     * @throws IllegalStateException if the retries are not deduplicated, see {@link Builder#deduplicateRetries}
+     */
+    public Bill<T> checkOut(T vehicle, LocalDateTime departureDateTime, String idempotencyKey) {
+        DedupeCache<Bill<T>> cache = dedupeCache(bills, idempotencyKey);
+        Bill<T> bill = cache.get(idempotencyKey);
+        if (bill != null) {
+            return bill;
+        }
+        synchronized (this) {
+            bill = cache.get(idempotencyKey);
+            if (bill == null) {
+                bill = checkOut(vehicle, departureDateTime);
+                cache.put(idempotencyKey, bill);
+            }
+            return bill;
+        }
+    }
+
+    private static <V> DedupeCache<V> dedupeCache(DedupeCache<V> cache, String idempotencyKey) {
+        Objects.requireNonNull(idempotencyKey, "idempotencyKey cannot be null !");
+        if (cache == null) {
+            throw new IllegalStateException("Retries are not deduplicated by this parking!");
+        }
+        return cache;
+    }
+
+    /**
+     * Allocate the free slot at the position to the vehicle, used by the registration and the replication
+     * @param index position of a free slot
+     * @param vehicle vehicle class
+     * @param arrivalDateTime the arrival date and time.
+     * @return snapshot of the allocated slot
+     * @throws IllegalStateException if the slot is not free
+     */
+    synchronized Slot<T> allocate(int index, T vehicle, LocalDateTime arrivalDateTime) {
+        return allocate(index, vehicle, arrivalDateTime, pricing.get(), true);
+    }
+
+    /**
+     * Allocate the free slot at the position to the vehicle, the replication gives the pricing version of the stay
+     * @param index position of a free slot
+     * @param vehicle vehicle class
+     * @param arrivalDateTime the arrival date and time.
+     * @param version the pricing version in force at the arrival of the vehicle
+     * @param firstSlot if the slot is the first of the vehicle, the next slots of a vehicle are not stays
+     * @return snapshot of the allocated slot
+     * @throws IllegalStateException if the slot is not free
+     */
+    synchronized Slot<T> allocate(int index, T vehicle, LocalDateTime arrivalDateTime, PricingVersion<T> version,
+            boolean firstSlot) {
+        if (!occupancy.isFree(index)) {
+            throw new IllegalStateException("Slot " + layout.idOf(index) + " is not free!");
+        }
+        // first, so that a vehicle rejected by the store leaves the pools and the listeners as they were
+        Slot<T> slot = occupancy.allocate(index, vehicle, arrivalDateTime);
+        if (reserved != null) {
+            reserved.clear(index);
+        }
+        if (arrivalPricing != null) {
+            arrivalPricing.put(index, version);
+        }
+        poolOf(index).allocated(arrivalDateTime, firstSlot);
+        if (freeRuns != null || power != null || availabilityFeed != null || zoneFree != null) {
+            int pool = layout.poolOf(index);
+            if (freeRuns != null) {
+                freeRuns[pool].set(index - layout.poolStart(pool), false);
+            }
+            if (power != null) {
+                power.allocated(pool);
+            }
+            if (availabilityFeed != null) {
+                availabilityFeed.changed(pool, pools.get(pool).getAvailableCapacity());
+            }
+            if (zoneFree != null) {
+                for (int zone = layout.zones().zoneOf(pool); zone >= 0; zone = layout.zones().parent(zone)) {
+                    zoneFree[zone]--;
+                }
+            }
+        }
+        if (occupancyView != null) {
+            occupancyView = occupancyView.with(index, slot);
+        }
+        listeners.forEach(listener -> listener.allocated(slot, version));
+        return slot;
+    }
+
+    /**
+     * Release the slot at the position occupied by the vehicle, used by the check out and the replication
+     * @param index position of an occupied slot
+     * @param vehicle the vehicle in the slot
+     * @param departureDateTime The departure date and time.
+     * @param firstSlot if the slot is the first of the vehicle, the next slots of a vehicle are not stays
+     * @return snapshot of the slot just before its release
+     */
+    synchronized Slot<T> release(int index, T vehicle, LocalDateTime departureDateTime, boolean firstSlot) {
+        Slot<T> slot = occupancy.free(index, vehicle, departureDateTime);
+        if (arrivalPricing != null) {
+            arrivalPricing.remove(index);
+        }
+        poolOf(index).released(slot.getArrivalDateTime(), departureDateTime, firstSlot);
+        if (freeRuns != null || power != null || availabilityFeed != null || zoneFree != null) {
+            int pool = layout.poolOf(index);
+            if (freeRuns != null) {
+                freeRuns[pool].set(index - layout.poolStart(pool), true);
+            }
+            if (power != null) {
+                power.released(pool);
+            }
+            if (availabilityFeed != null) {
+                availabilityFeed.changed(pool, pools.get(pool).getAvailableCapacity());
+            }
+            if (zoneFree != null) {
+                for (int zone = layout.zones().zoneOf(pool); zone >= 0; zone = layout.zones().parent(zone)) {
+                    zoneFree[zone]++;
+                }
+            }
+        }
+        if (occupancyView != null) {
+            occupancyView = occupancyView.with(index, layout.freeSlot(index));
+        }
+        listeners.forEach(listener -> listener.released(slot));
+        return slot;
+    }
+
     /**
      * Register the vehicle
      * Synchronized method in order to make the registration thread safe
@@ -147,12 +1164,32 @@ public class Parking<T> {
      * Synchronized to make the checkOut thread safe
      * @param vehicle vehicle class
      * @param departureDateTime The departure date and time.
-     * @return {@link Bill} containing slot snapshot and price.
+     * @return {@link Bill} containing slot snapshot and price, the sum of the prices of its slots for a vehicle
+     * taking several slots
      */
     public synchronized Bill<T> checkOut(T vehicle, LocalDateTime departureDateTime) {
-        Slot<T> slot = slots.stream().filter(s -> s.getVehicle() == vehicle).findFirst().orElseThrow(
-                () -> new ParkingException("Vehicle " + vehicle + " not found !")).free(departureDateTime);
-        return new Bill<>(slot, pricingPolicy.computePrice(slot));
+        Object event = telemetry.beginCheckOut();
+        long lookupStart = event == null ? 0L : System.nanoTime();
+        int index = find(vehicle);
+        int slots = slotsOf(vehicle);
+        long lookupTime = event == null ? 0L : System.nanoTime() - lookupStart;
+        PricingVersion<T> version = pricingOf(index);
+        List<Slot<T>> released = new ArrayList<>(slots);
+        for (int next = index; next < index + slots; next++) {
+            released.add(release(next, vehicle, departureDateTime, next == index));
+        }
+        long pricingStart = event == null ? 0L : System.nanoTime();
+        BigDecimal price = price(released.get(0), version);
+        for (int next = 1; next < slots; next++) {
+            price = price.add(price(released.get(next), version));
+        }
+        Slot<T> slot = released.get(0);
+        Bill<T> bill = new Bill<>(released, price, version);
+        if (event != null) {
+            telemetry.commitCheckOut(event, slot.getId(), lookupTime,
+                    System.nanoTime() - pricingStart);
+        }
+        return bill;
     }
 
     /**
@@ -165,15 +1202,70 @@ public class Parking<T> {
         return checkOut(vehicle, LocalDateTime.now());
     }
 
+    /**
+     * Price the vehicle would pay if it left the parking at the departure date time, the vehicle stays in the parking
+     * Synchronized to read a consistent slot
+     * @param vehicle vehicle class
+     * @param departureDateTime The departure date and time.
+     * @return the price {@link BigDecimal}
+     * @throws ParkingException if the vehicle is not in the parking
+     * @throws IllegalArgumentException if departureDateTime is before the arrival date time of the vehicle
+     */
+    public synchronized BigDecimal quote(T vehicle, LocalDateTime departureDateTime) {
+        Objects.requireNonNull(departureDateTime);
+        int index = find(vehicle);
+        LocalDateTime arrivalDateTime = occupancy.arrivalOf(index);
+        if (departureDateTime.isBefore(arrivalDateTime)) {
+            throw new IllegalArgumentException("departureDateTime should be after arrivalDateTime!");
+        }
+        PricingVersion<T> version = pricingOf(index);
+        BigDecimal price = price(layout.slot(index, vehicle, arrivalDateTime, departureDateTime), version);
+        for (int next = index + 1; next < index + slotsOf(vehicle); next++) {
+            price = price.add(price(layout.slot(next, vehicle, arrivalDateTime, departureDateTime), version));
+        }
+        return price;
+    }
+
+    /**
+     * Evaluate the pricing policy for the slot
+     * @param slot snapshot of the slot with the departure date time
+     * @param version the pricing version of the stay
+     * @return the price {@link BigDecimal}
+     */
+    private BigDecimal price(Slot<T> slot, PricingVersion<T> version) {
+        Object event = telemetry.beginPricing();
+        BigDecimal price = version.getPolicy().computePrice(slot);
+        if (event != null) {
+            telemetry.commitPricing(event, version, slot.getStayDuration().toMillis(), price);
+        }
+        return price;
+    }
+
+    /**
+     * @param vehicle vehicle class
+     * @return the position of the slot of the vehicle
+     * @throws ParkingException if the vehicle is not in the parking
+     */
+    private int find(T vehicle) {
+        int index = occupancy.indexOf(vehicle);
+        if (index < 0) {
+            throw new ParkingException("Vehicle " + vehicle + " not found !");
+        }
+        return index;
+    }
+
     /**
      * Used by the builder to validate the parking set up
      */
     boolean validate() {
        
-        if (this.slots.isEmpty()) {
+        if (this.layout == null || this.layout.getCapacity() == 0) {
             throw new ParkingException("The paking should contain at least one slot!");
         }
-        if (this.pricingPolicy == null) {
+        if (this.vehicleSlots != null && this.offHeapOccupantKey != null) {
+            throw new ParkingException("Vehicles taking several slots need the heap occupancy!");
+        }
+        if (this.pricing.get() == null) {
             throw new PrincingPolicyException("Pricing pollicy is required to create a parking!");
         }
         return true;
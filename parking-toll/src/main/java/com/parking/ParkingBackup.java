@@ -0,0 +1,158 @@
+package com.parking;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+
+/**
+ * Backup of a parking replicated by a {@link ReplicationPrimary}: applies the batches of events in their order to a
+ * parking built with the layout of the primary, which should not be used by the gates until its promotion
+ * After {@link ParkingBackup#promote()} the parking has the occupancy of the primary up to the last applied event, and
+ * the vehicles in it are given by {@link ParkingBackup#getVehicles()} to check them out: several vehicles may have the
+ * same plate, so they are identified by the position of their first slot
+ * The backup prices with the pricing versions of the primary: the policies of the versions are code, so the backup
+ * is given the policy of each version number, and its parking should price with the arrival policy like the primary
+ * @param <T> the vehicle class
+ */
+public final class ParkingBackup<T> {
+
+    private final Parking<T> parking;
+    private final VehicleCodec<T> codec;
+
+    /**
+     * Vehicles in the parking by the position of their first slot, and positions of the first slots by slot position
+     */
+    private final Map<Integer, T> vehicles = new HashMap<>();
+    private final Map<Integer, Integer> firstSlots = new HashMap<>();
+    private final LongFunction<PricingPolicy<T>> pricingPolicies;
+    /**
+     * Pricing versions of the primary by number, from the version of the builder
+     */
+    private final Map<Long, PricingVersion<T>> versions = new HashMap<>();
+    private long applied;
+    private boolean promoted;
+
+    /**
+     * Backup of a primary keeping the pricing policy of its builder
+     * @param parking an empty parking with the layout and the pricing policy of the primary
+     * @param codec the codec of the vehicles
+     */
+    public ParkingBackup(Parking<T> parking, VehicleCodec<T> codec) {
+        this(parking, codec, version -> null);
+    }
+
+    /**
+     * @param parking an empty parking with the layout and the pricing policy of the primary
+     * @param codec the codec of the vehicles
+     * @param pricingPolicies gives the policy of a version of the primary replacing the policy of the builder, null if
+     * unknown
+     */
+    public ParkingBackup(Parking<T> parking, VehicleCodec<T> codec, LongFunction<PricingPolicy<T>> pricingPolicies) {
+        this.parking = Objects.requireNonNull(parking, "parking cannot be null !");
+        this.codec = Objects.requireNonNull(codec, "codec cannot be null !");
+        this.pricingPolicies = Objects.requireNonNull(pricingPolicies, "pricingPolicies cannot be null !");
+        if (parking.getAvailableCapacity() != parking.getCapacity()) {
+            throw new IllegalArgumentException("The parking of a backup should be empty!");
+        }
+        PricingVersion<T> version = parking.getPricingVersion();
+        versions.put(version.getVersion(), version);
+    }
+
+    /**
+     * Apply a batch of events, batches already applied are ignored so that a transport can send them again
+     * @param batch the batch sent by the primary
+     * @return the sequence of the last applied event, to acknowledge
+     * @throws IllegalStateException if events are missing before the batch, an event does not match the occupancy
+     * of the backup or the policy of a pricing version is unknown, or the backup is promoted
+     */
+    public synchronized long apply(ByteBuffer batch) {
+        if (promoted) {
+            throw new IllegalStateException("The backup is promoted!");
+        }
+        long first = batch.getLong();
+        int count = batch.getInt();
+        if (first > applied + 1) {
+            throw new IllegalStateException("Events " + (applied + 1) + " to " + (first - 1) + " are missing!");
+        }
+        batch.position(batch.position() + (int) Math.min(count, applied + 1 - first) * ReplicationBatch.EVENT);
+        for (long event = Math.max(first, applied + 1); event < first + count; event++) {
+            byte operation = batch.get();
+            int index = batch.getInt();
+            int firstIndex = batch.getInt();
+            long plateKey = batch.getLong();
+            long vehicleClassKey = batch.getLong();
+            long pricingVersion = batch.getLong();
+            LocalDateTime dateTime = ReplicationBatch.readDateTime(batch);
+            if (operation == ReplicationBatch.PRICING) {
+                parking.replicatePricingVersion(pricingVersion(pricingVersion));
+            } else if (operation == ReplicationBatch.ALLOCATED) {
+                // a vehicle taking several slots is allocated each of them, from its first slot
+                T vehicle = index == firstIndex ? codec.create(plateKey, vehicleClassKey) : vehicles.get(firstIndex);
+                if (vehicle == null) {
+                    throw new IllegalStateException("Event " + event + " allocates the slot at position " + index
+                            + " to a vehicle without a first slot!");
+                }
+                PricingVersion<T> version = pricingVersion(pricingVersion);
+                parking.allocate(index, vehicle, dateTime, version, index == firstIndex);
+                // the update of the version may be applied after the first stay priced with it
+                parking.replicatePricingVersion(version);
+                vehicles.put(firstIndex, vehicle);
+                firstSlots.put(index, firstIndex);
+            } else {
+                Integer firstSlot = firstSlots.remove(index);
+                if (firstSlot == null) {
+                    throw new IllegalStateException("Event " + event + " releases the slot at position " + index
+                            + " which is not allocated!");
+                }
+                parking.release(index, vehicles.get(firstSlot), dateTime, index == firstSlot);
+                if (!firstSlot.equals(firstSlots.get(index + 1))) {
+                    vehicles.remove(firstSlot);
+                }
+            }
+            applied = event;
+        }
+        return applied;
+    }
+
+    private PricingVersion<T> pricingVersion(long number) {
+        PricingVersion<T> version = versions.get(number);
+        if (version == null) {
+            PricingPolicy<T> policy = pricingPolicies.apply(number);
+            if (policy == null) {
+                throw new IllegalStateException("The policy of the pricing version " + number + " is unknown!");
+            }
+            version = new PricingVersion<>(number, policy);
+            versions.put(number, version);
+        }
+        return version;
+    }
+
+    /**
+     * @return the sequence of the last applied event
+     */
+    public synchronized long getApplied() {
+        return applied;
+    }
+
+    /**
+     * Stop applying the events of the primary, to use the parking in place of the primary
+     * @return the parking, with the occupancy of the primary up to the last applied event
+     */
+    public synchronized Parking<T> promote() {
+        promoted = true;
+        return parking;
+    }
+
+    /**
+     * @return the vehicles in the parking by the position of their first slot, in the order of the positions
+     */
+    public synchronized Map<Integer, T> getVehicles() {
+        return Collections.unmodifiableMap(new TreeMap<>(vehicles));
+    }
+
+}
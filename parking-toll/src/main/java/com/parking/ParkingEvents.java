@@ -0,0 +1,119 @@
+package com.parking;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events of the parking operations, to correlate the gate latencies with the GC and the lock
+ * contention in a recording: {@value #REGISTER} for the registrations, {@value #CHECK_OUT} for the check outs and
+ * {@value #PRICING} for the evaluations of the pricing policy
+ * Events are disabled by default, even in the recordings started with {@code -XX:StartFlightRecording}, and cost
+ * almost nothing when not enabled: the operations are not timed. Enable them in a .jfc settings file or with
+ * {@link ParkingEvents#enable(Recording, Duration)}, with a threshold to only record the slow operations
+ * The parking does not depend on {@code jdk.jfr}: without it at runtime, the events are never emitted and only this
+ * class is unusable
+ */
+public final class ParkingEvents {
+
+    public static final String REGISTER = "com.parking.Register";
+    public static final String CHECK_OUT = "com.parking.CheckOut";
+    public static final String PRICING = "com.parking.Pricing";
+
+    private ParkingEvents() {
+    }
+
+    /**
+     * Enable the parking events in the recording
+     * @param recording the recording
+     * @param threshold the minimum duration of a recorded operation, {@link Duration#ZERO} to record all of them
+     * @return the recording
+     */
+    public static Recording enable(Recording recording, Duration threshold) {
+        Objects.requireNonNull(recording, "recording cannot be null !");
+        Objects.requireNonNull(threshold, "threshold cannot be null !");
+        for (String event : new String[] { REGISTER, CHECK_OUT, PRICING }) {
+            recording.enable(event).withThreshold(threshold).withoutStackTrace();
+        }
+        return recording;
+    }
+
+    @Name(REGISTER)
+    @Label("Parking Register")
+    @Category("Parking")
+    @Description("Search of a free slot and allocation to the vehicle")
+    @Enabled(false)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static final class RegisterEvent extends Event {
+
+        @Label("Pools Searched")
+        @Description("Pools with a free slot whose allocation strategy was tested")
+        int poolsSearched;
+
+        @Label("Predicates Evaluated")
+        int predicatesEvaluated;
+
+        @Label("Slot Id")
+        @Description("Id of the allocated slot, 0 if there was no free slot for the vehicle")
+        long slotId;
+
+        @Label("Successful")
+        boolean successful;
+    }
+
+    @Name(CHECK_OUT)
+    @Label("Parking Check Out")
+    @Category("Parking")
+    @Description("Lookup of the vehicle, release of its slot and pricing")
+    @Enabled(false)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static final class CheckOutEvent extends Event {
+
+        @Label("Slot Id")
+        long slotId;
+
+        @Label("Lookup Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long lookupTime;
+
+        @Label("Pricing Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long pricingTime;
+    }
+
+    @Name(PRICING)
+    @Label("Parking Pricing")
+    @Category("Parking")
+    @Description("Evaluation of the pricing policy for a slot")
+    @Enabled(false)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static final class PricingEvent extends Event {
+
+        @Label("Policy")
+        Class<?> policy;
+
+        @Label("Policy Version")
+        long policyVersion;
+
+        @Label("Stay")
+        @Timespan(Timespan.MILLISECONDS)
+        long stay;
+
+        @Label("Price")
+        String price;
+    }
+
+}
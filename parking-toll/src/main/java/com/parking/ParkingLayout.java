@@ -0,0 +1,196 @@
+package com.parking;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable layout of a parking: the ids and allocation strategies of its slots, in their order
+ * Built once with {@link Builder#buildLayout()}, a layout is shared by any number of parkings created with
+ * {@link Parking#builder(ParkingLayout)}: each parking then only holds its occupancy state, so hundreds of small
+ * lots with the same layout cost little memory and are created quickly
+ * Slots are stored as ranges of consecutive ids, and pools of consecutive slots sharing the same allocation strategy,
+ * so the size of a layout only depends on its number of ranges, not on its number of slots
+ * @param <T> the vehicle class
+ */
+public final class ParkingLayout<T> {
+
+    private final int capacity;
+
+    /**
+     * Position of the first slot of each range of consecutive ids
+     */
+    private final int[] rangeStarts;
+
+    /**
+     * Id of the first slot of each range
+     */
+    private final long[] rangeFirstIds;
+
+    /**
+     * Position of the first slot of each pool, followed by the number of slots
+     */
+    private final int[] poolStarts;
+
+    private final Predicate<T>[] poolStrategies;
+
+    /**
+     * Zones of the pools
+     */
+    private final ZoneTree zones;
+
+    /**
+     * Ranges sorted by their first id, to find the position of a slot from its id
+     */
+    private final int[] rangesById;
+
+    ParkingLayout(int capacity, int[] rangeStarts, long[] rangeFirstIds, List<Integer> poolStarts,
+            List<Predicate<T>> poolStrategies, ZoneTree zones) {
+        this.capacity = capacity;
+        this.rangeStarts = rangeStarts;
+        this.rangeFirstIds = rangeFirstIds;
+        this.poolStarts = new int[poolStarts.size() + 1];
+        for (int pool = 0; pool < poolStarts.size(); pool++) {
+            this.poolStarts[pool] = poolStarts.get(pool);
+        }
+        this.poolStarts[poolStarts.size()] = capacity;
+        // generic arrays cannot be created, the array only holds the strategies of the list
+        @SuppressWarnings("unchecked")
+        Predicate<T>[] strategies = (Predicate<T>[]) poolStrategies.toArray(new Predicate<?>[0]);
+        this.poolStrategies = strategies;
+        this.zones = zones;
+        this.rangesById = IntStream.range(0, rangeStarts.length).boxed()
+                .sorted(Comparator.comparingLong(range -> rangeFirstIds[range]))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return number of slots of the layout
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of pools of consecutive slots sharing the same allocation strategy
+     */
+    public int getPoolCount() {
+        return poolStrategies.length;
+    }
+
+    /**
+     * @return the paths of the zones, parents before their children
+     */
+    public List<String> getZones() {
+        return zones.paths();
+    }
+
+    ZoneTree zones() {
+        return zones;
+    }
+
+    /**
+     * @param zone a zone of the layout
+     * @return number of slots of the zone
+     */
+    int zoneCapacity(int zone) {
+        return poolStarts[zones.endPool(zone)] - poolStarts[zones.firstPool(zone)];
+    }
+
+    /**
+     * @return number of ranges of consecutive slot ids
+     */
+    public int getRangeCount() {
+        return rangeStarts.length;
+    }
+
+    long idOf(int index) {
+        int range = floor(rangeStarts, rangeStarts.length, index);
+        return rangeFirstIds[range] + (index - rangeStarts[range]);
+    }
+
+    /**
+     * @param id id of a slot, slot ids should be unique in the layout
+     * @return the position of the slot, -1 if there is no slot with this id
+     */
+    int indexOf(long id) {
+        int low = 0;
+        int high = rangesById.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (rangeFirstIds[rangesById[middle]] <= id) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        int range = rangesById[low];
+        long offset = id - rangeFirstIds[range];
+        int rangeEnd = range + 1 < rangeStarts.length ? rangeStarts[range + 1] : capacity;
+        return offset >= 0 && offset < rangeEnd - rangeStarts[range] ? rangeStarts[range] + (int) offset : -1;
+    }
+
+    int poolStart(int pool) {
+        return poolStarts[pool];
+    }
+
+    int poolEnd(int pool) {
+        return poolStarts[pool + 1];
+    }
+
+    Predicate<T> poolStrategy(int pool) {
+        return poolStrategies[pool];
+    }
+
+    /**
+     * @param index position of a slot
+     * @return the pool of the slot
+     */
+    int poolOf(int index) {
+        return floor(poolStarts, poolStrategies.length, index);
+    }
+
+    /**
+     * @return the last position of the sorted starts under or at the index
+     */
+    private static int floor(int[] starts, int length, int index) {
+        int low = 0;
+        int high = length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param index position of a slot
+     * @return the allocation strategy of the slot
+     */
+    Predicate<T> strategyOf(int index) {
+        return poolStrategies[poolOf(index)];
+    }
+
+    /**
+     * @param index position of a slot
+     * @return snapshot of the free slot
+     */
+    Slot<T> freeSlot(int index) {
+        return new Slot<>(idOf(index), strategyOf(index));
+    }
+
+    /**
+     * @param index position of a slot
+     * @return snapshot of the slot occupied by the vehicle
+     */
+    Slot<T> slot(int index, T vehicle, LocalDateTime arrivalDateTime, LocalDateTime departureDateTime) {
+        return new Slot<>(idOf(index), strategyOf(index), vehicle, arrivalDateTime, departureDateTime);
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.parking;
+
+/**
+ * Listener of the slots allocations and releases of a {@link Parking}, added with {@link Builder#addListener}
+ * The slot operations are notified under the parking lock, in the order of the operations, so it should be fast and
+ * never block
+ * @param <T> the vehicle class
+ */
+public interface ParkingListener<T> {
+
+    /**
+     * A slot was allocated by {@link Parking#register(Object, java.time.LocalDateTime)}
+     * @param slot snapshot of the allocated slot
+     */
+    default void allocated(Slot<T> slot) {
+    }
+
+    /**
+     * A slot was allocated by {@link Parking#register(Object, java.time.LocalDateTime)}, calls
+     * {@link ParkingListener#allocated(Slot)} by default
+     * @param slot snapshot of the allocated slot
+     * @param version the pricing version of the stay
+     */
+    default void allocated(Slot<T> slot, PricingVersion<T> version) {
+        allocated(slot);
+    }
+
+    /**
+     * A slot was released by {@link Parking#checkOut(Object, java.time.LocalDateTime)}
+     * @param slot snapshot of the slot just before its release, with the departure date time
+     */
+    default void released(Slot<T> slot) {
+    }
+
+    /**
+     * The pricing policy was replaced by {@link Parking#updatePricingPolicy(PricingPolicy)}
+     * Unlike the slot operations, called outside the parking lock by the updating thread, one update at a time and
+     * in increasing version order: a version already replaced by a concurrent update may not be notified
+     * @param version the new version
+     */
+    default void pricingUpdated(PricingVersion<T> version) {
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.parking;
+
+/**
+ * Emission of the {@link ParkingEvents} by the parking, without linking the parking to {@code jdk.jfr}
+ * The Java Flight Recorder implementation is loaded by reflection when the runtime has the {@code jdk.jfr} module,
+ * otherwise this no-op implementation is used. An operation is only timed when its event is enabled: the begin
+ * methods return {@code null} otherwise
+ */
+class ParkingTelemetry {
+
+    static final ParkingTelemetry INSTANCE = load();
+
+    private static ParkingTelemetry load() {
+        try {
+            return (ParkingTelemetry) Class.forName("com.parking.JfrTelemetry").getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ParkingTelemetry();
+        }
+    }
+
+    /**
+     * @return the started registration event, {@code null} if it is not recorded
+     */
+    Object beginRegister() {
+        return null;
+    }
+
+    void commitRegister(Object event, int poolsSearched, int predicatesEvaluated, boolean successful, long slotId) {
+    }
+
+    /**
+     * @return the started check out event, {@code null} if it is not recorded
+     */
+    Object beginCheckOut() {
+        return null;
+    }
+
+    void commitCheckOut(Object event, long slotId, long lookupTime, long pricingTime) {
+    }
+
+    /**
+     * @return the started pricing event, {@code null} if it is not recorded
+     */
+    Object beginPricing() {
+        return null;
+    }
+
+    void commitPricing(Object event, PricingVersion<?> version, long stay, Object price) {
+    }
+
+}
@@ -0,0 +1,260 @@
+package com.parking;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Registry of the pass holders (monthly subscribers, staff, ...) identified by their {@link PlateKey}
+ * Passes are kept in a sorted {@code long[]} with a plan per pass, about 10 bytes per pass instead of the 60 or more
+ * bytes of a boxed {@code HashSet}. A bloom filter answers most lookups of vehicles without pass from one or two
+ * cache lines, before the binary search.
+ * Passes are replaced in bulk with {@link PassRegistry#reload(Loader)}: the new passes are built aside then swapped
+ * in atomically, lookups during a reload see either all the old passes or all the new ones and never wait
+ * @param <T> the vehicle class
+ */
+public final class PassRegistry<T> {
+
+    /**
+     * Highest plan number
+     */
+    public static final int MAX_PLAN = 127;
+
+    /**
+     * Plan returned for vehicles without pass
+     */
+    public static final int NO_PASS = -1;
+
+    private final ToLongFunction<? super T> plateKey;
+    private volatile Passes passes = new Passes(new long[0], new byte[0]);
+
+    /**
+     * @param plateKey gives the {@link PlateKey} of the plate of a vehicle
+     */
+    public PassRegistry(ToLongFunction<? super T> plateKey) {
+        this.plateKey = Objects.requireNonNull(plateKey, "plateKey cannot be null !");
+    }
+
+    /**
+     * @return a loader of passes for {@link PassRegistry#reload(Loader)}
+     */
+    public static Loader loader() {
+        return new Loader();
+    }
+
+    /**
+     * Replace all the passes by the passes of the loader
+     * @param loader the new passes
+     */
+    public void reload(Loader loader) {
+        this.passes = loader.build();
+    }
+
+    /**
+     * @return number of passes
+     */
+    public int size() {
+        return passes.plates.length;
+    }
+
+    /**
+     * @param plateKey the {@link PlateKey} of a plate
+     * @return the plan of the pass of the plate, {@link PassRegistry#NO_PASS} without pass
+     */
+    public int planOf(long plateKey) {
+        return passes.planOf(plateKey);
+    }
+
+    /**
+     * @param vehicle the vehicle
+     * @return the plan of the pass of the vehicle, {@link PassRegistry#NO_PASS} without pass
+     */
+    public int planOf(T vehicle) {
+        return passes.planOf(plateKey.applyAsLong(vehicle));
+    }
+
+    /**
+     * @param vehicle the vehicle
+     * @return {@code true} if the vehicle has a pass
+     */
+    public boolean hasPass(T vehicle) {
+        return planOf(vehicle) != NO_PASS;
+    }
+
+    /**
+     * Allocation strategy of slots reserved to pass holders
+     * @return predicate matching the vehicles with a pass
+     */
+    public Predicate<T> holders() {
+        return this::hasPass;
+    }
+
+    /**
+     * Allocation strategy of slots reserved to the holders of a plan
+     * @param plan the plan
+     * @return predicate matching the vehicles with a pass of the plan
+     */
+    public Predicate<T> holders(int plan) {
+        checkPlan(plan);
+        return vehicle -> planOf(vehicle) == plan;
+    }
+
+    /**
+     * Pricing of the pass holders, a free or discounted policy per plan
+     * The pass is checked at the check out: a pass loaded during the stay of the vehicle applies to the whole stay
+     * @param regular the policy of the vehicles without pass
+     * @param planPolicies gives the policy of a plan, or {@code null} for the regular policy, called once per plan
+     *        when creating the policy
+     * @return the pricing policy
+     */
+    public PricingPolicy<T> pricing(PricingPolicy<T> regular, IntFunction<PricingPolicy<T>> planPolicies) {
+        Objects.requireNonNull(regular, "regular cannot be null !");
+        // generic arrays cannot be created, the array only holds the policies given for T
+        @SuppressWarnings("unchecked")
+        PricingPolicy<T>[] policies = (PricingPolicy<T>[]) new PricingPolicy<?>[MAX_PLAN + 1];
+        for (int plan = 0; plan <= MAX_PLAN; plan++) {
+            policies[plan] = planPolicies.apply(plan);
+        }
+        return slot -> {
+            int plan = planOf(slot.getVehicle());
+            PricingPolicy<T> policy = plan == NO_PASS || policies[plan] == null ? regular : policies[plan];
+            return policy.computePrice(slot);
+        };
+    }
+
+    private static void checkPlan(int plan) {
+        if (plan < 0 || plan > MAX_PLAN) {
+            throw new IllegalArgumentException("plan should be between 0 and " + MAX_PLAN + "!");
+        }
+    }
+
+    /**
+     * Immutable passes, sorted by plate key
+     */
+    private static final class Passes {
+
+        /**
+         * Bits of the bloom filter per pass, about 1% of false positives
+         */
+        private static final int BITS_PER_PASS = 10;
+        private static final int HASHES = 7;
+
+        final long[] plates;
+        final byte[] plans;
+        final long[] bloom;
+        /**
+         * Number of bits of the bloom filter minus one, a power of 2 minus one
+         */
+        final long bloomMask;
+
+        Passes(long[] plates, byte[] plans) {
+            this.plates = plates;
+            this.plans = plans;
+            long bits = Long.highestOneBit(Math.max(64L, (long) plates.length * BITS_PER_PASS - 1) << 1);
+            this.bloom = new long[(int) (bits >>> 6)];
+            this.bloomMask = bits - 1;
+            for (long plate : plates) {
+                long hash = mix(plate);
+                long step = (hash >>> 32) | 1L;
+                for (int i = 0; i < HASHES; i++, hash += step) {
+                    long bit = hash & bloomMask;
+                    bloom[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+        }
+
+        int planOf(long plate) {
+            long hash = mix(plate);
+            long step = (hash >>> 32) | 1L;
+            for (int i = 0; i < HASHES; i++, hash += step) {
+                long bit = hash & bloomMask;
+                if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return NO_PASS;
+                }
+            }
+            int index = Arrays.binarySearch(plates, plate);
+            return index < 0 ? NO_PASS : plans[index];
+        }
+
+        private static long mix(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+            hash *= 0xBF58476D1CE4E5B9L;
+            return hash ^ (hash >>> 32);
+        }
+
+    }
+
+    /**
+     * Loader of the passes of a reload, not thread safe
+     * A plate loaded more than once keeps its lowest plan
+     */
+    public static final class Loader {
+
+        private final long[][] plates = new long[MAX_PLAN + 1][];
+        private final int[] counts = new int[MAX_PLAN + 1];
+
+        private Loader() {
+        }
+
+        /**
+         * @param plateKey the {@link PlateKey} of the plate of the pass holder
+         * @param plan the plan of the pass, from 0 to {@link PassRegistry#MAX_PLAN}
+         * @return this loader
+         */
+        public Loader add(long plateKey, int plan) {
+            checkPlan(plan);
+            long[] planPlates = plates[plan];
+            if (planPlates == null) {
+                planPlates = plates[plan] = new long[64];
+            } else if (counts[plan] == planPlates.length) {
+                planPlates = plates[plan] = Arrays.copyOf(planPlates, planPlates.length * 2);
+            }
+            planPlates[counts[plan]++] = plateKey;
+            return this;
+        }
+
+        /**
+         * Sort the plates of each plan, then merge the plans
+         */
+        Passes build() {
+            int total = 0;
+            int[] activePlans = new int[MAX_PLAN + 1];
+            int active = 0;
+            for (int plan = 0; plan <= MAX_PLAN; plan++) {
+                if (counts[plan] > 0) {
+                    Arrays.sort(plates[plan], 0, counts[plan]);
+                    total += counts[plan];
+                    activePlans[active++] = plan;
+                }
+            }
+            long[] mergedPlates = new long[total];
+            byte[] mergedPlans = new byte[total];
+            int[] positions = new int[MAX_PLAN + 1];
+            int size = 0;
+            while (true) {
+                int lowest = -1;
+                for (int i = 0; i < active; i++) {
+                    int plan = activePlans[i];
+                    if (positions[plan] < counts[plan] && (lowest < 0
+                            || plates[plan][positions[plan]] < plates[lowest][positions[lowest]])) {
+                        lowest = plan;
+                    }
+                }
+                if (lowest < 0) {
+                    break;
+                }
+                long plate = plates[lowest][positions[lowest]++];
+                if (size == 0 || mergedPlates[size - 1] != plate) {
+                    mergedPlates[size] = plate;
+                    mergedPlans[size++] = (byte) lowest;
+                }
+            }
+            return new Passes(Arrays.copyOf(mergedPlates, size), Arrays.copyOf(mergedPlans, size));
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.parking;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encoding of short alphanumeric codes like registration plates or vehicle classes into a {@code long}
+ * Letters and digits are packed in base 37, case insensitive; separators (spaces, dashes, ...) are ignored
+ * So "AB-123-CD" and "ab 123 cd" have the same key, and keys can be compared, hashed and stored without any String
+ * At most {@link PlateKey#MAX_LENGTH} letters and digits can be encoded
+ */
+public final class PlateKey {
+
+    /**
+     * Maximum number of letters and digits of an encoded code: 37^12 fits in a positive long
+     */
+    public static final int MAX_LENGTH = 12;
+
+    private static final int BASE = 37;
+
+    private PlateKey() {
+    }
+
+    /**
+     * @param code the code to encode
+     * @return the key of the code
+     * @throws IllegalArgumentException if the code has more than {@link PlateKey#MAX_LENGTH} letters and digits
+     */
+    public static long encode(CharSequence code) {
+        return encode(code, 0, code.length());
+    }
+
+    /**
+     * Encode a part of the code, like a parameter of a query string
+     * @param code the code
+     * @param from index of the first character
+     * @param to index after the last character
+     * @return the key of the code
+     * @throws IllegalArgumentException if the code has more than {@link PlateKey#MAX_LENGTH} letters and digits
+     */
+    public static long encode(CharSequence code, int from, int to) {
+        long key = 0L;
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            int value = valueOf(code.charAt(i));
+            if (value > 0) {
+                key = push(key, value, ++length);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Encode ASCII bytes of the buffer, without changing its position
+     * @param buffer the buffer
+     * @param from index of the first byte
+     * @param to index after the last byte
+     * @return the key of the code
+     * @throws IllegalArgumentException if the code has more than {@link PlateKey#MAX_LENGTH} letters and digits
+     */
+    public static long encode(ByteBuffer buffer, int from, int to) {
+        long key = 0L;
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            int value = valueOf((char) (buffer.get(i) & 0xff));
+            if (value > 0) {
+                key = push(key, value, ++length);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @param key the key of a code
+     * @return the code in upper case, without separators
+     */
+    public static String decode(long key) {
+        StringBuilder code = new StringBuilder(MAX_LENGTH);
+        for (; key > 0; key /= BASE) {
+            int value = (int) (key % BASE);
+            code.append(value <= 10 ? (char) ('0' + value - 1) : (char) ('A' + value - 11));
+        }
+        return code.reverse().toString();
+    }
+
+    private static long push(long key, int value, int length) {
+        if (length > MAX_LENGTH) {
+            throw new IllegalArgumentException("A code cannot have more than " + MAX_LENGTH + " letters and digits!");
+        }
+        return key * BASE + value;
+    }
+
+    /**
+     * @return 1 to 10 for digits, 11 to 36 for letters, 0 for any other character
+     */
+    private static int valueOf(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 11;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 11;
+        }
+        return 0;
+    }
+
+}
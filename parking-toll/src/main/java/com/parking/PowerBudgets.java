@@ -0,0 +1,121 @@
+package com.parking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Charging power of the slots and power budgets of the zones of the parking
+ * The power of a pool is given by its allocation strategy, a budget covers the pools of some allocation strategies or
+ * the whole site. The power used by each budget is maintained on every allocation and release, so checking that a
+ * pool fits in its budgets only depends on the number of budgets covering it. Only used under the parking lock
+ * @param <T> the vehicle class
+ */
+final class PowerBudgets<T> {
+
+    private final Map<Predicate<T>, Long> chargingPowers = new IdentityHashMap<>();
+    private final Map<String, Collection<Predicate<T>>> zones = new LinkedHashMap<>();
+    private final Map<String, Integer> budgetByZone = new LinkedHashMap<>();
+
+    private long[] caps = new long[0];
+    private long[] used;
+    private long[] poolPowers;
+    /**
+     * Budgets covering each pool
+     */
+    private int[][] poolBudgets;
+
+    void setChargingPower(Predicate<T> allocationStrategy, long kilowatts) {
+        Objects.requireNonNull(allocationStrategy, "allocationStrategy cannot be null !");
+        if (kilowatts < 0) {
+            throw new IllegalArgumentException("kilowatts should be positive!");
+        }
+        chargingPowers.put(allocationStrategy, kilowatts);
+    }
+
+    void addBudget(String zone, long kilowatts, Collection<Predicate<T>> allocationStrategies) {
+        Objects.requireNonNull(zone, "zone cannot be null !");
+        Objects.requireNonNull(allocationStrategies, "allocationStrategies cannot be null !");
+        if (kilowatts < 0) {
+            throw new IllegalArgumentException("kilowatts should be positive!");
+        }
+        if (budgetByZone.containsKey(zone)) {
+            throw new IllegalArgumentException("Zone " + zone + " already has a power budget!");
+        }
+        budgetByZone.put(zone, caps.length);
+        zones.put(zone, new ArrayList<>(allocationStrategies));
+        caps = Arrays.copyOf(caps, caps.length + 1);
+        caps[caps.length - 1] = kilowatts;
+    }
+
+    /**
+     * Resolve the powers and budgets of the pools of the layout
+     */
+    void init(ParkingLayout<T> layout) {
+        used = new long[caps.length];
+        poolPowers = new long[layout.getPoolCount()];
+        poolBudgets = new int[layout.getPoolCount()][];
+        List<Collection<Predicate<T>>> strategies = new ArrayList<>(zones.values());
+        for (int pool = 0; pool < poolPowers.length; pool++) {
+            Predicate<T> strategy = layout.poolStrategy(pool);
+            poolPowers[pool] = chargingPowers.getOrDefault(strategy, 0L);
+            List<Integer> budgets = new ArrayList<>();
+            for (int budget = 0; budget < caps.length; budget++) {
+                Collection<Predicate<T>> zone = strategies.get(budget);
+                if (zone.isEmpty() || zone.stream().anyMatch(zoneStrategy -> zoneStrategy == strategy)) {
+                    budgets.add(budget);
+                }
+            }
+            poolBudgets[pool] = poolPowers[pool] == 0L ? new int[0]
+                    : budgets.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * @return {@code true} if charging the slots of the pool keeps every budget covering it under its cap
+     */
+    boolean fits(int pool, int slots) {
+        long power = poolPowers[pool] * slots;
+        for (int budget : poolBudgets[pool]) {
+            if (used[budget] + power > caps[budget]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void allocated(int pool) {
+        for (int budget : poolBudgets[pool]) {
+            used[budget] += poolPowers[pool];
+        }
+    }
+
+    void released(int pool) {
+        for (int budget : poolBudgets[pool]) {
+            used[budget] -= poolPowers[pool];
+        }
+    }
+
+    long getCap(String zone) {
+        return caps[budget(zone)];
+    }
+
+    long getUsed(String zone) {
+        return used[budget(zone)];
+    }
+
+    private int budget(String zone) {
+        Integer budget = budgetByZone.get(zone);
+        if (budget == null) {
+            throw new IllegalArgumentException("Zone " + zone + " has no power budget!");
+        }
+        return budget;
+    }
+
+}
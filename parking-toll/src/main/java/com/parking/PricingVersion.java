@@ -0,0 +1,38 @@
+package com.parking;
+
+/**
+ * Version of the pricing policy of a {@link Parking}, replaced at runtime with
+ * {@link Parking#updatePricingPolicy(PricingPolicy)}
+ * The policy of the first version is the one of the builder
+ * @param <T> the vehicle class
+ */
+public final class PricingVersion<T> {
+
+    private final long version;
+    private final PricingPolicy<T> policy;
+
+    PricingVersion(long version, PricingPolicy<T> policy) {
+        this.version = version;
+        this.policy = policy;
+    }
+
+    /**
+     * @return the number of the version, from 1
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the pricing policy of the version
+     */
+    public PricingPolicy<T> getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public String toString() {
+        return "PricingVersion [version=" + version + "]";
+    }
+
+}
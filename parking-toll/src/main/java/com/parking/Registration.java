@@ -1,6 +1,9 @@
 package com.parking;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This class is used for the return of {@link Parking#register(Object)}
@@ -13,6 +16,16 @@ public final class Registration<T> {
 
     private Slot<T> slot;
 
+    /**
+     * All the slots of a vehicle taking several slots, {@code null} for a single slot
+     */
+    private List<Slot<T>> slots;
+
+    /**
+     * Version of the pricing policy of the stay, {@code null} if no slot was found
+     */
+    private PricingVersion<T> pricingVersion;
+
     Registration() {
     	this.creationDateTime = LocalDateTime.now();
     }
@@ -37,6 +50,42 @@ public final class Registration<T> {
         this.slot = slot;
     }
 
+    /**
+     * Add the next allocated slot of a vehicle taking several slots
+     * @param next the next slot
+     */
+    void addSlot(Slot<T> next) {
+        if (slots == null) {
+            slots = new ArrayList<>();
+            slots.add(slot);
+        }
+        slots.add(next);
+    }
+
+    /**
+     * Getter
+     * @return the consecutive slots allocated to the vehicle, from the first one, empty if no slot was found
+     */
+    public List<Slot<T>> getSlots() {
+        if (slots != null) {
+            return Collections.unmodifiableList(slots);
+        }
+        return slot == null ? Collections.emptyList() : Collections.singletonList(slot);
+    }
+
+    /**
+     * Getter
+     * @return the version of the pricing policy in force at the registration, the one pricing the stay if the parking
+     * prices with the policy in force at arrival, {@code null} if no slot was found
+     */
+    public PricingVersion<T> getPricingVersion() {
+        return pricingVersion;
+    }
+
+    void setPricingVersion(PricingVersion<T> pricingVersion) {
+        this.pricingVersion = pricingVersion;
+    }
+
     /**
      * @return {@code true} if a slot was found during registration
      */
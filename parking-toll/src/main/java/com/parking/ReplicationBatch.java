@@ -0,0 +1,38 @@
+package com.parking;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary format of the batches of events sent by a {@link ReplicationPrimary} to its backups
+ * A batch is the sequence of its first event and the number of events, followed by the events: operation, position
+ * of the slot, position of the first slot of the vehicle, plate and vehicle class keys of the vehicle, pricing
+ * version, date time of the operation
+ * A pricing update has no slot nor vehicle, an allocation carries the pricing version of the stay
+ * The first slot identifies the vehicle in the backup, the plates of several vehicles may be the same
+ */
+final class ReplicationBatch {
+
+    static final byte ALLOCATED = 1;
+    static final byte RELEASED = 2;
+    static final byte PRICING = 3;
+
+    static final int HEADER = Long.BYTES + Integer.BYTES;
+    static final int EVENT = 1 + 2 * Integer.BYTES + 4 * Long.BYTES + Integer.BYTES;
+
+    private ReplicationBatch() {
+    }
+
+    static void writeEvent(ByteBuffer buffer, byte operation, int index, int firstIndex, long plateKey,
+            long vehicleClassKey, long pricingVersion, LocalDateTime dateTime) {
+        buffer.put(operation).putInt(index).putInt(firstIndex).putLong(plateKey).putLong(vehicleClassKey).putLong(pricingVersion)
+                .putLong(dateTime.toEpochSecond(ZoneOffset.UTC)).putInt(dateTime.getNano());
+    }
+
+    static LocalDateTime readDateTime(ByteBuffer buffer) {
+        long epochSecond = buffer.getLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, buffer.getInt(), ZoneOffset.UTC);
+    }
+
+}
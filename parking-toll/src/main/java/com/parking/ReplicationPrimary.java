@@ -0,0 +1,360 @@
+package com.parking;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Streams the registrations and check outs of a primary parking to its backups, see {@link ParkingBackup}
+ * Add it to the primary with {@link Builder#addListener(ParkingListener)}, and add the backups before the first
+ * registration: every allocation and release is appended as an event to a buffer under the parking lock, and a
+ * sender thread sends the buffered events in batches to each {@link ReplicationTransport}, without waiting for the
+ * acknowledgements of the previous batches, up to a maximum number of events in flight
+ * By default the gates never wait for the backups, so the last operations before a crash of the primary may be lost.
+ * With {@link ReplicationPrimary#setSynchronous(Duration)} each operation waits for its acknowledgement by all the
+ * backups, a backup missing the timeout is considered failed and no longer awaited
+ * A backup lagging more than {@link ReplicationPrimary#setMaxLag(long)} events behind the primary is considered
+ * failed too, so the buffered events stay bounded, and the events are no longer buffered once all the backups failed
+ * The pricing versions are replicated with the operations, see {@link ParkingBackup} for their policies
+ * Slots are identified by their id, which should be unique in the layout
+ * @param <T> the vehicle class
+ */
+public final class ReplicationPrimary<T> implements ParkingListener<T> {
+
+    private final ParkingLayout<T> layout;
+    private final VehicleCodec<T> codec;
+    private final List<Backup> backups = new CopyOnWriteArrayList<>();
+
+    private int batchSize = 1024;
+    private long maxInFlight = 64 * 1024;
+    private long maxLag = 1024 * 1024;
+    private Duration synchronousTimeout;
+
+    /**
+     * Guards the buffered events and the sequences, notified on new events and acknowledgements
+     */
+    private final Object lock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(256 * ReplicationBatch.EVENT);
+    /**
+     * Sequence of the last buffered event
+     */
+    private long sequence;
+    /**
+     * Sequence of the last sent event
+     */
+    private long sent;
+    private boolean closed;
+    private Thread sender;
+
+    /**
+     * Last allocated or released slot and the first slot of its vehicle, guarded by the parking lock: the slots of a
+     * vehicle are notified one after the other in increasing positions
+     */
+    private byte lastOperation;
+    private int lastIndex = -1;
+    private T lastVehicle;
+    private int firstIndex;
+
+    /**
+     * @param layout the layout of the primary, shared with the backups
+     * @param codec the codec of the vehicles
+     */
+    public ReplicationPrimary(ParkingLayout<T> layout, VehicleCodec<T> codec) {
+        this.layout = Objects.requireNonNull(layout, "layout cannot be null !");
+        this.codec = Objects.requireNonNull(codec, "codec cannot be null !");
+    }
+
+    /**
+     * @param batchSize the maximum number of events of a batch, 1024 by default
+     * @return this primary
+     */
+    public ReplicationPrimary<T> setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize should be positive!");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * @param maxInFlight the maximum number of events sent and not acknowledged by a backup, 65536 by default
+     * @return this primary
+     */
+    public ReplicationPrimary<T> setMaxInFlight(long maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight should be positive!");
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * @param maxLag the maximum number of events a backup can lag behind the primary before it is considered failed,
+     * 1048576 by default, it should be larger than the maximum number of events in flight
+     * @return this primary
+     */
+    public ReplicationPrimary<T> setMaxLag(long maxLag) {
+        if (maxLag <= 0) {
+            throw new IllegalArgumentException("maxLag should be positive!");
+        }
+        this.maxLag = maxLag;
+        return this;
+    }
+
+    /**
+     * Make every registration and check out wait for its acknowledgement by all the backups, under the parking lock
+     * @param timeout the maximum wait of an operation, a backup missing it is considered failed
+     * @return this primary
+     */
+    public ReplicationPrimary<T> setSynchronous(Duration timeout) {
+        this.synchronousTimeout = Objects.requireNonNull(timeout, "timeout cannot be null !");
+        return this;
+    }
+
+    /**
+     * Add a backup, starting with the empty parking
+     * @param transport the link to the backup
+     * @return this primary
+     * @throws IllegalStateException if an operation was already replicated
+     */
+    public ReplicationPrimary<T> addBackup(ReplicationTransport transport) {
+        Objects.requireNonNull(transport, "transport cannot be null !");
+        synchronized (lock) {
+            if (sequence > 0 || closed) {
+                throw new IllegalStateException("Backups should be added before the first operation!");
+            }
+            Backup backup = new Backup(transport);
+            transport.setAcknowledgementListener(backup::acknowledged);
+            backups.add(backup);
+            if (sender == null) {
+                sender = new Thread(this::send, "parking-replication");
+                sender.setDaemon(true);
+                sender.start();
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public void allocated(Slot<T> slot, PricingVersion<T> version) {
+        T vehicle = slot.getVehicle();
+        int index = layout.indexOf(slot.getId());
+        append(ReplicationBatch.ALLOCATED, index, firstIndex(ReplicationBatch.ALLOCATED, index, vehicle),
+                codec.plateKeyOf(vehicle), codec.vehicleClassKeyOf(vehicle), version.getVersion(),
+                slot.getArrivalDateTime());
+    }
+
+    @Override
+    public void released(Slot<T> slot) {
+        T vehicle = slot.getVehicle();
+        int index = layout.indexOf(slot.getId());
+        append(ReplicationBatch.RELEASED, index, firstIndex(ReplicationBatch.RELEASED, index, vehicle),
+                codec.plateKeyOf(vehicle), codec.vehicleClassKeyOf(vehicle), 0L, slot.getDepartureDateTime());
+    }
+
+    /**
+     * The same vehicle cannot be registered or checked out twice in a row, so the next slot of the vehicle of the
+     * previous operation of the same kind belongs to the same registration
+     */
+    private int firstIndex(byte operation, int index, T vehicle) {
+        if (operation != lastOperation || index != lastIndex + 1 || vehicle != lastVehicle) {
+            firstIndex = index;
+        }
+        lastOperation = operation;
+        lastIndex = index;
+        lastVehicle = vehicle;
+        return firstIndex;
+    }
+
+    @Override
+    public void pricingUpdated(PricingVersion<T> version) {
+        append(ReplicationBatch.PRICING, -1, -1, 0L, 0L, version.getVersion(), LocalDateTime.now());
+    }
+
+    private void append(byte operation, int index, int firstIndex, long plateKey, long vehicleClassKey,
+            long pricingVersion, LocalDateTime dateTime) {
+        long event;
+        synchronized (lock) {
+            if (closed || getLiveBackups() == 0) {
+                return;
+            }
+            if (pending.remaining() < ReplicationBatch.EVENT) {
+                ByteBuffer larger = ByteBuffer.allocate(pending.capacity() * 2);
+                pending.flip();
+                pending = larger.put(pending);
+            }
+            ReplicationBatch.writeEvent(pending, operation, index, firstIndex, plateKey, vehicleClassKey,
+                    pricingVersion, dateTime);
+            event = ++sequence;
+            for (Backup backup : backups) {
+                if (event - backup.acknowledged > maxLag) {
+                    // holds back the sender or the buffer, it would never catch up
+                    backup.failed = true;
+                }
+            }
+            lock.notifyAll();
+        }
+        if (synchronousTimeout != null) {
+            awaitAcknowledged(event, synchronousTimeout, true);
+        }
+    }
+
+    /**
+     * Sender thread: sends the buffered events in batches until the primary is closed and all the events are sent
+     */
+    private void send() {
+        ByteBuffer batch = ByteBuffer.allocate(ReplicationBatch.HEADER + batchSize * ReplicationBatch.EVENT);
+        while (true) {
+            synchronized (lock) {
+                while (!closed && (sequence == sent || sent - acknowledged() >= maxInFlight)) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (sequence == sent) {
+                    return;
+                }
+                int count = (int) Math.min(batchSize, sequence - sent);
+                batch.clear();
+                batch.putLong(sent + 1).putInt(count);
+                pending.flip();
+                ByteBuffer events = pending.slice();
+                events.limit(count * ReplicationBatch.EVENT);
+                batch.put(events);
+                pending.position(pending.position() + count * ReplicationBatch.EVENT);
+                pending.compact();
+                batch.flip();
+            }
+            for (Backup backup : backups) {
+                if (!backup.failed) {
+                    try {
+                        backup.transport.send(batch.asReadOnlyBuffer());
+                    } catch (RuntimeException e) {
+                        backup.failed = true;
+                    }
+                }
+            }
+            synchronized (lock) {
+                sent += batch.getInt(Long.BYTES);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return the last sequence acknowledged by all the backups not failed, the last sent if they all failed
+     */
+    private long acknowledged() {
+        long acknowledged = sent;
+        for (Backup backup : backups) {
+            if (!backup.failed) {
+                acknowledged = Math.min(acknowledged, backup.acknowledged);
+            }
+        }
+        return acknowledged;
+    }
+
+    private boolean awaitAcknowledged(long event, Duration timeout, boolean failLateBackups) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (lock) {
+            while (acknowledged() < event || sent < event) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    if (failLateBackups) {
+                        backups.stream().filter(backup -> backup.acknowledged < event)
+                                .forEach(backup -> backup.failed = true);
+                        lock.notifyAll();
+                    }
+                    return false;
+                }
+                try {
+                    lock.wait(Math.max(1L, remaining / 1_000_000L));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Wait for all the operations done so far to be acknowledged by the backups, before a switch over for example
+     * @param timeout the maximum wait
+     * @return {@code true} if they are acknowledged
+     */
+    public boolean awaitAcknowledged(Duration timeout) {
+        long event;
+        synchronized (lock) {
+            event = sequence;
+        }
+        return awaitAcknowledged(event, timeout, false);
+    }
+
+    /**
+     * @return the number of replicated operations
+     */
+    public long getSequence() {
+        synchronized (lock) {
+            return sequence;
+        }
+    }
+
+    /**
+     * @return the number of operations acknowledged by all the backups not failed
+     */
+    public long getAcknowledged() {
+        synchronized (lock) {
+            return acknowledged();
+        }
+    }
+
+    /**
+     * @return the number of backups not failed
+     */
+    public int getLiveBackups() {
+        return (int) backups.stream().filter(backup -> !backup.failed).count();
+    }
+
+    /**
+     * Send the buffered events, stop the sender thread and close the transports
+     * @throws InterruptedException if interrupted while sending the buffered events
+     */
+    public void close() throws InterruptedException {
+        Thread thread;
+        synchronized (lock) {
+            closed = true;
+            thread = sender;
+            lock.notifyAll();
+        }
+        if (thread != null) {
+            thread.join();
+        }
+        backups.forEach(backup -> backup.transport.close());
+    }
+
+    private final class Backup {
+
+        private final ReplicationTransport transport;
+        private volatile long acknowledged;
+        private volatile boolean failed;
+
+        private Backup(ReplicationTransport transport) {
+            this.transport = transport;
+        }
+
+        private void acknowledged(long event) {
+            synchronized (lock) {
+                acknowledged = Math.max(acknowledged, event);
+                lock.notifyAll();
+            }
+        }
+
+    }
+
+}
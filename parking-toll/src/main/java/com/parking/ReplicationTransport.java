@@ -0,0 +1,31 @@
+package com.parking;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+
+/**
+ * Link from a {@link ReplicationPrimary} to one backup, see {@link LoopbackTransport} for a local backup
+ * A network transport sends the batches in order to the remote node, gives them to
+ * {@link ParkingBackup#apply(ByteBuffer)} and sends back the returned sequence as acknowledgement
+ */
+public interface ReplicationTransport {
+
+    /**
+     * Called once by the primary before the first batch
+     * @param acknowledgements to call with the sequence of the last event applied by the backup
+     */
+    void setAcknowledgementListener(LongConsumer acknowledgements);
+
+    /**
+     * Send a batch of events, without waiting for the backup to apply it, batches should be applied in their order
+     * @param batch the batch, only readable during the call
+     */
+    void send(ByteBuffer batch);
+
+    /**
+     * Release the link, called by {@link ReplicationPrimary#close()}
+     */
+    default void close() {
+    }
+
+}
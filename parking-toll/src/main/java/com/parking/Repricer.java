@@ -0,0 +1,150 @@
+package com.parking;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * What-if re-pricing of historical stays: what would the stays have earned under candidate pricing policies
+ * Stays are split in ranges evaluated in parallel on a {@link ForkJoinPool}, each range prices every stay once per
+ * policy and sums the prices per category
+ * Candidate policies should be thread safe, like the ones of {@link PricingPolicy}
+ */
+public final class Repricer {
+
+    /**
+     * Number of stays under which a range is priced without splitting
+     */
+    private static final int THRESHOLD = 2048;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Repricer running on the common pool
+     */
+    public Repricer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool the pool evaluating the stays
+     */
+    public Repricer(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool cannot be null !");
+    }
+
+    /**
+     * Price the stays with every candidate policy
+     * @param stays the historical stays
+     * @param policies the candidate policies
+     * @param category gives the category of a stay from its vehicle
+     * @param <T> the vehicle class
+     * @param <K> the category class
+     * @return the revenue of each policy per category
+     */
+    public <T, K> RepricingResult<K> reprice(StayBatch<T> stays, List<PricingPolicy<T>> policies,
+            Function<? super T, ? extends K> category) {
+        Objects.requireNonNull(stays, "stays cannot be null !");
+        Objects.requireNonNull(category, "category cannot be null !");
+        if (policies.isEmpty()) {
+            throw new IllegalArgumentException("At least one pricing policy is required!");
+        }
+        Partial<K> partial = pool.invoke(
+                new RangeTask<T, K>(stays, new ArrayList<>(policies), category, 0, stays.size()));
+        return new RepricingResult<>(partial.revenues, partial.stays);
+    }
+
+    /**
+     * Price the stays of bills with every candidate policy
+     * @param bills the bills of the historical stays
+     * @param policies the candidate policies
+     * @param category gives the category of a stay from its vehicle
+     * @param <T> the vehicle class
+     * @param <K> the category class
+     * @return the revenue of each policy per category
+     */
+    public <T, K> RepricingResult<K> reprice(Stream<Bill<T>> bills, List<PricingPolicy<T>> policies,
+            Function<? super T, ? extends K> category) {
+        StayBatch<T> stays = new StayBatch<>();
+        bills.forEachOrdered(stays::add);
+        return reprice(stays, policies, category);
+    }
+
+    /**
+     * Revenues of a range of stays
+     */
+    private static final class Partial<K> {
+
+        final List<Map<K, BigDecimal>> revenues;
+        final Map<K, Long> stays = new HashMap<>();
+
+        Partial(int policies) {
+            revenues = new ArrayList<>(policies);
+            for (int i = 0; i < policies; i++) {
+                revenues.add(new HashMap<>());
+            }
+        }
+
+        Partial<K> merge(Partial<K> other) {
+            for (int i = 0; i < revenues.size(); i++) {
+                Map<K, BigDecimal> revenue = revenues.get(i);
+                other.revenues.get(i).forEach((category, price) -> revenue.merge(category, price, BigDecimal::add));
+            }
+            other.stays.forEach((category, count) -> stays.merge(category, count, Long::sum));
+            return this;
+        }
+    }
+
+    private static final class RangeTask<T, K> extends RecursiveTask<Partial<K>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final StayBatch<T> stays;
+        private final List<PricingPolicy<T>> policies;
+        private final Function<? super T, ? extends K> category;
+        private final int from;
+        private final int to;
+
+        RangeTask(StayBatch<T> stays, List<PricingPolicy<T>> policies, Function<? super T, ? extends K> category,
+                int from, int to) {
+            this.stays = stays;
+            this.policies = policies;
+            this.category = category;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial<K> compute() {
+            if (to - from <= THRESHOLD) {
+                return price();
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask<T, K> right = new RangeTask<T, K>(stays, policies, category, middle, to);
+            right.fork();
+            Partial<K> left = new RangeTask<T, K>(stays, policies, category, from, middle).compute();
+            return left.merge(right.join());
+        }
+
+        private Partial<K> price() {
+            Partial<K> partial = new Partial<>(policies.size());
+            for (int i = from; i < to; i++) {
+                Slot<T> slot = stays.slot(i);
+                K key = category.apply(slot.getVehicle());
+                partial.stays.merge(key, 1L, Long::sum);
+                for (int p = 0; p < policies.size(); p++) {
+                    partial.revenues.get(p).merge(key, policies.get(p).computePrice(slot), BigDecimal::add);
+                }
+            }
+            return partial;
+        }
+    }
+
+}
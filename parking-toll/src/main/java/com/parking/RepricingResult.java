@@ -0,0 +1,62 @@
+package com.parking;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a {@link Repricer} run: the revenue of each candidate pricing policy, per category of stays
+ * Policies are identified by their position in the list given to the repricer
+ * @param <K> the category class
+ */
+public final class RepricingResult<K> {
+
+    private final List<Map<K, BigDecimal>> revenues;
+    private final Map<K, Long> stays;
+
+    RepricingResult(List<Map<K, BigDecimal>> revenues, Map<K, Long> stays) {
+        this.revenues = revenues;
+        this.stays = Collections.unmodifiableMap(stays);
+    }
+
+    /**
+     * @return number of candidate policies
+     */
+    public int getPolicyCount() {
+        return revenues.size();
+    }
+
+    /**
+     * @param policy position of the policy
+     * @return the revenue of the policy per category
+     */
+    public Map<K, BigDecimal> getRevenues(int policy) {
+        return Collections.unmodifiableMap(revenues.get(policy));
+    }
+
+    /**
+     * @param policy position of the policy
+     * @param category the category
+     * @return the revenue of the policy for the category, zero without any stay of the category
+     */
+    public BigDecimal getRevenue(int policy, K category) {
+        return revenues.get(policy).getOrDefault(category, BigDecimal.ZERO);
+    }
+
+    /**
+     * @param policy position of the policy
+     * @return the total revenue of the policy
+     */
+    public BigDecimal getRevenue(int policy) {
+        return revenues.get(policy).values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * @return number of stays per category, a vehicle taking several slots counts one stay per slot
+     */
+    public Map<K, Long> getStays() {
+        return stays;
+    }
+
+}
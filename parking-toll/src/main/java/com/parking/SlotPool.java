@@ -0,0 +1,233 @@
+package com.parking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Pool of consecutive slots of the {@link Parking} sharing the same allocation strategy
+ * A pool is created by {@link Builder#addSlots(Predicate, int)}, or by consecutive {@link Builder#addSlot(Predicate)}
+ * calls with the same allocation strategy instance
+ * The number of free slots of the pool is maintained on each allocation and release
+ * @param <T> the vehicle class
+ */
+public final class SlotPool<T> {
+
+    /**
+     * Position of the first slot of the pool in the parking
+     */
+    private final int start;
+
+    /**
+     * Position after the last slot of the pool in the parking
+     */
+    private final int end;
+
+    private final Predicate<T> allocationStrategy;
+
+    /**
+     * Number of free slots, only changed under the parking lock
+     */
+    private volatile int free;
+
+    /**
+     * Occupancy history, {@code null} if not recorded
+     */
+    private OccupancyHistory history;
+
+    /**
+     * Sketch of the stay durations and number of vehicles in the pool by arrival minute, {@code null} if not estimated
+     */
+    private StaySketch stays;
+    private NavigableMap<Long, Integer> arrivalMinutes;
+
+    SlotPool(int start, int end, Predicate<T> allocationStrategy) {
+        this.start = start;
+        this.end = end;
+        this.allocationStrategy = allocationStrategy;
+        this.free = end - start;
+    }
+
+    void recordHistory(Duration window) {
+        this.history = new OccupancyHistory(window);
+    }
+
+    void estimateStays() {
+        this.stays = new StaySketch();
+        this.arrivalMinutes = new TreeMap<>();
+    }
+
+    /**
+     * @return {@code true} if the slot at this position of the parking belongs to the pool
+     */
+    boolean contains(int index) {
+        return index >= start && index < end;
+    }
+
+    int getStart() {
+        return start;
+    }
+
+    int getEnd() {
+        return end;
+    }
+
+    /**
+     * A slot of the pool was allocated
+     * @param arrivalDateTime the arrival date time of the vehicle
+     * @param firstSlot if the slot is the first of the vehicle, a vehicle taking several slots is one stay
+     */
+    void allocated(LocalDateTime arrivalDateTime, boolean firstSlot) {
+        free--;
+        if (history != null) {
+            history.record(arrivalDateTime, 1);
+        }
+        if (stays != null && firstSlot) {
+            arrivalMinutes.merge(epochMinute(arrivalDateTime), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * A slot of the pool was released
+     * @param arrivalDateTime the arrival date time of the vehicle
+     * @param departureDateTime the departure date time of the vehicle
+     * @param firstSlot if the slot is the first of the vehicle, a vehicle taking several slots is one stay
+     */
+    void released(LocalDateTime arrivalDateTime, LocalDateTime departureDateTime, boolean firstSlot) {
+        free++;
+        if (history != null) {
+            history.record(departureDateTime, -1);
+        }
+        if (stays != null && firstSlot) {
+            arrivalMinutes.computeIfPresent(epochMinute(arrivalDateTime), (minute, vehicles) -> vehicles == 1 ? null
+                    : vehicles - 1);
+            stays.add(Duration.between(arrivalDateTime, departureDateTime));
+        }
+    }
+
+    private static long epochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /**
+     * Snapshot of the vehicles in the pool by arrival minute and of the stay sketch, taken under the parking lock
+     * @param dateTime the current date time
+     * @return the departures of the pool, to estimate outside the parking lock
+     */
+    Departures departures(LocalDateTime dateTime) {
+        long[] minutes = new long[arrivalMinutes.size()];
+        int[] vehicles = new int[minutes.length];
+        int next = 0;
+        for (Map.Entry<Long, Integer> arrivals : arrivalMinutes.entrySet()) {
+            minutes[next] = arrivals.getKey();
+            vehicles[next++] = arrivals.getValue();
+        }
+        return new Departures(stays.snapshot(), dateTime.toEpochSecond(ZoneOffset.UTC), minutes, vehicles);
+    }
+
+    /**
+     * Departures of the vehicles of a pool, estimated from a snapshot of the pool
+     */
+    static final class Departures {
+
+        private final StaySketch.Cdf stays;
+        private final long now;
+        private final long[] arrivalMinutes;
+        private final int[] vehicles;
+        /**
+         * Time spent in the pool and probability of staying at least that long by arrival minute, computed once
+         */
+        private double[] elapsed;
+        private double[] survivals;
+
+        private Departures(StaySketch.Cdf stays, long now, long[] arrivalMinutes, int[] vehicles) {
+            this.stays = stays;
+            this.now = now;
+            this.arrivalMinutes = arrivalMinutes;
+            this.vehicles = vehicles;
+        }
+
+        /**
+         * @return the longest past stay in seconds, 0 if there is none
+         */
+        double getLongestStay() {
+            return stays.getMax();
+        }
+
+        /**
+         * Logarithm of the probability that no vehicle of the pool leaves within the duration
+         * Vehicles staying longer than any past stay are not expected to leave
+         * @param seconds the duration in seconds
+         * @return a negative value, 0 if no vehicle is expected to leave
+         */
+        double logProbabilityNoDeparture(double seconds) {
+            if (elapsed == null) {
+                elapsed = new double[arrivalMinutes.length];
+                survivals = new double[arrivalMinutes.length];
+                for (int i = 0; i < arrivalMinutes.length; i++) {
+                    elapsed[i] = Math.max(0d, now - arrivalMinutes[i] * 60d);
+                    survivals[i] = 1d - stays.at(elapsed[i]);
+                }
+            }
+            double logProbability = 0d;
+            for (int i = 0; i < arrivalMinutes.length; i++) {
+                if (survivals[i] > 0d) {
+                    double later = 1d - stays.at(elapsed[i] + seconds);
+                    logProbability += vehicles[i] * (later > 0d ? Math.log(later / survivals[i])
+                            : Double.NEGATIVE_INFINITY);
+                }
+            }
+            return logProbability;
+        }
+
+    }
+
+    /**
+     * Getter
+     * @return the allocation strategy of the slots of the pool
+     */
+    public Predicate<T> getAllocationStrategy() {
+        return allocationStrategy;
+    }
+
+    /**
+     * @return total number of slots of the pool
+     */
+    public int getCapacity() {
+        return end - start;
+    }
+
+    /**
+     * @return number of free slots of the pool
+     */
+    public int getAvailableCapacity() {
+        return free;
+    }
+
+    /**
+     * @return the sketch of the stay durations of the pool
+     * @throws IllegalStateException if the stays are not estimated, see {@link Builder#estimateStays()}
+     */
+    public StaySketch getStays() {
+        if (stays == null) {
+            throw new IllegalStateException("The stays are not estimated!");
+        }
+        return stays;
+    }
+
+    /**
+     * @return the occupancy history of the pool
+     * @throws IllegalStateException if the occupancy is not recorded, see {@link Builder#recordOccupancy(Duration)}
+     */
+    public OccupancyHistory getOccupancyHistory() {
+        if (history == null) {
+            throw new IllegalStateException("The occupancy is not recorded!");
+        }
+        return history;
+    }
+
+}
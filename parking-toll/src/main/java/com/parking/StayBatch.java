@@ -0,0 +1,132 @@
+package com.parking;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Columnar batch of historical stays (slot, vehicle, arrival and departure date times) used by the {@link Repricer}
+ * Date times are kept as epoch seconds and nanos in primitive arrays
+ * @param <T> the vehicle class
+ */
+public final class StayBatch<T> {
+
+    /**
+     * Slot id and allocation strategy of the stays added without a slot
+     */
+    private static final Long NO_SLOT = 0L;
+    private static final Predicate<Object> ANY_VEHICLE = vehicle -> true;
+
+    private long[] slotIds;
+    private Object[] strategies;
+    private Object[] vehicles;
+    private long[] arrivalSeconds;
+    private int[] arrivalNanos;
+    private long[] departureSeconds;
+    private int[] departureNanos;
+    private int size;
+
+    /**
+     * @param initialCapacity the initial number of stays of the batch
+     */
+    public StayBatch(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        slotIds = new long[capacity];
+        strategies = new Object[capacity];
+        vehicles = new Object[capacity];
+        arrivalSeconds = new long[capacity];
+        arrivalNanos = new int[capacity];
+        departureSeconds = new long[capacity];
+        departureNanos = new int[capacity];
+    }
+
+    /**
+     * Batch with room for 1024 stays, grown as stays are added
+     */
+    public StayBatch() {
+        this(1024);
+    }
+
+    /**
+     * Add a stay to the batch
+     * @param vehicle the vehicle, used by the pricing policies and for the category of the stay
+     * @param arrivalDateTime the arrival date time
+     * @param departureDateTime the departure date time
+     * @return the batch
+     * @throws IllegalArgumentException if departureDateTime is before arrivalDateTime
+     */
+    @SuppressWarnings("unchecked")
+    public StayBatch<T> add(T vehicle, LocalDateTime arrivalDateTime, LocalDateTime departureDateTime) {
+        return add(NO_SLOT, (Predicate<T>) (Predicate<?>) ANY_VEHICLE, vehicle, arrivalDateTime, departureDateTime);
+    }
+
+    private StayBatch<T> add(Long slotId, Predicate<T> strategy, T vehicle, LocalDateTime arrivalDateTime,
+            LocalDateTime departureDateTime) {
+        Objects.requireNonNull(arrivalDateTime, "arrivalDateTime cannot be null !");
+        Objects.requireNonNull(departureDateTime, "departureDateTime cannot be null !");
+        if (departureDateTime.isBefore(arrivalDateTime)) {
+            throw new IllegalArgumentException("departureDateTime should be after arrivalDateTime!");
+        }
+        if (size == vehicles.length) {
+            int capacity = size * 2;
+            slotIds = Arrays.copyOf(slotIds, capacity);
+            strategies = Arrays.copyOf(strategies, capacity);
+            vehicles = Arrays.copyOf(vehicles, capacity);
+            arrivalSeconds = Arrays.copyOf(arrivalSeconds, capacity);
+            arrivalNanos = Arrays.copyOf(arrivalNanos, capacity);
+            departureSeconds = Arrays.copyOf(departureSeconds, capacity);
+            departureNanos = Arrays.copyOf(departureNanos, capacity);
+        }
+        slotIds[size] = slotId;
+        strategies[size] = strategy;
+        vehicles[size] = vehicle;
+        arrivalSeconds[size] = arrivalDateTime.toEpochSecond(ZoneOffset.UTC);
+        arrivalNanos[size] = arrivalDateTime.getNano();
+        departureSeconds[size] = departureDateTime.toEpochSecond(ZoneOffset.UTC);
+        departureNanos[size] = departureDateTime.getNano();
+        size++;
+        return this;
+    }
+
+    /**
+     * Add the stays of a bill, one per slot of the bill like the {@link Parking} prices them
+     * @param bill a bill of a {@link Parking}
+     * @return the batch
+     */
+    public StayBatch<T> add(Bill<T> bill) {
+        for (Slot<T> slot : bill.getSlots()) {
+            add(slot.getId(), slot.getAllocationStrategy(), slot.getVehicle(), slot.getArrivalDateTime(),
+                    slot.getDepartureDateTime());
+        }
+        return this;
+    }
+
+    /**
+     * @return number of stays in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    T vehicle(int index) {
+        return (T) vehicles[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Predicate<T> strategy(int index) {
+        return (Predicate<T>) strategies[index];
+    }
+
+    /**
+     * @return the stay as a {@link Slot} snapshot, ready for {@link PricingPolicy#computePrice(Slot)}
+     */
+    Slot<T> slot(int index) {
+        return new Slot<>(slotIds[index], strategy(index), vehicle(index),
+                LocalDateTime.ofEpochSecond(arrivalSeconds[index], arrivalNanos[index], ZoneOffset.UTC),
+                LocalDateTime.ofEpochSecond(departureSeconds[index], departureNanos[index], ZoneOffset.UTC));
+    }
+
+}
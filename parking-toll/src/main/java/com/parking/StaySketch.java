@@ -0,0 +1,297 @@
+package com.parking;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Streaming sketch of the stay durations of a {@link SlotPool}, in the manner of a merging t-digest: the durations are
+ * buffered, then merged into at most about twice the compression centroids, smaller at the extreme quantiles
+ * The memory used is fixed whatever the number of stays, and quantiles are accurate to a fraction of a percent,
+ * even more in the tails. Updated on every check out when {@link Builder#estimateStays()} is set
+ */
+public final class StaySketch {
+
+    private static final double DEFAULT_COMPRESSION = 100d;
+
+    private final double compression;
+
+    /**
+     * Centroids sorted by mean, in seconds
+     */
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+
+    private final double[] buffer;
+    private int buffered;
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param compression number of centroids, the higher the more accurate
+     */
+    public StaySketch(double compression) {
+        if (compression < 10d) {
+            throw new IllegalArgumentException("compression should be at least 10!");
+        }
+        this.compression = compression;
+        int capacity = (int) Math.ceil(2 * compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.buffer = new double[5 * capacity];
+    }
+
+    public StaySketch() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param stay a stay duration
+     */
+    public synchronized void add(Duration stay) {
+        double seconds = stay.toMillis() / 1000d;
+        if (seconds < 0d) {
+            throw new IllegalArgumentException("stay should be positive!");
+        }
+        buffer[buffered++] = seconds;
+        count++;
+        min = Math.min(min, seconds);
+        max = Math.max(max, seconds);
+        if (buffered == buffer.length) {
+            merge();
+        }
+    }
+
+    /**
+     * @return number of stays added
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @param quantile the quantile, between 0 and 1
+     * @return the stay duration at the quantile, {@code null} if there is no stay
+     */
+    public synchronized Duration quantile(double quantile) {
+        if (quantile < 0d || quantile > 1d) {
+            throw new IllegalArgumentException("quantile should be between 0 and 1!");
+        }
+        if (count == 0) {
+            return null;
+        }
+        merge();
+        return seconds(quantileSeconds(quantile));
+    }
+
+    /**
+     * @param stay a stay duration
+     * @return the estimated fraction of the stays shorter or equal to it, {@code NaN} if there is no stay
+     */
+    public synchronized double cdf(Duration stay) {
+        merge();
+        return cdf(stay.toMillis() / 1000d);
+    }
+
+    /**
+     * @return the longest stay, {@code null} if there is no stay
+     */
+    public synchronized Duration getMax() {
+        return count == 0 ? null : seconds(max);
+    }
+
+    /**
+     * @return the distribution of the stays, to evaluate without the lock of the sketch
+     */
+    synchronized Cdf snapshot() {
+        merge();
+        if (count == 0) {
+            return new Cdf(new double[0], new double[0]);
+        }
+        double[] seconds = new double[centroids + 2];
+        double[] fractions = new double[centroids + 2];
+        seconds[0] = min;
+        double cumulative = 0d;
+        for (int i = 0; i < centroids; i++) {
+            seconds[i + 1] = means[i];
+            fractions[i + 1] = (cumulative + weights[i] / 2) / count;
+            cumulative += weights[i];
+        }
+        seconds[centroids + 1] = max;
+        fractions[centroids + 1] = 1d;
+        return new Cdf(seconds, fractions);
+    }
+
+    /**
+     * Snapshot of the distribution of the stays: linear between the minimum, the centroids and the maximum, like
+     * {@link StaySketch#cdf(Duration)}, and evaluated with a binary search
+     */
+    static final class Cdf {
+
+        /**
+         * Stays in seconds, in increasing order, and the fraction of the stays shorter or equal to them
+         */
+        private final double[] seconds;
+        private final double[] fractions;
+
+        private Cdf(double[] seconds, double[] fractions) {
+            this.seconds = seconds;
+            this.fractions = fractions;
+        }
+
+        /**
+         * @param stay a stay in seconds
+         * @return the estimated fraction of the stays shorter or equal to it, {@code NaN} if there is no stay
+         */
+        double at(double stay) {
+            int last = seconds.length - 1;
+            if (last < 0) {
+                return Double.NaN;
+            }
+            if (stay < seconds[0]) {
+                return 0d;
+            }
+            if (stay >= seconds[last]) {
+                return 1d;
+            }
+            // first point after the stay
+            int low = 1;
+            int high = last;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (seconds[middle] > stay) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return interpolate(stay, seconds[low - 1], seconds[low], fractions[low - 1], fractions[low]);
+        }
+
+        /**
+         * @return the longest stay in seconds, 0 if there is no stay
+         */
+        double getMax() {
+            return seconds.length == 0 ? 0d : seconds[seconds.length - 1];
+        }
+
+    }
+
+    private static Duration seconds(double seconds) {
+        return Duration.ofMillis(Math.round(seconds * 1000d));
+    }
+
+    /**
+     * @param seconds a stay in seconds, the sketch being merged
+     * @return the estimated fraction of the stays shorter or equal to it
+     */
+    double cdf(double seconds) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (seconds < min) {
+            return 0d;
+        }
+        if (seconds >= max) {
+            return 1d;
+        }
+        double cumulative = 0d;
+        double previousMean = min;
+        double previousPosition = 0d;
+        for (int i = 0; i < centroids; i++) {
+            double position = cumulative + weights[i] / 2;
+            if (seconds < means[i]) {
+                return interpolate(seconds, previousMean, means[i], previousPosition, position) / count;
+            }
+            cumulative += weights[i];
+            previousMean = means[i];
+            previousPosition = position;
+        }
+        return interpolate(seconds, previousMean, max, previousPosition, count) / count;
+    }
+
+    private double quantileSeconds(double quantile) {
+        double target = quantile * count;
+        double cumulative = 0d;
+        double previousMean = min;
+        double previousPosition = 0d;
+        for (int i = 0; i < centroids; i++) {
+            double position = cumulative + weights[i] / 2;
+            if (target < position) {
+                return interpolate(target, previousPosition, position, previousMean, means[i]);
+            }
+            cumulative += weights[i];
+            previousMean = means[i];
+            previousPosition = position;
+        }
+        return interpolate(target, previousPosition, count, previousMean, max);
+    }
+
+    private static double interpolate(double x, double x0, double x1, double y0, double y1) {
+        return x1 <= x0 ? y1 : y0 + (y1 - y0) * (x - x0) / (x1 - x0);
+    }
+
+    /**
+     * Merge the buffered stays into the centroids
+     */
+    void merge() {
+        if (buffered == 0) {
+            return;
+        }
+        Arrays.sort(buffer, 0, buffered);
+        int total = centroids + buffered;
+        double[] sortedMeans = new double[total];
+        double[] sortedWeights = new double[total];
+        int fromCentroids = 0;
+        int fromBuffer = 0;
+        for (int i = 0; i < total; i++) {
+            if (fromBuffer == buffered || (fromCentroids < centroids && means[fromCentroids] <= buffer[fromBuffer])) {
+                sortedMeans[i] = means[fromCentroids];
+                sortedWeights[i] = weights[fromCentroids++];
+            } else {
+                sortedMeans[i] = buffer[fromBuffer++];
+                sortedWeights[i] = 1d;
+            }
+        }
+        buffered = 0;
+
+        centroids = 0;
+        double merged = 0d;
+        double limit = count * quantileLimit(0d);
+        double mean = sortedMeans[0];
+        double weight = sortedWeights[0];
+        for (int i = 1; i < total; i++) {
+            if (merged + weight + sortedWeights[i] <= limit) {
+                weight += sortedWeights[i];
+                mean += (sortedMeans[i] - mean) * sortedWeights[i] / weight;
+            } else {
+                merged += weight;
+                emit(mean, weight);
+                limit = count * quantileLimit(merged / count);
+                mean = sortedMeans[i];
+                weight = sortedWeights[i];
+            }
+        }
+        emit(mean, weight);
+    }
+
+    private void emit(double mean, double weight) {
+        if (centroids == means.length) {
+            means = Arrays.copyOf(means, centroids * 2);
+            weights = Arrays.copyOf(weights, centroids * 2);
+        }
+        means[centroids] = mean;
+        weights[centroids++] = weight;
+    }
+
+    /**
+     * @return the highest quantile of a centroid starting at the quantile, with the arcsine scale function
+     */
+    private double quantileLimit(double quantile) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * quantile - 1) + 1;
+        return k >= compression / 4 ? 1d : (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+}
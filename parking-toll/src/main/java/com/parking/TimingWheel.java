@@ -0,0 +1,216 @@
+package com.parking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: timers with a deadline, fired when the wheel is advanced past their deadline
+ * Scheduling and cancelling a timer cost O(1), advancing costs O(1) per elapsed tick plus the fired timers,
+ * there is never a scan of all the pending timers
+ * Each of the {@value #LEVELS} levels has {@value #WHEEL_SIZE} buckets, a bucket of a level covers a whole turn of the
+ * level below; timers are cascaded down when their bucket comes up. Deadlines are rounded up to the tick.
+ * Time is the one of the {@link LocalDateTime}s given to the wheel, so it can run on a virtual timeline.
+ * Not thread safe.
+ * @param <E> the payload class of the timers
+ */
+public final class TimingWheel<E> {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 6;
+
+    /**
+     * Longest delay handled by the wheel, later deadlines are cascaded again until they are in range
+     */
+    private static final long MAX_DELAY = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    /**
+     * A scheduled timer
+     * @param <E> the payload class
+     */
+    public static final class Timer<E> {
+
+        private final E payload;
+        private long deadlineTick;
+        private Timer<E> previous;
+        private Timer<E> next;
+        private TimingWheel<E> wheel;
+
+        private Timer(E payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public E getPayload() {
+            return payload;
+        }
+
+        /**
+         * @return {@code true} if the timer is still pending
+         */
+        public boolean isPending() {
+            return wheel != null;
+        }
+
+        /**
+         * Cancel the timer
+         * @return {@code true} if the timer was pending
+         */
+        public boolean cancel() {
+            if (wheel == null) {
+                return false;
+            }
+            wheel.unlink(this);
+            return true;
+        }
+    }
+
+    private final long tickNanos;
+
+    /**
+     * Sentinel heads of the circular bucket lists
+     */
+    private final Timer<E>[][] buckets;
+
+    /**
+     * Next tick to process
+     */
+    private long currentTick;
+
+    private int size;
+
+    /**
+     * @param tick the resolution of the wheel
+     * @param start the date time of the first tick
+     */
+    public TimingWheel(Duration tick, LocalDateTime start) {
+        this.tickNanos = tick.toNanos();
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("The tick should be positive!");
+        }
+        // generic arrays cannot be created, the buckets only hold timers of E
+        @SuppressWarnings("unchecked")
+        Timer<E>[][] buckets = (Timer<E>[][]) new Timer<?>[LEVELS][WHEEL_SIZE];
+        this.buckets = buckets;
+        for (Timer<E>[] level : buckets) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                Timer<E> head = new Timer<>(null, 0L);
+                head.previous = head;
+                head.next = head;
+                level[i] = head;
+            }
+        }
+        this.currentTick = tickOf(start);
+    }
+
+    /**
+     * @return the tick of the date time, rounded up
+     */
+    private long tickOf(LocalDateTime dateTime) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        long ticksPerSecond = 1_000_000_000L / tickNanos;
+        if (ticksPerSecond > 0 && 1_000_000_000L % tickNanos == 0) {
+            return seconds * ticksPerSecond + (dateTime.getNano() + tickNanos - 1) / tickNanos;
+        }
+        long nanos = Math.multiplyExact(seconds, 1_000_000_000L) + dateTime.getNano();
+        return Math.floorDiv(nanos + tickNanos - 1, tickNanos);
+    }
+
+    /**
+     * Schedule a timer, a deadline already passed fires at the next advance
+     * @param deadline the deadline of the timer
+     * @param payload the payload given back when the timer fires
+     * @return the timer, to cancel it
+     */
+    public Timer<E> schedule(LocalDateTime deadline, E payload) {
+        Objects.requireNonNull(deadline, "deadline cannot be null !");
+        Timer<E> timer = new Timer<>(payload, tickOf(deadline));
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * @return number of pending timers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Advance the wheel up to the date time, firing the timers with a deadline before or at it in deadline order
+     * (at the tick resolution)
+     * @param now the date time
+     * @param expired receives the payload of each fired timer
+     */
+    public void advanceTo(LocalDateTime now, Consumer<? super E> expired) {
+        long target = tickOf(now);
+        while (currentTick <= target) {
+            if (size == 0) {
+                currentTick = target + 1;
+                return;
+            }
+            int index = (int) (currentTick & WHEEL_MASK);
+            if (index == 0) {
+                cascade();
+            }
+            Timer<E> head = buckets[0][index];
+            while (head.next != head) {
+                Timer<E> timer = head.next;
+                unlink(timer);
+                expired.accept(timer.payload);
+            }
+            currentTick++;
+        }
+    }
+
+    /**
+     * Move the timers of the bucket coming up at each upper level to the levels below
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int index = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            Timer<E> head = buckets[level][index];
+            Timer<E> timer = head.next;
+            head.next = head;
+            head.previous = head;
+            while (timer != head) {
+                Timer<E> next = timer.next;
+                insert(timer);
+                timer = next;
+            }
+            if (index != 0) {
+                return;
+            }
+        }
+    }
+
+    private void insert(Timer<E> timer) {
+        long delay = timer.deadlineTick - currentTick;
+        long tick = delay < 0 ? currentTick : currentTick + Math.min(delay, MAX_DELAY);
+        int level = 0;
+        while (level < LEVELS - 1 && tick - currentTick >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        Timer<E> head = buckets[level][(int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+        timer.previous = head.previous;
+        timer.next = head;
+        head.previous.next = timer;
+        head.previous = timer;
+        timer.wheel = this;
+    }
+
+    private void unlink(Timer<E> timer) {
+        timer.previous.next = timer.next;
+        timer.next.previous = timer.previous;
+        timer.previous = null;
+        timer.next = null;
+        timer.wheel = null;
+        size--;
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.parking;
+
+/**
+ * Encodes a vehicle to its {@link PlateKey}s and creates it back, used by the replication to send the vehicles
+ * to the backups
+ * @param <T> the vehicle class
+ */
+public interface VehicleCodec<T> extends VehicleFactory<T> {
+
+    /**
+     * @param vehicle the vehicle
+     * @return the {@link PlateKey} of its registration plate
+     */
+    long plateKeyOf(T vehicle);
+
+    /**
+     * @param vehicle the vehicle
+     * @return the {@link PlateKey} of its vehicle class, given back to {@link VehicleFactory#create(long, long)}
+     */
+    long vehicleClassKeyOf(T vehicle);
+
+}
@@ -0,0 +1,18 @@
+package com.parking;
+
+/**
+ * Creates the vehicle entering the parking from its registration plate and vehicle class, used by the gate log
+ * replay and the gate servers
+ * @param <T> the vehicle class
+ */
+@FunctionalInterface
+public interface VehicleFactory<T> {
+
+    /**
+     * @param plateKey the {@link PlateKey} of the registration plate
+     * @param vehicleClassKey the {@link PlateKey} of the vehicle class, compare it with precomputed keys
+     * @return the vehicle
+     */
+    T create(long plateKey, long vehicleClassKey);
+
+}
@@ -0,0 +1,142 @@
+package com.parking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable hierarchy of the zones of a {@link ParkingLayout}, like site, level, zone and row
+ * A zone is a run of consecutive pools declared between {@link Builder#beginZone(String)} and
+ * {@link Builder#endZone()}, so its slots are a range of positions and its pools a range of pool indexes
+ * Zones are named by their path, the names of their ancestors and their own name separated by '/'
+ */
+final class ZoneTree {
+
+    private final String[] paths;
+    private final int[] parents;
+    private final int[] firstPools;
+    private final int[] endPools;
+
+    /**
+     * Child zones of each zone in their order, followed by the root zones
+     */
+    private final int[][] children;
+
+    /**
+     * Deepest zone of each pool, -1 for the pools outside any zone
+     */
+    private final int[] poolZones;
+
+    private final Map<String, Integer> byPath = new HashMap<>();
+
+    /**
+     * @param paths the paths of the zones, parents before their children
+     * @param parents the parent of each zone, -1 for a root zone
+     * @param firstPools the first pool of each zone
+     * @param endPools the pool after the last pool of each zone
+     * @param poolCount the number of pools of the layout
+     */
+    ZoneTree(List<String> paths, List<Integer> parents, List<Integer> firstPools, List<Integer> endPools,
+            int poolCount) {
+        int count = paths.size();
+        this.paths = paths.toArray(new String[0]);
+        this.parents = new int[count];
+        this.firstPools = new int[count];
+        this.endPools = new int[count];
+        this.poolZones = new int[poolCount];
+        List<List<Integer>> childLists = new ArrayList<>();
+        for (int zone = 0; zone <= count; zone++) {
+            childLists.add(new ArrayList<>());
+        }
+        Arrays.fill(poolZones, -1);
+        for (int zone = 0; zone < count; zone++) {
+            this.parents[zone] = parents.get(zone);
+            this.firstPools[zone] = firstPools.get(zone);
+            this.endPools[zone] = endPools.get(zone);
+            childLists.get(this.parents[zone] < 0 ? count : this.parents[zone]).add(zone);
+            for (int pool = this.firstPools[zone]; pool < this.endPools[zone]; pool++) {
+                poolZones[pool] = zone;
+            }
+            byPath.put(this.paths[zone], zone);
+        }
+        this.children = childLists.stream().map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    int size() {
+        return paths.length;
+    }
+
+    /**
+     * @param path the path of a zone
+     * @return the zone
+     * @throws IllegalArgumentException if there is no zone with this path
+     */
+    int zone(String path) {
+        Integer zone = byPath.get(path);
+        if (zone == null) {
+            throw new IllegalArgumentException("Zone " + path + " is not declared!");
+        }
+        return zone;
+    }
+
+    String path(int zone) {
+        return paths[zone];
+    }
+
+    int parent(int zone) {
+        return parents[zone];
+    }
+
+    int firstPool(int zone) {
+        return firstPools[zone];
+    }
+
+    int endPool(int zone) {
+        return endPools[zone];
+    }
+
+    /**
+     * @param pool a pool of the layout
+     * @return the deepest zone of the pool, -1 if the pool is outside any zone
+     */
+    int zoneOf(int pool) {
+        return poolZones[pool];
+    }
+
+    /**
+     * @param zone a zone
+     * @return the other children of the parent of the zone, the nearest in the declaration order first
+     */
+    int[] siblings(int zone) {
+        int[] family = children[parents[zone] < 0 ? paths.length : parents[zone]];
+        int position = 0;
+        while (family[position] != zone) {
+            position++;
+        }
+        int[] siblings = new int[family.length - 1];
+        int count = 0;
+        for (int distance = 1; count < siblings.length; distance++) {
+            if (position - distance >= 0) {
+                siblings[count++] = family[position - distance];
+            }
+            if (position + distance < family.length) {
+                siblings[count++] = family[position + distance];
+            }
+        }
+        return siblings;
+    }
+
+    /**
+     * @return the paths of the zones, parents before their children
+     */
+    List<String> paths() {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, paths);
+        return Collections.unmodifiableList(list);
+    }
+
+}
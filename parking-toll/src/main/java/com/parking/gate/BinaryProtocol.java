@@ -0,0 +1,101 @@
+package com.parking.gate;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Fixed size frames of the binary gate protocol, big endian
+ * <pre>
+ * request  (21 bytes): int requestId, byte operation, long plate key, long vehicle class key
+ * response (30 bytes): int requestId, byte status, long slot id, long date time, long unscaled price, byte scale
+ * </pre>
+ * Date times are the seconds of the local date time from the epoch, {@link Long#MIN_VALUE} when absent.
+ * Prices are rounded to {@link #PRICE_SCALE} decimals, the price is absent when its scale is -128. An availability response carries the free slots in the slot id and
+ * the capacity in the price.
+ * Requests can be pipelined: responses are sent in the order of the requests of the connection
+ */
+final class BinaryProtocol {
+
+    static final int REQUEST_SIZE = 21;
+    static final int RESPONSE_SIZE = 30;
+
+    static final byte REGISTER = 1;
+    static final byte CHECK_OUT = 2;
+    static final byte QUOTE = 3;
+    static final byte AVAILABILITY = 4;
+
+    /**
+     * Maximum number of decimals of a price, policies like {@code HOURLY} compute prices with many more
+     */
+    static final int PRICE_SCALE = 2;
+    /**
+     * Maximum number of digits of an encoded price, so that its unscaled value fits in a long
+     */
+    static final int PRICE_PRECISION = 18;
+
+    private static final int MIN_PRICE_SCALE = Byte.MIN_VALUE + 1;
+    private static final MathContext PRICE_CONTEXT = new MathContext(PRICE_PRECISION, RoundingMode.HALF_UP);
+
+    private static final long NO_DATE_TIME = Long.MIN_VALUE;
+    private static final byte NO_PRICE = Byte.MIN_VALUE;
+
+    private BinaryProtocol() {
+    }
+
+    static void writeRequest(ByteBuffer buffer, int requestId, byte operation, long plate, long vehicleClass) {
+        buffer.putInt(requestId).put(operation).putLong(plate).putLong(vehicleClass);
+    }
+
+    /**
+     * Encoding never fails, so a check out done by the parking always gets its response
+     * @param price the price, normalized with {@link #normalize(BigDecimal)}
+     */
+    static void writeResponse(ByteBuffer buffer, int requestId, GateResponse.Status status, long slotId,
+            LocalDateTime dateTime, BigDecimal price) {
+        BigDecimal normalized = price == null ? null : normalize(price);
+        long unscaled = normalized == null ? 0L : normalized.unscaledValue().longValue();
+        buffer.putInt(requestId).put((byte) status.ordinal()).putLong(slotId)
+                .putLong(dateTime == null ? NO_DATE_TIME : dateTime.toEpochSecond(ZoneOffset.UTC))
+                .putLong(unscaled).put(normalized == null ? NO_PRICE : (byte) normalized.scale());
+    }
+
+    /**
+     * Round the price to {@link #PRICE_SCALE} decimals, and to {@link #PRICE_PRECISION} digits for the prices too
+     * large for a long, prices beyond the range of the scale byte are saturated
+     * @return the price with a scale from 0 to {@link #PRICE_SCALE}, or negative for the large prices
+     */
+    static BigDecimal normalize(BigDecimal price) {
+        BigDecimal normalized;
+        if (price.scale() > PRICE_SCALE) {
+            normalized = price.setScale(PRICE_SCALE, RoundingMode.HALF_UP);
+        } else {
+            normalized = price.scale() < 0 ? price.setScale(0) : price;
+        }
+        if (normalized.precision() > PRICE_PRECISION) {
+            normalized = normalized.round(PRICE_CONTEXT);
+        }
+        if (normalized.scale() < MIN_PRICE_SCALE) {
+            normalized = new BigDecimal(BigInteger.TEN.pow(PRICE_PRECISION).subtract(BigInteger.ONE)
+                    .multiply(BigInteger.valueOf(normalized.signum())), MIN_PRICE_SCALE);
+        }
+        return normalized;
+    }
+
+    static GateResponse readResponse(ByteBuffer buffer) {
+        int requestId = buffer.getInt();
+        GateResponse.Status status = GateResponse.Status.values()[buffer.get()];
+        long slotId = buffer.getLong();
+        long epochSecond = buffer.getLong();
+        long unscaled = buffer.getLong();
+        byte scale = buffer.get();
+        return new GateResponse(requestId, status, slotId,
+                epochSecond == NO_DATE_TIME ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC),
+                scale == NO_PRICE ? null : new BigDecimal(BigInteger.valueOf(unscaled), scale));
+    }
+
+}
@@ -0,0 +1,238 @@
+package com.parking.gate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.time.Clock;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.parking.Bill;
+import com.parking.Parking;
+import com.parking.PlateKey;
+import com.parking.Registration;
+import com.parking.VehicleFactory;
+import com.parking.exception.ParkingException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP gate server on top of the JDK {@link HttpServer}, without any external dependency
+ * Vehicles are identified by their registration plate, parameters are given in the query string:
+ * <ul>
+ * <li>{@code POST /register?plate=AB-123-CD&class=GAS}: register the vehicle, created by the {@link VehicleFactory}</li>
+ * <li>{@code POST /checkout?plate=AB-123-CD}: check out the vehicle and return the bill</li>
+ * <li>{@code GET /quote?plate=AB-123-CD}: price of the vehicle if it left now</li>
+ * <li>{@code GET /availability?class=GAS}: free slots and capacity for the class, or the whole parking</li>
+ * </ul>
+ * Responses are flat JSON objects, written by a per thread reusable encoder.
+ * Parking operations never block on I/O, so the default executor is a work stealing pool; any executor can be
+ * given, like a virtual thread per task executor on recent JVMs
+ * @param <T> the vehicle class
+ */
+public final class GateHttpServer<T> implements AutoCloseable {
+
+    private static final String JSON = "application/json";
+
+    private final GateService<T> gates;
+    private final HttpServer server;
+
+    /**
+     * Executor created by the server, shut down on close
+     */
+    private final ExecutorService ownExecutor;
+
+    private final ThreadLocal<JsonResponse> responses = ThreadLocal.withInitial(JsonResponse::new);
+
+    /**
+     * Create the server, call {@link GateHttpServer#start()} to accept requests
+     * @param parking the parking
+     * @param vehicleFactory creates the registered vehicles, and probe vehicles with plate 0 for availability
+     * @param address the address to bind, port 0 for any free port
+     * @param executor the executor of the requests, {@code null} for a work stealing pool
+     * @param clock the clock giving the arrival and departure date times
+     * @throws IOException if the address cannot be bound
+     */
+    public GateHttpServer(Parking<T> parking, VehicleFactory<T> vehicleFactory, InetSocketAddress address,
+            Executor executor, Clock clock) throws IOException {
+        this.gates = new GateService<>(parking, vehicleFactory, clock);
+        this.server = HttpServer.create(Objects.requireNonNull(address, "address cannot be null !"), 0);
+        this.ownExecutor = executor == null ? Executors.newWorkStealingPool() : null;
+        this.server.setExecutor(executor == null ? ownExecutor : executor);
+        this.server.createContext("/register", exchange -> handle(exchange, "POST", this::register));
+        this.server.createContext("/checkout", exchange -> handle(exchange, "POST", this::checkOut));
+        this.server.createContext("/quote", exchange -> handle(exchange, "GET", this::quote));
+        this.server.createContext("/availability", exchange -> handle(exchange, "GET", this::availability));
+    }
+
+    /**
+     * Server on the port of the local host, with the default executor and the system clock
+     * @param parking the parking
+     * @param vehicleFactory creates the registered vehicles, and probe vehicles with plate 0 for availability
+     * @param port the port, 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public GateHttpServer(Parking<T> parking, VehicleFactory<T> vehicleFactory, int port) throws IOException {
+        this(parking, vehicleFactory, new InetSocketAddress("localhost", port), null, Clock.systemDefaultZone());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return the bound address of the server
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stop the server without waiting for the exchanges in progress
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        /**
+         * @return the HTTP status, the response is written in the JSON encoder
+         */
+        int handle(String query, JsonResponse response);
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (InputStream body = exchange.getRequestBody(); OutputStream output = exchange.getResponseBody()) {
+            while (body.read() >= 0) {
+                // requests have no body, drain it to keep the connection alive
+            }
+            JsonResponse response = responses.get().begin();
+            int status;
+            if (!method.equals(exchange.getRequestMethod())) {
+                status = 405;
+                response.field("error", "Method not allowed");
+            } else {
+                try {
+                    status = handler.handle(exchange.getRequestURI().getRawQuery(), response);
+                } catch (IllegalArgumentException e) {
+                    status = 400;
+                    response.begin().field("error", String.valueOf(e.getMessage()));
+                } catch (RuntimeException e) {
+                    // any other failure of the parking, the client gets an answer instead of a timeout
+                    status = 500;
+                    response.begin().field("error", "Internal error");
+                }
+            }
+            response.end();
+            exchange.getResponseHeaders().set("Content-Type", JSON);
+            exchange.sendResponseHeaders(status, response.length());
+            output.write(response.bytes(), 0, response.length());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int register(String query, JsonResponse response) {
+        long plate = requiredKey(query, "plate");
+        try {
+            Registration<T> registration = gates.register(plate, key(query, "class"));
+            response.field("registered", registration.isSuccessful());
+            if (registration.isSuccessful()) {
+                response.field("slot", registration.getSlot().getId())
+                        .field("arrival", registration.getSlot().getArrivalDateTime().toString());
+            }
+            return 200;
+        } catch (ParkingException e) {
+            response.field("error", e.getMessage());
+            return 409;
+        }
+    }
+
+    private int checkOut(String query, JsonResponse response) {
+        try {
+            Bill<T> bill = gates.checkOut(requiredKey(query, "plate"));
+            response.field("slot", bill.getSlot().getId())
+                    .field("arrival", bill.getSlot().getArrivalDateTime().toString())
+                    .field("departure", bill.getSlot().getDepartureDateTime().toString())
+                    .field("price", bill.getPrice().toPlainString());
+            return 200;
+        } catch (ParkingException e) {
+            response.field("error", e.getMessage());
+            return 404;
+        }
+    }
+
+    private int quote(String query, JsonResponse response) {
+        try {
+            BigDecimal price = gates.quote(requiredKey(query, "plate"));
+            response.field("price", price.toPlainString());
+            return 200;
+        } catch (ParkingException e) {
+            response.field("error", e.getMessage());
+            return 404;
+        }
+    }
+
+    private int availability(String query, JsonResponse response) {
+        long vehicleClass = key(query, "class");
+        response.field("available", gates.available(vehicleClass)).field("capacity", gates.capacity(vehicleClass));
+        return 200;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the parameter is missing
+     */
+    private static long requiredKey(String query, String name) {
+        long key = key(query, name);
+        if (key == 0L) {
+            throw new IllegalArgumentException("Parameter " + name + " is required");
+        }
+        return key;
+    }
+
+    /**
+     * @return the {@link PlateKey} of the parameter value read in place in the query, 0 if missing
+     */
+    static long key(String query, String name) {
+        if (query == null) {
+            return 0L;
+        }
+        int start = 0;
+        while (start < query.length()) {
+            int end = query.indexOf('&', start);
+            end = end < 0 ? query.length() : end;
+            if (query.startsWith(name, start) && start + name.length() < end
+                    && query.charAt(start + name.length()) == '=') {
+                int from = start + name.length() + 1;
+                int escape = query.indexOf('%', from);
+                if (escape >= 0 && escape < end) {
+                    // rare escaped separators, the digits of the escape must not be encoded
+                    return PlateKey.encode(decode(query.substring(from, end)));
+                }
+                return PlateKey.encode(query, from, end);
+            }
+            start = end + 1;
+        }
+        return 0L;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.parking.gate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Response of the binary gate protocol, received by the {@link GateTcpClient}
+ */
+public final class GateResponse {
+
+    public enum Status {
+        OK,
+        /**
+         * No free slot for the vehicle
+         */
+        NO_FREE_SLOT,
+        /**
+         * The registered vehicle is already in the parking
+         */
+        ALREADY_IN,
+        /**
+         * The vehicle is not in the parking
+         */
+        NOT_FOUND,
+        /**
+         * Unknown operation or invalid parameters
+         */
+        BAD_REQUEST,
+        /**
+         * The parking failed to handle the request, like a pricing policy throwing an exception
+         */
+        ERROR
+    }
+
+    private final int requestId;
+    private final Status status;
+    private final long slotId;
+    private final LocalDateTime dateTime;
+    private final BigDecimal price;
+
+    GateResponse(int requestId, Status status, long slotId, LocalDateTime dateTime, BigDecimal price) {
+        this.requestId = requestId;
+        this.status = status;
+        this.slotId = slotId;
+        this.dateTime = dateTime;
+        this.price = price;
+    }
+
+    /**
+     * @return the id of the request, returned by the client when sending it
+     */
+    public int getRequestId() {
+        return requestId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isOk() {
+        return status == Status.OK;
+    }
+
+    /**
+     * @return the slot of the registered or checked out vehicle, the free slots of an availability request
+     */
+    public long getSlotId() {
+        return slotId;
+    }
+
+    /**
+     * @return the arrival date time of a registration, the departure date time of a check out, null otherwise
+     */
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * @return the price of a check out or a quote, null otherwise
+     */
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    /**
+     * @return number of free slots of an availability request
+     */
+    public long getAvailable() {
+        return slotId;
+    }
+
+    /**
+     * @return number of slots of an availability request, carried by the price field
+     */
+    public long getCapacity() {
+        return price == null ? 0L : price.longValue();
+    }
+
+    @Override
+    public String toString() {
+        return "GateResponse [requestId=" + requestId + ", status=" + status + ", slotId=" + slotId + ", dateTime="
+                + dateTime + ", price=" + price + "]";
+    }
+
+}
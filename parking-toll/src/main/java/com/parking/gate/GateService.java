@@ -0,0 +1,100 @@
+package com.parking.gate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.parking.Bill;
+import com.parking.Parking;
+import com.parking.PlateKey;
+import com.parking.Registration;
+import com.parking.VehicleFactory;
+import com.parking.exception.ParkingException;
+
+/**
+ * Gate operations shared by the gate servers: vehicles are identified by their {@link PlateKey}
+ * The vehicles in the parking are kept by plate, since {@link Parking#checkOut(Object)} finds vehicles by reference
+ * @param <T> the vehicle class
+ */
+final class GateService<T> {
+
+    private final Parking<T> parking;
+    private final VehicleFactory<T> vehicleFactory;
+    private final Clock clock;
+    private final ConcurrentMap<Long, T> vehicles = new ConcurrentHashMap<>();
+
+    GateService(Parking<T> parking, VehicleFactory<T> vehicleFactory, Clock clock) {
+        this.parking = Objects.requireNonNull(parking, "parking cannot be null !");
+        this.vehicleFactory = Objects.requireNonNull(vehicleFactory, "vehicleFactory cannot be null !");
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null !");
+    }
+
+    /**
+     * @return the registration, not successful if there is no free slot for the vehicle
+     * @throws ParkingException if the vehicle is already in the parking
+     */
+    Registration<T> register(long plate, long vehicleClass) {
+        T vehicle = vehicleFactory.create(plate, vehicleClass);
+        if (vehicles.putIfAbsent(plate, vehicle) != null) {
+            throw new ParkingException("Vehicle " + PlateKey.decode(plate) + " is already in the parking !");
+        }
+        Registration<T> registration;
+        try {
+            registration = parking.register(vehicle, LocalDateTime.now(clock));
+        } catch (RuntimeException e) {
+            vehicles.remove(plate, vehicle);
+            throw e;
+        }
+        if (!registration.isSuccessful()) {
+            vehicles.remove(plate, vehicle);
+        }
+        return registration;
+    }
+
+    /**
+     * @throws ParkingException if the vehicle is not in the parking
+     */
+    Bill<T> checkOut(long plate) {
+        T vehicle = vehicles.get(plate);
+        if (vehicle == null) {
+            throw new ParkingException("Vehicle " + PlateKey.decode(plate) + " not found !");
+        }
+        // a failed check out leaves the vehicle reachable by its plate
+        Bill<T> bill = parking.checkOut(vehicle, LocalDateTime.now(clock));
+        vehicles.remove(plate, vehicle);
+        return bill;
+    }
+
+    /**
+     * @throws ParkingException if the vehicle is not in the parking
+     */
+    BigDecimal quote(long plate) {
+        T vehicle = vehicles.get(plate);
+        if (vehicle == null) {
+            throw new ParkingException("Vehicle " + PlateKey.decode(plate) + " not found !");
+        }
+        return parking.quote(vehicle, LocalDateTime.now(clock));
+    }
+
+    /**
+     * @param vehicleClass the class of vehicle, 0 for all the vehicles
+     * @return number of free slots for the class of vehicle
+     */
+    long available(long vehicleClass) {
+        return vehicleClass == 0L ? parking.getAvailableCapacity()
+                : parking.getAvailableCapacity(vehicleFactory.create(0L, vehicleClass));
+    }
+
+    /**
+     * @param vehicleClass the class of vehicle, 0 for all the vehicles
+     * @return number of slots for the class of vehicle
+     */
+    long capacity(long vehicleClass) {
+        return vehicleClass == 0L ? parking.getCapacity()
+                : parking.getCapacity(vehicleFactory.create(0L, vehicleClass));
+    }
+
+}
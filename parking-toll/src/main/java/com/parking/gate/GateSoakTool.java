@@ -0,0 +1,378 @@
+package com.parking.gate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import com.parking.Parking;
+import com.parking.Registration;
+
+/**
+ * Soak tool running entry and exit gate threads against a {@link Parking} for hours, to catch leaks and contention
+ * regressions before releases
+ * Entry gates register vehicles drawn from a weighted mix of arrivals, exit gates check out the oldest parked
+ * vehicles. Throughput, latencies, rejections and heap usage are sampled at every report interval.
+ * Once the duration is over the exit gates check out every vehicle registered by the tool, so the parking is left as
+ * it was found. A registration or a check out failing with an exception is counted as an error and the gate goes on
+ * @param <T> the vehicle class
+ */
+public final class GateSoakTool<T> {
+
+    private final Parking<T> parking;
+    private final List<Supplier<? extends T>> arrivals = new ArrayList<>();
+    private final List<Double> weights = new ArrayList<>();
+    private int entryGates = 1;
+    private int exitGates = 1;
+    private Duration duration = Duration.ofMinutes(1);
+    private Duration reportInterval = Duration.ofSeconds(10);
+    private double arrivalRate;
+    private Duration stay = Duration.ZERO;
+    private long seed = 1L;
+
+    public GateSoakTool(Parking<T> parking) {
+        this.parking = Objects.requireNonNull(parking, "parking cannot be null !");
+    }
+
+    /**
+     * Add a kind of arrivals to the mix, like the vehicles of a type
+     * @param weight the relative weight of the arrivals in the mix
+     * @param vehicles creates a new vehicle of this kind
+     * @return this tool
+     */
+    public GateSoakTool<T> addArrivals(double weight, Supplier<? extends T> vehicles) {
+        if (!(weight > 0d)) {
+            throw new IllegalArgumentException("weight should be positive!");
+        }
+        arrivals.add(Objects.requireNonNull(vehicles, "vehicles cannot be null !"));
+        weights.add(weight);
+        return this;
+    }
+
+    public GateSoakTool<T> setEntryGates(int entryGates) {
+        if (entryGates <= 0) {
+            throw new IllegalArgumentException("entryGates should be positive!");
+        }
+        this.entryGates = entryGates;
+        return this;
+    }
+
+    public GateSoakTool<T> setExitGates(int exitGates) {
+        if (exitGates <= 0) {
+            throw new IllegalArgumentException("exitGates should be positive!");
+        }
+        this.exitGates = exitGates;
+        return this;
+    }
+
+    public GateSoakTool<T> setDuration(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("duration should be positive!");
+        }
+        this.duration = duration;
+        return this;
+    }
+
+    public GateSoakTool<T> setReportInterval(Duration reportInterval) {
+        if (reportInterval.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("reportInterval should be positive!");
+        }
+        this.reportInterval = reportInterval;
+        return this;
+    }
+
+    /**
+     * @param arrivalRate arrivals per second of each entry gate, 0 for as fast as possible
+     * @return this tool
+     */
+    public GateSoakTool<T> setArrivalRate(double arrivalRate) {
+        if (arrivalRate < 0d) {
+            throw new IllegalArgumentException("arrivalRate cannot be negative!");
+        }
+        this.arrivalRate = arrivalRate;
+        return this;
+    }
+
+    /**
+     * @param stay minimum stay of the vehicles, the exit gates wait for it before checking out a vehicle
+     * @return this tool
+     */
+    public GateSoakTool<T> setStay(Duration stay) {
+        if (stay.isNegative()) {
+            throw new IllegalArgumentException("stay cannot be negative!");
+        }
+        this.stay = stay;
+        return this;
+    }
+
+    public GateSoakTool<T> setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Run the gates for the duration, then check out the remaining vehicles
+     * @return the report of the run
+     * @throws InterruptedException if interrupted while running
+     */
+    public SoakReport run() throws InterruptedException {
+        if (arrivals.isEmpty()) {
+            throw new IllegalStateException("At least one kind of arrivals is required!");
+        }
+        double[] cumulativeWeights = new double[weights.size()];
+        double total = 0d;
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            total += weights.get(i);
+            cumulativeWeights[i] = total;
+        }
+        BlockingQueue<Parked<T>> parked = new LinkedBlockingQueue<>();
+        Run run = new Run();
+        List<Gate> gates = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < entryGates; i++) {
+            gates.add(new EntryGate(run, parked, cumulativeWeights, random.split(), "soak-entry-" + i));
+        }
+        for (int i = 0; i < exitGates; i++) {
+            gates.add(new ExitGate(run, parked, "soak-exit-" + i));
+        }
+
+        List<SoakReport.Sample> samples = new ArrayList<>();
+        LatencyHistogram latencies = new LatencyHistogram();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long last = start;
+        gates.forEach(Thread::start);
+        try {
+            while (last < end) {
+                long next = Math.min(last + reportInterval.toNanos(), end);
+                TimeUnit.NANOSECONDS.sleep(next - System.nanoTime());
+                long now = System.nanoTime();
+                samples.add(sample(gates, latencies, Duration.ofNanos(now - start), Duration.ofNanos(now - last)));
+                last = now;
+            }
+        } finally {
+            run.arrivalsOpen = false;
+            // entry gates come first
+            for (Gate gate : gates.subList(0, entryGates)) {
+                gate.join();
+            }
+            run.exitsOpen = false;
+            for (Gate gate : gates) {
+                gate.join();
+            }
+        }
+        long drainStart = System.nanoTime();
+        SoakReport.Sample drain = sample(gates, latencies, Duration.ofNanos(drainStart - start),
+                Duration.ofNanos(Math.max(drainStart - last, 1L)));
+        return new SoakReport(samples, drain, latencies, Duration.ofNanos(last - start));
+    }
+
+    private static SoakReport.Sample sample(List<Gate> gates, LatencyHistogram total, Duration elapsed,
+            Duration interval) {
+        LatencyHistogram latencies = new LatencyHistogram();
+        long registrations = 0L;
+        long rejections = 0L;
+        long checkOuts = 0L;
+        long errors = 0L;
+        for (Gate gate : gates) {
+            synchronized (gate.lock) {
+                latencies.merge(gate.latencies);
+                registrations += gate.registrations;
+                rejections += gate.rejections;
+                checkOuts += gate.checkOuts;
+                errors += gate.errors;
+                gate.reset();
+            }
+        }
+        total.merge(latencies);
+        return new SoakReport.Sample(elapsed, interval, registrations, rejections, checkOuts, errors, latencies,
+                usedHeap(), usedHeapAfterGc());
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return heap used after the last collections, the best leak indicator, or -1 if not supported
+     */
+    private static long usedHeapAfterGc() {
+        long used = -1L;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if (usage != null) {
+                used = Math.max(used, 0L) + usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * State of the run shared by the gates
+     */
+    private static final class Run {
+        volatile boolean arrivalsOpen = true;
+        volatile boolean exitsOpen = true;
+    }
+
+    /**
+     * Vehicle registered by an entry gate
+     */
+    private static final class Parked<T> {
+        final T vehicle;
+        final long dueNanos;
+
+        Parked(T vehicle, long dueNanos) {
+            this.vehicle = vehicle;
+            this.dueNanos = dueNanos;
+        }
+    }
+
+    /**
+     * Gate thread, its counters are read and reset by the sampler under the gate lock
+     */
+    private abstract static class Gate extends Thread {
+
+        final Object lock = new Object();
+        LatencyHistogram latencies = new LatencyHistogram();
+        long registrations;
+        long rejections;
+        long checkOuts;
+        long errors;
+
+        Gate(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        void reset() {
+            latencies = new LatencyHistogram();
+            registrations = 0L;
+            rejections = 0L;
+            checkOuts = 0L;
+            errors = 0L;
+        }
+
+    }
+
+    private final class EntryGate extends Gate {
+
+        private final Run run;
+        private final BlockingQueue<Parked<T>> parked;
+        private final double[] cumulativeWeights;
+        private final SplittableRandom random;
+
+        EntryGate(Run run, BlockingQueue<Parked<T>> parked, double[] cumulativeWeights, SplittableRandom random,
+                String name) {
+            super(name);
+            this.run = run;
+            this.parked = parked;
+            this.cumulativeWeights = cumulativeWeights;
+            this.random = random;
+        }
+
+        @Override
+        public void run() {
+            long period = arrivalRate > 0d ? (long) (1e9d / arrivalRate) : 0L;
+            long stayNanos = stay.toNanos();
+            long next = System.nanoTime();
+            while (run.arrivalsOpen) {
+                if (period > 0L) {
+                    next += period;
+                    LockSupport.parkNanos(next - System.nanoTime());
+                }
+                T vehicle;
+                long start;
+                Registration<T> registration;
+                try {
+                    vehicle = nextVehicle();
+                    start = System.nanoTime();
+                    registration = parking.register(vehicle, LocalDateTime.now());
+                } catch (RuntimeException e) {
+                    // the vehicle could not enter, the gate goes on with the next one
+                    synchronized (lock) {
+                        errors++;
+                    }
+                    continue;
+                }
+                long latency = System.nanoTime() - start;
+                if (registration.isSuccessful()) {
+                    parked.add(new Parked<>(vehicle, start + latency + stayNanos));
+                }
+                synchronized (lock) {
+                    latencies.record(latency);
+                    registrations++;
+                    if (!registration.isSuccessful()) {
+                        rejections++;
+                    }
+                }
+            }
+        }
+
+        private T nextVehicle() {
+            double draw = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+            int kind = 0;
+            while (kind < cumulativeWeights.length - 1 && draw >= cumulativeWeights[kind]) {
+                kind++;
+            }
+            return arrivals.get(kind).get();
+        }
+
+    }
+
+    private final class ExitGate extends Gate {
+
+        private final Run run;
+        private final BlockingQueue<Parked<T>> parked;
+
+        ExitGate(Run run, BlockingQueue<Parked<T>> parked, String name) {
+            super(name);
+            this.run = run;
+            this.parked = parked;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (run.exitsOpen || !parked.isEmpty()) {
+                    Parked<T> vehicle = parked.poll(10, TimeUnit.MILLISECONDS);
+                    if (vehicle != null) {
+                        if (run.exitsOpen) {
+                            LockSupport.parkNanos(vehicle.dueNanos - System.nanoTime());
+                        }
+                        long start = System.nanoTime();
+                        try {
+                            parking.checkOut(vehicle.vehicle, LocalDateTime.now());
+                        } catch (RuntimeException e) {
+                            // the vehicle could not leave, the gate goes on with the next one
+                            synchronized (lock) {
+                                errors++;
+                            }
+                            continue;
+                        }
+                        long latency = System.nanoTime() - start;
+                        synchronized (lock) {
+                            latencies.record(latency);
+                            checkOuts++;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.parking.gate;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Blocking client of the {@link GateTcpServer}, as run by a barrier terminal or a test
+ * Requests are buffered and pipelined: each request method returns the id of the request without waiting, and
+ * {@link GateTcpClient#receive()} sends the buffered requests then reads the responses in the order of the requests.
+ * The server stops reading a connection whose responses are not read, so a terminal should not pipeline more than a
+ * few thousand requests before receiving their responses. Not thread safe.
+ */
+public final class GateTcpClient implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer output = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer input = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private int nextRequestId;
+
+    /**
+     * @param address the address of the server
+     * @throws IOException if the server cannot be reached
+     */
+    public GateTcpClient(InetSocketAddress address) throws IOException {
+        this.channel = SocketChannel.open(address);
+        this.channel.socket().setTcpNoDelay(true);
+        this.input.flip();
+    }
+
+    /**
+     * @param plate the {@link com.parking.PlateKey} of the plate
+     * @param vehicleClass the {@link com.parking.PlateKey} of the vehicle class
+     * @return the id of the request
+     */
+    public int register(long plate, long vehicleClass) throws IOException {
+        return send(BinaryProtocol.REGISTER, plate, vehicleClass);
+    }
+
+    /**
+     * @param plate the {@link com.parking.PlateKey} of the plate
+     * @return the id of the request
+     */
+    public int checkOut(long plate) throws IOException {
+        return send(BinaryProtocol.CHECK_OUT, plate, 0L);
+    }
+
+    /**
+     * @param plate the {@link com.parking.PlateKey} of the plate
+     * @return the id of the request
+     */
+    public int quote(long plate) throws IOException {
+        return send(BinaryProtocol.QUOTE, plate, 0L);
+    }
+
+    /**
+     * @param vehicleClass the {@link com.parking.PlateKey} of the vehicle class, 0 for the whole parking
+     * @return the id of the request
+     */
+    public int availability(long vehicleClass) throws IOException {
+        return send(BinaryProtocol.AVAILABILITY, 0L, vehicleClass);
+    }
+
+    private int send(byte operation, long plate, long vehicleClass) throws IOException {
+        if (output.remaining() < BinaryProtocol.REQUEST_SIZE) {
+            flush();
+        }
+        int requestId = nextRequestId++;
+        BinaryProtocol.writeRequest(output, requestId, operation, plate, vehicleClass);
+        return requestId;
+    }
+
+    /**
+     * Send the buffered requests
+     * @throws IOException if the connection is broken
+     */
+    public void flush() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            channel.write(output);
+        }
+        output.clear();
+    }
+
+    /**
+     * Send the buffered requests then wait for the next response
+     * @return the response of the oldest request without response
+     * @throws IOException if the connection is broken
+     */
+    public GateResponse receive() throws IOException {
+        flush();
+        if (input.remaining() < BinaryProtocol.RESPONSE_SIZE) {
+            input.compact();
+            while (input.position() < BinaryProtocol.RESPONSE_SIZE) {
+                if (channel.read(input) < 0) {
+                    throw new EOFException("Connection closed by the server");
+                }
+            }
+            input.flip();
+        }
+        return BinaryProtocol.readResponse(input);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.parking.gate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.Objects;
+
+import com.parking.Bill;
+import com.parking.Parking;
+import com.parking.Registration;
+import com.parking.VehicleFactory;
+import com.parking.exception.ParkingException;
+
+/**
+ * TCP gate server of the binary protocol for barrier terminals, see {@link GateTcpClient}
+ * A single selector thread serves all the connections: every complete request read from a connection is applied to
+ * the parking, and the responses of a read are sent back in one write. Terminals can pipeline their requests, so
+ * one connection carries thousands of gate operations per second.
+ * A connection is not read while its pending responses cannot be written, so slow terminals cannot exhaust memory
+ * @param <T> the vehicle class
+ */
+public final class GateTcpServer<T> implements AutoCloseable {
+
+    private static final int INPUT_SIZE = 64 * 1024;
+
+    /**
+     * Room for the responses of a full input buffer
+     */
+    private static final int OUTPUT_SIZE = INPUT_SIZE / BinaryProtocol.REQUEST_SIZE * BinaryProtocol.RESPONSE_SIZE;
+
+    private final GateService<T> gates;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread thread;
+
+    /**
+     * Create the server, call {@link GateTcpServer#start()} to accept connections
+     * @param parking the parking
+     * @param vehicleFactory creates the registered vehicles, and probe vehicles with plate 0 for availability
+     * @param address the address to bind, port 0 for any free port
+     * @param clock the clock giving the arrival and departure date times
+     * @throws IOException if the address cannot be bound
+     */
+    public GateTcpServer(Parking<T> parking, VehicleFactory<T> vehicleFactory, InetSocketAddress address, Clock clock)
+            throws IOException {
+        this.gates = new GateService<>(parking, vehicleFactory, clock);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(Objects.requireNonNull(address, "address cannot be null !"));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException | RuntimeException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        this.thread = new Thread(this::serve, "gate-tcp-" + getAddress().getPort());
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * @return the bound address of the server
+     */
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stop the server and close all the connections
+     */
+    @Override
+    public void close() {
+        thread.interrupt();
+        selector.wakeup();
+        try {
+            if (thread.isAlive()) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        } catch (IOException | ClosedSelectorException e) {
+            // closing anyway
+        }
+    }
+
+    /**
+     * Buffers of a connection
+     */
+    private static final class Connection {
+        final ByteBuffer input = ByteBuffer.allocateDirect(INPUT_SIZE);
+        final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_SIZE);
+    }
+
+    private void serve() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isWritable()) {
+                                write(key);
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                read(key);
+                            }
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // the terminal is gone, or its connection is broken: the other terminals are still served
+                        key.cancel();
+                        key.channel().close();
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                return;
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        if (channel.read(connection.input) < 0) {
+            key.cancel();
+            channel.close();
+            return;
+        }
+        connection.input.flip();
+        // the connection is only read once its responses are sent, so the output buffer is empty
+        while (connection.input.remaining() >= BinaryProtocol.REQUEST_SIZE) {
+            handle(connection.input, connection.output);
+        }
+        connection.input.compact();
+        write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        connection.output.flip();
+        ((SocketChannel) key.channel()).write(connection.output);
+        boolean pending = connection.output.hasRemaining();
+        connection.output.compact();
+        // stop reading until the responses are sent
+        key.interestOps(pending ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void handle(ByteBuffer input, ByteBuffer output) {
+        int requestId = input.getInt();
+        byte operation = input.get();
+        long plate = input.getLong();
+        long vehicleClass = input.getLong();
+        try {
+            switch (operation) {
+                case BinaryProtocol.REGISTER:
+                    Registration<T> registration = gates.register(plate, vehicleClass);
+                    if (registration.isSuccessful()) {
+                        BinaryProtocol.writeResponse(output, requestId, GateResponse.Status.OK,
+                                registration.getSlot().getId(), registration.getSlot().getArrivalDateTime(), null);
+                    } else {
+                        BinaryProtocol.writeResponse(output, requestId, GateResponse.Status.NO_FREE_SLOT, 0L, null,
+                                null);
+                    }
+                    break;
+                case BinaryProtocol.CHECK_OUT:
+                    Bill<T> bill = gates.checkOut(plate);
+                    BinaryProtocol.writeResponse(output, requestId, GateResponse.Status.OK, bill.getSlot().getId(),
+                            bill.getSlot().getDepartureDateTime(), bill.getPrice());
+                    break;
+                case BinaryProtocol.QUOTE:
+                    BinaryProtocol.writeResponse(output, requestId, GateResponse.Status.OK, 0L, null,
+                            gates.quote(plate));
+                    break;
+                case BinaryProtocol.AVAILABILITY:
+                    BinaryProtocol.writeResponse(output, requestId, GateResponse.Status.OK,
+                            gates.available(vehicleClass), null,
+                            BigDecimal.valueOf(gates.capacity(vehicleClass)));
+                    break;
+                default:
+                    BinaryProtocol.writeResponse(output, requestId, GateResponse.Status.BAD_REQUEST, 0L, null, null);
+            }
+        } catch (ParkingException e) {
+            BinaryProtocol.writeResponse(output, requestId, operation == BinaryProtocol.REGISTER
+                    ? GateResponse.Status.ALREADY_IN : GateResponse.Status.NOT_FOUND, 0L, null, null);
+        } catch (IllegalArgumentException e) {
+            BinaryProtocol.writeResponse(output, requestId, GateResponse.Status.BAD_REQUEST, 0L, null, null);
+        } catch (RuntimeException e) {
+            // any other failure of the parking, the terminal gets an answer and the selector thread goes on
+            BinaryProtocol.writeResponse(output, requestId, GateResponse.Status.ERROR, 0L, null, null);
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.parking.gate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Local load generator of a {@link GateHttpServer}: each client thread registers then checks out its own vehicles,
+ * with keep alive connections, and records the latency of every request
+ * Plates are unique per client, so the clients never conflict with each other
+ */
+public final class HttpLoadGenerator {
+
+    private final InetSocketAddress address;
+    private final String vehicleClass;
+    private int clients = 4;
+    private int vehiclesPerClient = 1000;
+
+    /**
+     * @param address the address of the server
+     * @param vehicleClass the vehicle class of the registered vehicles
+     */
+    public HttpLoadGenerator(InetSocketAddress address, String vehicleClass) {
+        this.address = Objects.requireNonNull(address, "address cannot be null !");
+        this.vehicleClass = Objects.requireNonNull(vehicleClass, "vehicleClass cannot be null !");
+    }
+
+    /**
+     * @param clients number of concurrent client threads
+     * @return this generator
+     */
+    public HttpLoadGenerator setClients(int clients) {
+        if (clients <= 0) {
+            throw new IllegalArgumentException("clients should be positive!");
+        }
+        this.clients = clients;
+        return this;
+    }
+
+    /**
+     * @param vehiclesPerClient number of vehicles registered then checked out by each client
+     * @return this generator
+     */
+    public HttpLoadGenerator setVehiclesPerClient(int vehiclesPerClient) {
+        if (vehiclesPerClient <= 0) {
+            throw new IllegalArgumentException("vehiclesPerClient should be positive!");
+        }
+        this.vehiclesPerClient = vehiclesPerClient;
+        return this;
+    }
+
+    /**
+     * Run the load until every client is done
+     * @return the report of the load
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public LoadReport run() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Client>> futures = new ArrayList<>(clients);
+            long start = System.nanoTime();
+            for (int i = 0; i < clients; i++) {
+                Client client = new Client(i);
+                futures.add(executor.submit(() -> {
+                    client.run();
+                    return client;
+                }));
+            }
+            LatencyHistogram latencies = new LatencyHistogram();
+            long requests = 0L;
+            long errors = 0L;
+            for (Future<Client> future : futures) {
+                Client client = future.get();
+                latencies.merge(client.latencies);
+                requests += client.requests;
+                errors += client.errors;
+            }
+            return new LoadReport(requests, errors, Duration.ofNanos(System.nanoTime() - start), latencies);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load client failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private final class Client {
+
+        private final int id;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final byte[] buffer = new byte[512];
+        private long requests;
+        private long errors;
+
+        Client(int id) {
+            this.id = id;
+        }
+
+        void run() throws IOException {
+            String base = "http://" + address.getHostString() + ":" + address.getPort();
+            for (int i = 0; i < vehiclesPerClient; i++) {
+                // plates "L<client>X<vehicle>" never clash between clients
+                String plate = "L" + id + "X" + i;
+                send(new URL(base + "/register?plate=" + plate + "&class=" + vehicleClass));
+                send(new URL(base + "/checkout?plate=" + plate));
+            }
+        }
+
+        private void send(URL url) throws IOException {
+            long start = System.nanoTime();
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            try {
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(0);
+                connection.getOutputStream().close();
+                int status = connection.getResponseCode();
+                // the body is read fully so that the connection is reused
+                try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                    if (body != null) {
+                        while (body.read(buffer) >= 0) {
+                            // discard the response
+                        }
+                    }
+                }
+                if (status != 200) {
+                    errors++;
+                }
+            } catch (IOException e) {
+                errors++;
+                connection.disconnect();
+            }
+            requests++;
+            latencies.record(System.nanoTime() - start);
+        }
+
+    }
+
+}
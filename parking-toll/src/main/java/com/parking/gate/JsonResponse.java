@@ -0,0 +1,109 @@
+package com.parking.gate;
+
+import java.util.Arrays;
+
+/**
+ * Reusable writer of flat JSON objects with ASCII content, written directly in a byte array
+ * One instance per server thread, so encoding a response allocates nothing but the field values Strings
+ */
+final class JsonResponse {
+
+    private byte[] bytes = new byte[256];
+    private int length;
+    private boolean firstField;
+
+    JsonResponse begin() {
+        length = 0;
+        firstField = true;
+        append('{');
+        return this;
+    }
+
+    JsonResponse field(String name, long value) {
+        name(name);
+        if (value == Long.MIN_VALUE) {
+            return raw(Long.toString(value));
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int start = length;
+        do {
+            append((char) ('0' + value % 10));
+            value /= 10;
+        } while (value > 0);
+        // digits were written from the lowest
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte digit = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = digit;
+        }
+        return this;
+    }
+
+    JsonResponse field(String name, boolean value) {
+        name(name);
+        return raw(value ? "true" : "false");
+    }
+
+    /**
+     * String field, the value is escaped
+     */
+    JsonResponse field(String name, CharSequence value) {
+        name(name);
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                append('\\');
+                append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                raw(String.format("\\u%04x", (int) c));
+            } else {
+                append(c);
+            }
+        }
+        append('"');
+        return this;
+    }
+
+    JsonResponse end() {
+        append('}');
+        return this;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    private void name(String name) {
+        if (!firstField) {
+            append(',');
+        }
+        firstField = false;
+        append('"');
+        raw(name);
+        append('"');
+        append(':');
+    }
+
+    private JsonResponse raw(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            append(value.charAt(i));
+        }
+        return this;
+    }
+
+    private void append(char c) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, length * 2);
+        }
+        bytes[length++] = (byte) c;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.parking.gate;
+
+import java.time.Duration;
+
+/**
+ * Result of a load test: throughput and latency distribution of the requests
+ */
+public final class LoadReport {
+
+    private final long requests;
+    private final long errors;
+    private final Duration elapsed;
+    private final LatencyHistogram latencies;
+
+    LoadReport(long requests, long errors, Duration elapsed, LatencyHistogram latencies) {
+        this.requests = requests;
+        this.errors = errors;
+        this.elapsed = elapsed;
+        this.latencies = latencies;
+    }
+
+    /**
+     * @return number of requests sent, including the failed ones
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return number of requests which failed or got an unexpected status
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return requests per second
+     */
+    public double getThroughput() {
+        return elapsed.isZero() ? 0d : requests * 1e9d / elapsed.toNanos();
+    }
+
+    /**
+     * @return latencies of all the requests
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d requests (%d errors) in %d ms: %.0f req/s, p50=%dus p99=%dus p99.9=%dus max=%dus",
+                requests, errors, elapsed.toMillis(), getThroughput(), micros(50d), micros(99d), micros(99.9d),
+                latencies.getMax().toNanos() / 1000);
+    }
+
+    private long micros(double percentile) {
+        return latencies.getPercentile(percentile).toNanos() / 1000;
+    }
+
+}
@@ -0,0 +1,211 @@
+package com.parking.gate;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Report of a {@link GateSoakTool} run: one sample per report interval, and the totals of the run
+ * The final check out of the remaining vehicles is reported apart, it is not part of the sustained load
+ */
+public final class SoakReport {
+
+    /**
+     * Gate operations and heap usage of a report interval
+     */
+    public static final class Sample {
+
+        private final Duration elapsed;
+        private final Duration interval;
+        private final long registrations;
+        private final long rejections;
+        private final long checkOuts;
+        private final long errors;
+        private final LatencyHistogram latencies;
+        private final long usedHeap;
+        private final long usedHeapAfterGc;
+
+        Sample(Duration elapsed, Duration interval, long registrations, long rejections, long checkOuts,
+                long errors, LatencyHistogram latencies, long usedHeap, long usedHeapAfterGc) {
+            this.elapsed = elapsed;
+            this.interval = interval;
+            this.registrations = registrations;
+            this.rejections = rejections;
+            this.checkOuts = checkOuts;
+            this.errors = errors;
+            this.latencies = latencies;
+            this.usedHeap = usedHeap;
+            this.usedHeapAfterGc = usedHeapAfterGc;
+        }
+
+        /**
+         * @return time from the start of the run to the end of the interval
+         */
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        /**
+         * @return registration attempts, including the rejected ones
+         */
+        public long getRegistrations() {
+            return registrations;
+        }
+
+        /**
+         * @return registrations rejected for lack of free slot
+         */
+        public long getRejections() {
+            return rejections;
+        }
+
+        public long getCheckOuts() {
+            return checkOuts;
+        }
+
+        /**
+         * @return gate operations failed with an exception, like a check out of a vehicle not found
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return gate operations per second
+         */
+        public double getThroughput() {
+            return (registrations + checkOuts) * 1e9d / interval.toNanos();
+        }
+
+        /**
+         * @return rejected part of the registrations, 0 without any registration
+         */
+        public double getRejectionRate() {
+            return registrations == 0 ? 0d : (double) rejections / registrations;
+        }
+
+        /**
+         * @return latencies of the registrations and check outs
+         */
+        public LatencyHistogram getLatencies() {
+            return latencies;
+        }
+
+        /**
+         * @return used heap at the end of the interval, in bytes
+         */
+        public long getUsedHeap() {
+            return usedHeap;
+        }
+
+        /**
+         * @return heap used after the last garbage collections, in bytes, -1 if not supported by the JVM
+         */
+        public long getUsedHeapAfterGc() {
+            return usedHeapAfterGc;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6ds %.0f ops/s rejected=%.2f%% errors=%d p50=%dus p99=%dus p99.9=%dus max=%dus "
+                    + "heap=%dMB afterGc=%dMB", elapsed.getSeconds(), getThroughput(), getRejectionRate() * 100, errors,
+                    latencies.getPercentile(50d).toNanos() / 1000, latencies.getPercentile(99d).toNanos() / 1000,
+                    latencies.getPercentile(99.9d).toNanos() / 1000, latencies.getMax().toNanos() / 1000,
+                    usedHeap >> 20, usedHeapAfterGc >> 20);
+        }
+
+    }
+
+    private final List<Sample> samples;
+    private final Sample drain;
+    private final LatencyHistogram latencies;
+    private final Duration duration;
+
+    SoakReport(List<Sample> samples, Sample drain, LatencyHistogram latencies, Duration duration) {
+        this.samples = Collections.unmodifiableList(samples);
+        this.drain = drain;
+        this.latencies = latencies;
+        this.duration = duration;
+    }
+
+    /**
+     * @return the samples of the report intervals, in time order
+     */
+    public List<Sample> getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return the check out of the vehicles remaining at the end of the run
+     */
+    public Sample getDrain() {
+        return drain;
+    }
+
+    /**
+     * @return latencies of all the gate operations, including the final check outs
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @return sustained gate operations per second over the run, without the final check outs
+     */
+    public double getThroughput() {
+        long operations = 0L;
+        for (Sample sample : samples) {
+            operations += sample.getRegistrations() + sample.getCheckOuts();
+        }
+        return duration.isZero() ? 0d : operations * 1e9d / duration.toNanos();
+    }
+
+    /**
+     * @return rejected part of all the registrations
+     */
+    public double getRejectionRate() {
+        long registrations = 0L;
+        long rejections = 0L;
+        for (Sample sample : samples) {
+            registrations += sample.getRegistrations();
+            rejections += sample.getRejections();
+        }
+        return registrations == 0 ? 0d : (double) rejections / registrations;
+    }
+
+    /**
+     * @return gate operations failed with an exception during the run and the final check outs
+     */
+    public long getErrors() {
+        long errors = drain.getErrors();
+        for (Sample sample : samples) {
+            errors += sample.getErrors();
+        }
+        return errors;
+    }
+
+    /**
+     * Growth of the heap used after garbage collections, from the first to the last sample: a steady growth over
+     * hours reveals a leak
+     * @return the growth in bytes, 0 if not supported by the JVM
+     */
+    public long getHeapGrowth() {
+        if (samples.isEmpty() || samples.get(0).getUsedHeapAfterGc() < 0) {
+            return 0L;
+        }
+        return samples.get(samples.size() - 1).getUsedHeapAfterGc() - samples.get(0).getUsedHeapAfterGc();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        samples.forEach(sample -> report.append(sample).append('\n'));
+        return report.append(String.format("sustained %.0f ops/s, rejected %.2f%%, %d errors, heap growth %dKB",
+                getThroughput(), getRejectionRate() * 100, getErrors(), getHeapGrowth() >> 10)).toString();
+    }
+
+}
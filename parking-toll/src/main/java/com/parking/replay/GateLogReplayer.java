@@ -0,0 +1,391 @@
+package com.parking.replay;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.parking.Bill;
+import com.parking.Parking;
+import com.parking.PlateKey;
+import com.parking.Registration;
+import com.parking.VehicleFactory;
+import com.parking.exception.ParkingException;
+
+/**
+ * Replays gate logs through a {@link Parking} to rebuild the bills, for audits and disputes
+ * A gate log is a CSV file with one record per line: {@code timestamp,plate,vehicle class,direction}
+ * <ul>
+ * <li>timestamp: {@code yyyy-MM-ddTHH:mm:ss} with optional fraction of second, 'T' or space separated</li>
+ * <li>plate and vehicle class: codes of at most {@link PlateKey#MAX_LENGTH} letters and digits</li>
+ * <li>direction: {@code IN} or {@code OUT}</li>
+ * </ul>
+ * Lines that do not start with a digit (header, comments, blank lines) are skipped
+ * The file is memory mapped and the records are parsed in place, without any String: plates and vehicle classes are
+ * read as {@link PlateKey}s. Records are applied in batches holding the parking lock once per batch.
+ * Bills are rebuilt for records in the same log, so a vehicle registered in a previous log must be replayed with it
+ * @param <T> the vehicle class
+ */
+public final class GateLogReplayer<T> {
+
+    /**
+     * Size of the mapped windows of the file, a window always ends on a complete line
+     */
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final Parking<T> parking;
+    private final VehicleFactory<T> vehicleFactory;
+    private final int batchSize;
+
+    /**
+     * Vehicles registered during the replay by plate key, checkOut finds vehicles by reference
+     */
+    private final ParkedVehicles<T> parked = new ParkedVehicles<>();
+
+    private final long[] batchPlates;
+    private final long[] batchClasses;
+    private final boolean[] batchEntries;
+    private final LocalDateTime[] batchDateTimes;
+    private final long[] batchLines;
+    private int batchCount;
+
+    private ReplayResult result;
+    private Consumer<Bill<T>> bills;
+
+    /**
+     * @param parking the parking receiving the records
+     * @param vehicleFactory creates the vehicle of an entry record
+     * @param batchSize the number of records applied to the parking at once
+     */
+    public GateLogReplayer(Parking<T> parking, VehicleFactory<T> vehicleFactory, int batchSize) {
+        this.parking = Objects.requireNonNull(parking, "parking cannot be null !");
+        this.vehicleFactory = Objects.requireNonNull(vehicleFactory, "vehicleFactory cannot be null !");
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize should be positive!");
+        }
+        this.batchSize = batchSize;
+        this.batchPlates = new long[batchSize];
+        this.batchClasses = new long[batchSize];
+        this.batchEntries = new boolean[batchSize];
+        this.batchDateTimes = new LocalDateTime[batchSize];
+        this.batchLines = new long[batchSize];
+    }
+
+    /**
+     * @param parking the parking receiving the records
+     * @param vehicleFactory creates the vehicle of an entry record
+     */
+    public GateLogReplayer(Parking<T> parking, VehicleFactory<T> vehicleFactory) {
+        this(parking, vehicleFactory, 4096);
+    }
+
+    /**
+     * Replay a gate log, vehicles still in the parking at the end of the log stay registered for the next log
+     * @param log the gate log file
+     * @param bills receives the bill of each exit record, in the order of the log
+     * @return the counters of the replay
+     * @throws IOException if the log cannot be read
+     * @throws ParkingException if an exit record is before the entry of the vehicle
+     */
+    public synchronized ReplayResult replay(Path log, Consumer<Bill<T>> bills) throws IOException {
+        this.result = new ReplayResult();
+        this.bills = Objects.requireNonNull(bills, "bills cannot be null !");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long windowSize = Math.min(WINDOW_SIZE, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+                int consumed = parse(window, position + windowSize == size);
+                if (consumed == 0) {
+                    throw new ParkingException("Line " + (result.lines + 1) + " is too long !");
+                }
+                position += consumed;
+            }
+            apply();
+            return result;
+        } finally {
+            this.bills = null;
+        }
+    }
+
+    /**
+     * Replay a gate log, ignoring the bills
+     * @param log the gate log file
+     * @return the counters of the replay
+     * @throws IOException if the log cannot be read
+     */
+    public ReplayResult replay(Path log) throws IOException {
+        return replay(log, bill -> {
+        });
+    }
+
+    /**
+     * Parse the complete lines of the window
+     * @param last {@code true} for the last window of the file, its last line may have no line feed
+     * @return number of bytes of the parsed lines
+     */
+    private int parse(MappedByteBuffer window, boolean last) {
+        int limit = window.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && window.get(end) != '\n') {
+                end++;
+            }
+            if (end == limit && !last) {
+                break;
+            }
+            result.lines++;
+            int lineEnd = end > start && window.get(end - 1) == '\r' ? end - 1 : end;
+            parseLine(window, start, lineEnd);
+            start = end + 1;
+        }
+        return Math.min(start, limit);
+    }
+
+    private void parseLine(MappedByteBuffer line, int start, int end) {
+        if (start == end || !isDigit(line.get(start))) {
+            result.skippedLines++;
+            return;
+        }
+        int plateStart = indexOf(line, ',', start, end) + 1;
+        int classStart = indexOf(line, ',', plateStart, end) + 1;
+        int directionStart = indexOf(line, ',', classStart, end) + 1;
+        LocalDateTime dateTime = plateStart > 0 ? parseDateTime(line, start, plateStart - 1) : null;
+        if (directionStart == 0 || dateTime == null) {
+            result.malformedLines++;
+            return;
+        }
+        int direction = firstLetter(line, directionStart, end);
+        if (direction != 'I' && direction != 'O') {
+            result.malformedLines++;
+            return;
+        }
+        long plate;
+        long vehicleClass;
+        try {
+            plate = PlateKey.encode(line, plateStart, classStart - 1);
+            vehicleClass = PlateKey.encode(line, classStart, directionStart - 1);
+        } catch (IllegalArgumentException e) {
+            result.malformedLines++;
+            return;
+        }
+        batchPlates[batchCount] = plate;
+        batchClasses[batchCount] = vehicleClass;
+        batchEntries[batchCount] = direction == 'I';
+        batchDateTimes[batchCount] = dateTime;
+        batchLines[batchCount] = result.lines;
+        if (++batchCount == batchSize) {
+            apply();
+        }
+    }
+
+    /**
+     * Apply the records of the batch, the parking lock is taken once for the whole batch
+     */
+    private void apply() {
+        try {
+            synchronized (parking) {
+                for (int i = 0; i < batchCount; i++) {
+                    if (batchEntries[i]) {
+                        enter(batchPlates[i], batchClasses[i], batchDateTimes[i]);
+                    } else {
+                        exit(batchPlates[i], batchDateTimes[i], batchLines[i]);
+                    }
+                }
+            }
+        } finally {
+            // a failed record drops the rest of the batch, it is not applied again by the next one
+            Arrays.fill(batchDateTimes, 0, batchCount, null);
+            batchCount = 0;
+        }
+    }
+
+    private void enter(long plate, long vehicleClass, LocalDateTime dateTime) {
+        if (parked.get(plate) != null) {
+            result.duplicateEntries++;
+            return;
+        }
+        T vehicle = vehicleFactory.create(plate, vehicleClass);
+        Registration<T> registration = parking.register(vehicle, dateTime);
+        if (registration.isSuccessful()) {
+            parked.put(plate, vehicle);
+            result.entries++;
+        } else {
+            result.rejectedEntries++;
+        }
+    }
+
+    private void exit(long plate, LocalDateTime dateTime, long line) {
+        T vehicle = parked.get(plate);
+        if (vehicle == null) {
+            result.unmatchedExits++;
+            return;
+        }
+        Bill<T> bill;
+        try {
+            bill = parking.checkOut(vehicle, dateTime);
+        } catch (IllegalArgumentException e) {
+            throw new ParkingException("Line " + line + ": " + e.getMessage());
+        }
+        parked.remove(plate);
+        result.exits++;
+        result.revenue = result.revenue.add(bill.getPrice());
+        bills.accept(bill);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static int indexOf(MappedByteBuffer line, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (line.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int firstLetter(MappedByteBuffer line, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int c = line.get(i) & 0xdf;
+            if (c >= 'A' && c <= 'Z') {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parse {@code yyyy-MM-ddTHH:mm:ss[.fraction]} in place
+     * @return the date time, {@code null} if malformed
+     */
+    private static LocalDateTime parseDateTime(MappedByteBuffer line, int from, int to) {
+        if (to - from < 19) {
+            return null;
+        }
+        int year = digits(line, from, 4);
+        int month = digits(line, from + 5, 2);
+        int day = digits(line, from + 8, 2);
+        int hour = digits(line, from + 11, 2);
+        int minute = digits(line, from + 14, 2);
+        int second = digits(line, from + 17, 2);
+        int nano = 0;
+        if (to - from > 20 && line.get(from + 19) == '.') {
+            int length = Math.min(9, to - from - 20);
+            nano = digits(line, from + 20, length);
+            for (int i = length; i < 9 && nano >= 0; i++) {
+                nano *= 10;
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the value of the decimal digits, -1 if a character is not a digit
+     */
+    private static int digits(MappedByteBuffer line, int from, int length) {
+        int value = 0;
+        for (int i = from; i < from + length; i++) {
+            byte b = line.get(i);
+            if (!isDigit(b)) {
+                return -1;
+            }
+            value = value * 10 + b - '0';
+        }
+        return value;
+    }
+
+    /**
+     * Open addressing map of the parked vehicles by plate key, without boxing
+     */
+    private static final class ParkedVehicles<T> {
+
+        private long[] keys = new long[1024];
+        private Object[] values = new Object[1024];
+        private int size;
+
+        private int home(long key) {
+            key *= 0x9e3779b97f4a7c15L;
+            return (int) (key ^ (key >>> 32)) & (keys.length - 1);
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(long key) {
+            for (int i = home(key); values[i] != null; i = (i + 1) & (keys.length - 1)) {
+                if (keys[i] == key) {
+                    return (T) values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(long key, T value) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+            }
+            int i = home(key);
+            while (values[i] != null) {
+                i = (i + 1) & (keys.length - 1);
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        @SuppressWarnings("unchecked")
+        T remove(long key) {
+            int mask = keys.length - 1;
+            int hole = home(key);
+            while (values[hole] != null && keys[hole] != key) {
+                hole = (hole + 1) & mask;
+            }
+            T value = (T) values[hole];
+            if (value == null) {
+                return null;
+            }
+            // backward shift deletion
+            for (int i = (hole + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+                int home = home(keys[i]);
+                boolean stays = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+                if (!stays) {
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    hole = i;
+                }
+            }
+            values[hole] = null;
+            size--;
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void grow() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Object[oldValues.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    put(oldKeys[i], (T) oldValues[i]);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.parking.replay;
+
+import java.math.BigDecimal;
+
+/**
+ * Counters of a gate log replay
+ */
+public final class ReplayResult {
+
+    long lines;
+    long skippedLines;
+    long malformedLines;
+    long entries;
+    long rejectedEntries;
+    long duplicateEntries;
+    long exits;
+    long unmatchedExits;
+    BigDecimal revenue = BigDecimal.ZERO;
+
+    ReplayResult() {
+    }
+
+    /**
+     * @return number of lines read
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * @return number of header, comment or blank lines
+     */
+    public long getSkippedLines() {
+        return skippedLines;
+    }
+
+    /**
+     * @return number of records that could not be parsed
+     */
+    public long getMalformedLines() {
+        return malformedLines;
+    }
+
+    /**
+     * @return number of vehicles registered in the parking
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return number of entry records without any free slot for the vehicle
+     */
+    public long getRejectedEntries() {
+        return rejectedEntries;
+    }
+
+    /**
+     * @return number of entry records of a vehicle already in the parking, ignored
+     */
+    public long getDuplicateEntries() {
+        return duplicateEntries;
+    }
+
+    /**
+     * @return number of vehicles checked out, one bill each
+     */
+    public long getExits() {
+        return exits;
+    }
+
+    /**
+     * @return number of exit records of a vehicle not in the parking, ignored
+     */
+    public long getUnmatchedExits() {
+        return unmatchedExits;
+    }
+
+    /**
+     * @return sum of the prices of the bills
+     */
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.parking.simulation;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Arrival process of a traffic in a {@link Scenario}: gives the arrival date time of the next vehicle
+ */
+@FunctionalInterface
+public interface ArrivalProcess {
+
+    /**
+     * @param previousArrival the arrival date time of the previous vehicle, or the start of the simulation
+     * @param random the random generator of the simulation
+     * @return the arrival date time of the next vehicle
+     */
+    LocalDateTime nextArrival(LocalDateTime previousArrival, Random random);
+
+    /**
+     * POISSON arrival process: exponentially distributed inter arrival times
+     * @param vehiclesPerHour the mean number of arrivals per hour
+     * @return {@link ArrivalProcess} Poisson arrival process
+     */
+    static ArrivalProcess POISSON(double vehiclesPerHour) {
+        if (vehiclesPerHour <= 0) {
+            throw new IllegalArgumentException("vehiclesPerHour should be positive!");
+        }
+        return (previousArrival, random) -> previousArrival.plus(exponentialNanos(random, 3_600e9 / vehiclesPerHour),
+                ChronoUnit.NANOS);
+    }
+
+    /**
+     * Poisson arrival process with a rate depending on the hour of the day, like a morning and an evening peak
+     * Generated by thinning a Poisson process of the maximum rate
+     * @param vehiclesPerHourOfDay the mean number of arrivals per hour for each of the 24 hours of the day
+     * @return {@link ArrivalProcess} daily profile arrival process
+     */
+    static ArrivalProcess DAILY_PROFILE(double... vehiclesPerHourOfDay) {
+        Objects.requireNonNull(vehiclesPerHourOfDay);
+        if (vehiclesPerHourOfDay.length != 24) {
+            throw new IllegalArgumentException("A rate is required for each hour of the day!");
+        }
+        double maxRate = 0;
+        for (double rate : vehiclesPerHourOfDay) {
+            if (rate < 0) {
+                throw new IllegalArgumentException("Rates cannot be negative!");
+            }
+            maxRate = Math.max(maxRate, rate);
+        }
+        if (maxRate == 0) {
+            throw new IllegalArgumentException("At least one rate should be positive!");
+        }
+        double meanNanos = 3_600e9 / maxRate;
+        double peak = maxRate;
+        return (previousArrival, random) -> {
+            LocalDateTime arrival = previousArrival;
+            do {
+                arrival = arrival.plus(exponentialNanos(random, meanNanos), ChronoUnit.NANOS);
+            } while (random.nextDouble() * peak >= vehiclesPerHourOfDay[arrival.getHour()]);
+            return arrival;
+        };
+    }
+
+    /**
+     * @return an exponentially distributed duration in nanoseconds
+     */
+    static long exponentialNanos(Random random, double meanNanos) {
+        return (long) (-Math.log(1 - random.nextDouble()) * meanNanos);
+    }
+
+}
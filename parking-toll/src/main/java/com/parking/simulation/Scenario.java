@@ -0,0 +1,146 @@
+package com.parking.simulation;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import com.parking.Parking;
+
+/**
+ * A simulation scenario: a parking set up (slots mix and pricing policy) and the traffics arriving to it
+ * Run it with the {@link Simulator}
+ * @param <T> the vehicle class
+ */
+public final class Scenario<T> {
+
+    private final String name;
+
+    /**
+     * Creates a new empty parking for each run of the scenario
+     */
+    private final Supplier<Parking<T>> parkingFactory;
+
+    private final List<Traffic<T>> traffics = new ArrayList<>();
+
+    private LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private Duration duration = Duration.ofDays(1);
+
+    private Duration samplingInterval = Duration.ofMinutes(15);
+
+    private long seed = 0L;
+
+    /**
+     * @param name name of the scenario, used in the {@link SimulationReport}
+     * @param parkingFactory creates the parking to simulate, for example {@code () -> Parking.builder()...build()}
+     */
+    public Scenario(String name, Supplier<Parking<T>> parkingFactory) {
+        this.name = Objects.requireNonNull(name, "name cannot be null !");
+        this.parkingFactory = Objects.requireNonNull(parkingFactory, "parkingFactory cannot be null !");
+    }
+
+    /**
+     * Add a traffic to the scenario
+     * @param name name of the traffic, used in the {@link SimulationReport}
+     * @param vehicles creates a new vehicle for each arrival
+     * @param arrivalProcess the arrival process of the traffic
+     * @param stayDistribution the stay durations of the traffic
+     * @return the scenario
+     */
+    public Scenario<T> addTraffic(String name, Supplier<T> vehicles, ArrivalProcess arrivalProcess,
+            StayDistribution stayDistribution) {
+        traffics.add(new Traffic<>(name, vehicles, arrivalProcess, stayDistribution));
+        return this;
+    }
+
+    /**
+     * @param start start date time of the virtual timeline
+     * @return the scenario
+     */
+    public Scenario<T> setStart(LocalDateTime start) {
+        this.start = Objects.requireNonNull(start);
+        return this;
+    }
+
+    /**
+     * @param duration simulated duration
+     * @return the scenario
+     */
+    public Scenario<T> setDuration(Duration duration) {
+        this.duration = Objects.requireNonNull(duration);
+        return this;
+    }
+
+    /**
+     * @param samplingInterval interval between two samples of the occupancy curve
+     * @return the scenario
+     */
+    public Scenario<T> setSamplingInterval(Duration samplingInterval) {
+        if (samplingInterval.isZero() || samplingInterval.isNegative()) {
+            throw new IllegalArgumentException("samplingInterval should be positive!");
+        }
+        this.samplingInterval = samplingInterval;
+        return this;
+    }
+
+    /**
+     * @param seed seed of the random generator, runs of the same scenario with the same seed give the same report
+     * @return the scenario
+     */
+    public Scenario<T> setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    Supplier<Parking<T>> getParkingFactory() {
+        return parkingFactory;
+    }
+
+    List<Traffic<T>> getTraffics() {
+        return Collections.unmodifiableList(traffics);
+    }
+
+    LocalDateTime getStart() {
+        return start;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    Duration getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * A traffic of the scenario: vehicles of a kind with their arrival process and stay durations
+     * @param <T> the vehicle class
+     */
+    static final class Traffic<T> {
+
+        final String name;
+        final Supplier<T> vehicles;
+        final ArrivalProcess arrivalProcess;
+        final StayDistribution stayDistribution;
+
+        Traffic(String name, Supplier<T> vehicles, ArrivalProcess arrivalProcess, StayDistribution stayDistribution) {
+            this.name = Objects.requireNonNull(name, "name cannot be null !");
+            this.vehicles = Objects.requireNonNull(vehicles, "vehicles cannot be null !");
+            this.arrivalProcess = Objects.requireNonNull(arrivalProcess, "arrivalProcess cannot be null !");
+            this.stayDistribution = Objects.requireNonNull(stayDistribution, "stayDistribution cannot be null !");
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.parking.simulation;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of the run of a {@link Scenario}
+ */
+public final class SimulationReport {
+
+    private final String scenarioName;
+    private final Map<String, Long> arrivals;
+    private final Map<String, Long> rejections;
+    private final BigDecimal revenue;
+    private final List<OccupancySample> occupancy;
+    private final long vehiclesLeftInParking;
+
+    SimulationReport(String scenarioName, Map<String, Long> arrivals, Map<String, Long> rejections,
+            BigDecimal revenue, List<OccupancySample> occupancy, long vehiclesLeftInParking) {
+        this.scenarioName = scenarioName;
+        this.arrivals = Collections.unmodifiableMap(arrivals);
+        this.rejections = Collections.unmodifiableMap(rejections);
+        this.revenue = revenue;
+        this.occupancy = Collections.unmodifiableList(occupancy);
+        this.vehiclesLeftInParking = vehiclesLeftInParking;
+    }
+
+    public String getScenarioName() {
+        return scenarioName;
+    }
+
+    /**
+     * @return number of arrivals per traffic name
+     */
+    public Map<String, Long> getArrivals() {
+        return arrivals;
+    }
+
+    /**
+     * @return number of vehicles that did not find a slot per traffic name
+     */
+    public Map<String, Long> getRejections() {
+        return rejections;
+    }
+
+    /**
+     * @return the total number of arrivals
+     */
+    public long getTotalArrivals() {
+        return arrivals.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return the total number of rejected vehicles
+     */
+    public long getTotalRejections() {
+        return rejections.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return the ratio of rejected vehicles over all arrivals, 0 without any arrival
+     */
+    public double getRejectionRate() {
+        long total = getTotalArrivals();
+        return total == 0 ? 0d : (double) getTotalRejections() / total;
+    }
+
+    /**
+     * @param trafficName name of the traffic
+     * @return the rejection rate of the traffic, 0 without any arrival
+     */
+    public double getRejectionRate(String trafficName) {
+        long total = arrivals.getOrDefault(trafficName, 0L);
+        return total == 0 ? 0d : (double) rejections.getOrDefault(trafficName, 0L) / total;
+    }
+
+    /**
+     * @return sum of the bills of the vehicles that left the parking during the simulation
+     */
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    /**
+     * @return the occupancy curve, one sample per sampling interval
+     */
+    public List<OccupancySample> getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * @return number of vehicles still in the parking at the end of the simulation, not billed
+     */
+    public long getVehiclesLeftInParking() {
+        return vehiclesLeftInParking;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d arrivals, %.2f%% rejected, revenue %s", scenarioName, getTotalArrivals(),
+                getRejectionRate() * 100, revenue);
+    }
+
+    /**
+     * Number of occupied slots at a given date time of the simulation
+     */
+    public static final class OccupancySample {
+
+        private final LocalDateTime dateTime;
+        private final long occupiedSlots;
+
+        OccupancySample(LocalDateTime dateTime, long occupiedSlots) {
+            this.dateTime = dateTime;
+            this.occupiedSlots = occupiedSlots;
+        }
+
+        public LocalDateTime getDateTime() {
+            return dateTime;
+        }
+
+        public long getOccupiedSlots() {
+            return occupiedSlots;
+        }
+    }
+
+}
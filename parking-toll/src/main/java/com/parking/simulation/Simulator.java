@@ -0,0 +1,205 @@
+package com.parking.simulation;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.parking.Parking;
+import com.parking.simulation.Scenario.Traffic;
+import com.parking.simulation.SimulationReport.OccupancySample;
+
+/**
+ * Discrete event simulation engine: drives {@link Parking#register(Object, LocalDateTime)} and
+ * {@link Parking#checkOut(Object, LocalDateTime)} on a virtual timeline, so a simulated day runs in milliseconds
+ * Scenarios are independent and run in parallel on a {@link ForkJoinPool}
+ */
+public final class Simulator {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Simulator running the scenarios on the common pool
+     */
+    public Simulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool the pool running the scenarios
+     */
+    public Simulator(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool cannot be null !");
+    }
+
+    /**
+     * Run a single scenario in the calling thread
+     * @param scenario the scenario
+     * @param <T> the vehicle class
+     * @return the report of the run
+     */
+    public <T> SimulationReport run(Scenario<T> scenario) {
+        return new Run<>(scenario).execute();
+    }
+
+    /**
+     * Run all the scenarios in parallel
+     * @param scenarios the scenarios
+     * @param <T> the vehicle class
+     * @return the reports, in the order of the scenarios
+     */
+    public <T> List<SimulationReport> runAll(List<Scenario<T>> scenarios) {
+        return pool.invoke(new ScenariosTask<>(scenarios, 0, scenarios.size()));
+    }
+
+    /**
+     * Split the scenarios in halves until a single scenario is left
+     */
+    private final class ScenariosTask<T> extends RecursiveTask<List<SimulationReport>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Scenario<T>> scenarios;
+        private final int from;
+        private final int to;
+
+        ScenariosTask(List<Scenario<T>> scenarios, int from, int to) {
+            this.scenarios = scenarios;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<SimulationReport> compute() {
+            if (to - from <= 1) {
+                List<SimulationReport> reports = new ArrayList<>(1);
+                if (to > from) {
+                    reports.add(run(scenarios.get(from)));
+                }
+                return reports;
+            }
+            int middle = (from + to) >>> 1;
+            ScenariosTask<T> right = new ScenariosTask<>(scenarios, middle, to);
+            right.fork();
+            List<SimulationReport> reports = new ScenariosTask<>(scenarios, from, middle).compute();
+            reports.addAll(right.join());
+            return reports;
+        }
+    }
+
+    /**
+     * An event of the virtual timeline: arrival of the next vehicle of a traffic, or departure of a parked vehicle
+     */
+    private static final class Event<T> implements Comparable<Event<T>> {
+
+        final LocalDateTime dateTime;
+        /**
+         * Sequence number, keeps simultaneous events in their scheduling order
+         */
+        final long sequence;
+        final Traffic<T> traffic;
+        /**
+         * The parked vehicle for a departure, {@code null} for an arrival
+         */
+        final T vehicle;
+
+        Event(LocalDateTime dateTime, long sequence, Traffic<T> traffic, T vehicle) {
+            this.dateTime = dateTime;
+            this.sequence = sequence;
+            this.traffic = traffic;
+            this.vehicle = vehicle;
+        }
+
+        @Override
+        public int compareTo(Event<T> other) {
+            int compare = dateTime.compareTo(other.dateTime);
+            return compare != 0 ? compare : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * A run of a scenario, single threaded
+     */
+    private static final class Run<T> {
+
+        private final Scenario<T> scenario;
+        private final Parking<T> parking;
+        private final Random random;
+        private final PriorityQueue<Event<T>> events = new PriorityQueue<>();
+        private final Map<String, Long> arrivals = new LinkedHashMap<>();
+        private final Map<String, Long> rejections = new LinkedHashMap<>();
+        private final List<OccupancySample> occupancy = new ArrayList<>();
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private long occupiedSlots;
+        private long sequence;
+        private LocalDateTime nextSample;
+
+        Run(Scenario<T> scenario) {
+            this.scenario = scenario;
+            this.parking = Objects.requireNonNull(scenario.getParkingFactory().get(), "The parking factory returned null !");
+            this.random = new Random(scenario.getSeed());
+        }
+
+        SimulationReport execute() {
+            LocalDateTime start = scenario.getStart();
+            LocalDateTime end = start.plus(scenario.getDuration());
+            for (Traffic<T> traffic : scenario.getTraffics()) {
+                arrivals.put(traffic.name, 0L);
+                rejections.put(traffic.name, 0L);
+                schedule(traffic.arrivalProcess.nextArrival(start, random), traffic, null);
+            }
+            nextSample = start;
+            while (!events.isEmpty() && events.peek().dateTime.isBefore(end)) {
+                Event<T> event = events.poll();
+                sampleUntil(event.dateTime);
+                if (event.vehicle == null) {
+                    arrive(event);
+                } else {
+                    leave(event);
+                }
+            }
+            sampleUntil(end);
+            return new SimulationReport(scenario.getName(), arrivals, rejections, revenue, occupancy, occupiedSlots);
+        }
+
+        private void schedule(LocalDateTime dateTime, Traffic<T> traffic, T vehicle) {
+            events.add(new Event<>(dateTime, sequence++, traffic, vehicle));
+        }
+
+        private void arrive(Event<T> event) {
+            Traffic<T> traffic = event.traffic;
+            schedule(traffic.arrivalProcess.nextArrival(event.dateTime, random), traffic, null);
+            arrivals.merge(traffic.name, 1L, Long::sum);
+            T vehicle = traffic.vehicles.get();
+            if (parking.register(vehicle, event.dateTime).isSuccessful()) {
+                occupiedSlots++;
+                schedule(event.dateTime.plus(traffic.stayDistribution.nextStay(random)), traffic, vehicle);
+            } else {
+                rejections.merge(traffic.name, 1L, Long::sum);
+            }
+        }
+
+        private void leave(Event<T> event) {
+            revenue = revenue.add(parking.checkOut(event.vehicle, event.dateTime).getPrice());
+            occupiedSlots--;
+        }
+
+        /**
+         * Record the occupancy for every sampling date time up to the given date time (excluded)
+         */
+        private void sampleUntil(LocalDateTime dateTime) {
+            while (nextSample.isBefore(dateTime)) {
+                occupancy.add(new OccupancySample(nextSample, occupiedSlots));
+                nextSample = nextSample.plus(scenario.getSamplingInterval());
+            }
+        }
+    }
+
+}
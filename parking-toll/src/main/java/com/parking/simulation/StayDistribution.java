@@ -0,0 +1,50 @@
+package com.parking.simulation;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Distribution of the stay durations of a traffic in a {@link Scenario}
+ */
+@FunctionalInterface
+public interface StayDistribution {
+
+    /**
+     * @param random the random generator of the simulation
+     * @return the stay duration of the next vehicle
+     */
+    Duration nextStay(Random random);
+
+    /**
+     * FIXED stay duration
+     * @param stay the duration of every stay
+     * @return {@link StayDistribution} fixed stay duration
+     */
+    static StayDistribution FIXED(Duration stay) {
+        Objects.requireNonNull(stay);
+        return random -> stay;
+    }
+
+    /**
+     * EXPONENTIAL stay durations
+     * @param mean the mean stay duration
+     * @return {@link StayDistribution} exponential stay durations
+     */
+    static StayDistribution EXPONENTIAL(Duration mean) {
+        double meanNanos = mean.toNanos();
+        return random -> Duration.ofNanos(ArrivalProcess.exponentialNanos(random, meanNanos));
+    }
+
+    /**
+     * LOG NORMAL stay durations, the usual fit for parking stays: mostly short with a long tail
+     * @param median the median stay duration
+     * @param sigma the standard deviation of the logarithm of the stay duration
+     * @return {@link StayDistribution} log normal stay durations
+     */
+    static StayDistribution LOG_NORMAL(Duration median, double sigma) {
+        double mu = Math.log(median.toNanos());
+        return random -> Duration.ofNanos((long) Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class AvailabilityFeedTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final Parking<TestVehicle> parking = Parking.<TestVehicle>builder()
+            .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+            .publishAvailability(Duration.ofHours(1))
+            .addSlots(isGASPredicate, 5)
+            .addSlots(isE20Predicate, 3)
+            .addSlots(isE50Predicate, 2)
+            .build();
+
+    @Test
+    public void coalescedDeltas() throws Exception {
+        AvailabilityFeed feed = parking.getAvailabilityFeed();
+        List<AvailabilityUpdate> updates = new ArrayList<>();
+        AutoCloseable subscription = feed.subscribe(updates::add);
+        try {
+            getGasVehicle(3).forEach(vehicle -> parking.register(vehicle, start));
+            parking.register(getE20Vehicle(), start);
+            TestVehicle e50Vehicle = getE50Vehicle();
+            parking.register(e50Vehicle, start);
+            parking.checkOut(e50Vehicle, start.plusHours(1));
+            feed.publish();
+
+            assertEquals(1, updates.size());
+            AvailabilityUpdate update = updates.get(0);
+            assertEquals(1, update.getSequence());
+            // the 50kw pool is back to its published capacity
+            assertEquals(2, update.size());
+            assertEquals(0, update.getPool(0));
+            assertEquals(2, update.getAvailable(0));
+            assertEquals(-3, update.getDelta(0));
+            assertEquals(1, update.getPool(1));
+            assertEquals(2, update.getAvailable(1));
+            assertEquals(-1, update.getDelta(1));
+
+            // nothing changed
+            feed.publish();
+            assertEquals(1, updates.size());
+            parking.register(getE20Vehicle(), start);
+            feed.publish();
+            assertEquals(2, updates.get(1).getSequence());
+            assertEquals(1, updates.get(1).getAvailable(0));
+        } finally {
+            subscription.close();
+        }
+        assertEquals(0, feed.getSubscriberCount());
+        feed.close();
+    }
+
+    @Test(timeout = 10_000)
+    public void publisherThread() throws Exception {
+        Parking<TestVehicle> parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .publishAvailability(Duration.ofMillis(20))
+                .addSlots(isGASPredicate, 5)
+                .build();
+        try (AvailabilityFeed feed = parking.getAvailabilityFeed()) {
+            // a failing subscriber does not stop the others, it is delivered and unsubscribed before them
+            feed.subscribe(update -> {
+                throw new IllegalStateException();
+            });
+            CountDownLatch delivered = new CountDownLatch(2);
+            for (int subscriber = 0; subscriber < 2; subscriber++) {
+                feed.subscribe(update -> {
+                    if (update.getAvailable(0) == 3) {
+                        delivered.countDown();
+                    }
+                });
+            }
+            getGasVehicle(2).forEach(vehicle -> parking.register(vehicle, start));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(3, feed.getAvailable(0));
+            assertEquals(2, feed.getSubscriberCount());
+        }
+    }
+
+    @Test
+    public void notPublished() {
+        expectedException.expect(IllegalStateException.class);
+        Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED).addSlot(isGASPredicate).build()
+                .getAvailabilityFeed();
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.time.LocalDateTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.parking.exception.ParkingException;
+
+public class CapabilityMaskTest extends TollPakingTestTool {
+
+    private static final long CHARGER = 1;
+    private static final long FAST_CHARGER = 2;
+    private static final long WIDE = 4;
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static long required(TestVehicle vehicle) {
+        switch (vehicle.getVehicleType()) {
+        case ELECTRIC_50KW:
+            return CHARGER | FAST_CHARGER;
+        case ELECTRIC_20KW:
+            return CHARGER;
+        case OTHER:
+            return WIDE;
+        default:
+            return 0;
+        }
+    }
+
+    private Builder<TestVehicle> builder() {
+        return Parking.<TestVehicle>builder()
+                .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .setRequiredCapabilities(CapabilityMaskTest::required)
+                .addCapabilitySlots(WIDE, 1)
+                .addCapabilitySlots(CHARGER | FAST_CHARGER, 1)
+                .addCapabilitySlots(CHARGER, 2)
+                .addCapabilitySlots(CHARGER | WIDE, 1);
+    }
+
+    @Test
+    public void masks() {
+        Parking<TestVehicle> parking = builder().build();
+        assertEquals(Long.valueOf(2), parking.register(getE50Vehicle(), start).getSlot().getId());
+        assertFalse(parking.register(getE50Vehicle(), start).isSuccessful());
+        assertEquals(Long.valueOf(3), parking.register(getE20Vehicle(), start).getSlot().getId());
+        assertEquals(Long.valueOf(1), parking.register(getOtherVehicle(), start).getSlot().getId());
+        assertEquals(Long.valueOf(5), parking.register(getOtherVehicle(), start).getSlot().getId());
+        // gasoline vehicles require nothing and take any free slot
+        assertEquals(Long.valueOf(4), parking.register(getGasVehicle(), start).getSlot().getId());
+        assertEquals(0, parking.getAvailableCapacity());
+        assertEquals(4, parking.getCapacity(getE20Vehicle()));
+    }
+
+    @Test
+    public void sameMaskSharesPools() {
+        Builder<TestVehicle> builder = builder().addCapabilitySlots(CHARGER, 3);
+        ParkingLayout<TestVehicle> layout = builder.buildLayout();
+        assertEquals(5, layout.getPoolCount());
+        assertEquals(builder.capabilityStrategy(CHARGER), layout.poolStrategy(4));
+        Parking<TestVehicle> parking = Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED).build();
+        getE20Vehicle(4).forEach(vehicle -> parking.register(vehicle, start));
+        assertEquals(Long.valueOf(6), parking.register(getE20Vehicle(), start).getSlot().getId());
+    }
+
+    @Test
+    public void mixedWithPredicates() {
+        Parking<TestVehicle> parking = builder().addSlots(isGASPredicate, 1).build();
+        getGasVehicle(5).forEach(vehicle -> parking.register(vehicle, start));
+        assertEquals(Long.valueOf(6), parking.register(getGasVehicle(), start).getSlot().getId());
+        assertFalse(parking.register(getGasVehicle(), start).isSuccessful());
+    }
+
+    @Test
+    public void powerBudget() {
+        Builder<TestVehicle> builder = builder();
+        Parking<TestVehicle> parking = builder
+                .setChargingPower(builder.capabilityStrategy(CHARGER | FAST_CHARGER), 50)
+                .addPowerBudget("site", 40)
+                .build();
+        assertFalse(parking.register(getE50Vehicle(), start).isSuccessful());
+    }
+
+    @Test
+    public void requiredCapabilitiesNotSet() {
+        expectedException.expect(ParkingException.class);
+        expectedException.expectMessage("The required capabilities of the vehicles are not set!");
+        Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED).addCapabilitySlots(CHARGER, 2)
+                .build();
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.parking.exception.ParkingException;
+
+public class DedupeCacheTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final Parking<TestVehicle> parking = Parking.<TestVehicle>builder()
+            .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+            .deduplicateRetries(1000, Duration.ofMinutes(5))
+            .addSlots(isGASPredicate, 2)
+            .build();
+
+    @Test
+    public void retriedRegistration() {
+        TestVehicle gasVehicle = getGasVehicle();
+        Registration<TestVehicle> registration = parking.register(gasVehicle, start, "gate-1/42");
+        assertSame(registration, parking.register(gasVehicle, start, "gate-1/42"));
+        assertEquals(1, parking.getAvailableCapacity());
+    }
+
+    @Test
+    public void retriedCheckOut() {
+        TestVehicle gasVehicle = getGasVehicle();
+        parking.register(gasVehicle, start, "in");
+        Bill<TestVehicle> bill = parking.checkOut(gasVehicle, start.plusHours(1), "out");
+        assertSame(bill, parking.checkOut(gasVehicle, start.plusHours(2), "out"));
+        assertPriceEquals(money(4), bill.getPrice());
+        assertEquals(2, parking.getAvailableCapacity());
+    }
+
+    @Test
+    public void rejectedRegistrationIsRetried() {
+        parking.register(getGasVehicle(), start, "1");
+        TestVehicle second = getGasVehicle();
+        parking.register(second, start, "2");
+        TestVehicle third = getGasVehicle();
+        assertFalse(parking.register(third, start, "3").isSuccessful());
+        parking.checkOut(second, start.plusHours(1), "4");
+        assertEquals(Long.valueOf(2), parking.register(third, start, "3").getSlot().getId());
+    }
+
+    @Test
+    public void unknownCheckOut() {
+        expectedException.expect(ParkingException.class);
+        parking.checkOut(getGasVehicle(), start, "out");
+    }
+
+    @Test
+    public void notDeduplicated() {
+        expectedException.expect(IllegalStateException.class);
+        Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED).addSlot(isGASPredicate).build()
+                .register(getGasVehicle(), start, "in");
+    }
+
+    @Test
+    public void eviction() {
+        AtomicLong now = new AtomicLong();
+        DedupeCache<String> cache = new DedupeCache<>(3, Duration.ofNanos(100), now::get);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.put("d", "D");
+        assertEquals(3, cache.size());
+        assertNull(cache.get("a"));
+        assertEquals("B", cache.get("b"));
+
+        now.set(150);
+        assertNull(cache.get("b"));
+        cache.put("e", "E");
+        assertEquals(1, cache.size());
+        assertEquals("E", cache.get("e"));
+    }
+
+}
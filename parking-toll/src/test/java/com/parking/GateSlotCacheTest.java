@@ -0,0 +1,105 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+public class GateSlotCacheTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    private final Parking<TestVehicle> parking = Parking.<TestVehicle>builder()
+            .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+            .addSlots(isGASPredicate, 10)
+            .addSlots(isE20Predicate, 2)
+            .build();
+
+    private long slotId(Registration<TestVehicle> registration) {
+        return registration.getSlot().getId();
+    }
+
+    @Test
+    public void gatesAllocateDifferentSlots() {
+        GateSlotCache<TestVehicle> north = parking.newGateSlotCache(4);
+        GateSlotCache<TestVehicle> south = parking.newGateSlotCache(4);
+        assertEquals(1L, slotId(north.register(getGasVehicle(), start)));
+        assertEquals(5L, slotId(south.register(getGasVehicle(), start)));
+        assertEquals(2L, slotId(north.register(getGasVehicle(), start)));
+        assertEquals(6L, slotId(south.register(getGasVehicle(), start)));
+        assertEquals(11L, slotId(north.register(getE20Vehicle(), start)));
+        assertEquals(3, north.getReservedSlots());
+        // other registrations skip the reserved slots
+        assertEquals(9L, slotId(parking.register(getGasVehicle(), start)));
+        assertEquals(12L, slotId(parking.register(getE20Vehicle(), start)));
+    }
+
+    @Test
+    public void unusedSlotsAreGivenBack() {
+        GateSlotCache<TestVehicle> gate = parking.newGateSlotCache(4);
+        gate.register(getGasVehicle(), start);
+        gate.close();
+        assertEquals(2L, slotId(parking.register(getGasVehicle(), start)));
+        assertEquals(3L, slotId(gate.register(getGasVehicle(), start)));
+    }
+
+    @Test
+    public void reservedSlotsAreStolenWhenThePoolRunsLow() {
+        GateSlotCache<TestVehicle> north = parking.newGateSlotCache(8);
+        GateSlotCache<TestVehicle> south = parking.newGateSlotCache(8);
+        north.register(getGasVehicle(), start);
+        south.register(getGasVehicle(), start);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(parking.register(getGasVehicle(), start).isSuccessful());
+        }
+        assertEquals(0, parking.getAvailableCapacity(getGasVehicle()));
+        assertFalse(north.register(getGasVehicle(), start).isSuccessful());
+        assertFalse(south.register(getGasVehicle(), start).isSuccessful());
+    }
+
+    @Test
+    public void stolenSlotsReservedByAnotherGate() {
+        GateSlotCache<TestVehicle> north = parking.newGateSlotCache(8);
+        assertEquals(1L, slotId(north.register(getGasVehicle(), start)));
+        parking.register(getGasVehicle(), start);
+        parking.register(getGasVehicle(), start);
+        // the first slot reserved by the north gate is taken back, then reserved by the south gate
+        TestVehicle vehicle = getGasVehicle();
+        assertEquals(2L, slotId(parking.register(vehicle, start)));
+        parking.checkOut(vehicle, start.plusHours(1));
+        GateSlotCache<TestVehicle> south = parking.newGateSlotCache(1);
+        assertEquals(2L, slotId(south.register(getGasVehicle(), start)));
+        assertEquals(3L, slotId(north.register(getGasVehicle(), start)));
+    }
+
+    @Test
+    public void concurrentGates() throws InterruptedException {
+        Parking<TestVehicle> large = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addSlots(isGASPredicate, 10_000).build();
+        Set<Long> slots = ConcurrentHashMap.newKeySet();
+        List<Thread> gates = new ArrayList<>();
+        for (int gate = 0; gate < 4; gate++) {
+            GateSlotCache<TestVehicle> cache = large.newGateSlotCache(32);
+            gates.add(new Thread(() -> {
+                Registration<TestVehicle> registration;
+                while ((registration = cache.register(getGasVehicle(), start)).isSuccessful()) {
+                    assertTrue(slots.add(registration.getSlot().getId()));
+                }
+            }));
+        }
+        gates.forEach(Thread::start);
+        for (Thread gate : gates) {
+            gate.join();
+        }
+        assertEquals(10_000, slots.size());
+        assertEquals(0, large.getAvailableCapacity());
+    }
+
+}
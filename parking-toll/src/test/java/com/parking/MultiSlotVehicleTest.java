@@ -0,0 +1,145 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.parking.exception.ParkingException;
+
+public class MultiSlotVehicleTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    // buses are the other vehicles, taking three slots
+    private final Predicate<TestVehicle> lane = isGASPredicate.or(isOther);
+
+    private final Parking<TestVehicle> parking = Parking.<TestVehicle>builder()
+            .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+            .setVehicleSlots(vehicle -> vehicle.getVehicleType() == VehicleType.OTHER ? 3 : 1)
+            .addSlots(lane, 8)
+            .build();
+
+    private List<Long> ids(List<Slot<TestVehicle>> slots) {
+        return slots.stream().map(Slot::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void contiguousSlots() {
+        TestVehicle car = getGasVehicle();
+        parking.register(car, start);
+        TestVehicle bus = getOtherVehicle();
+        Registration<TestVehicle> registration = parking.register(bus, start);
+        assertEquals(Arrays.asList(2L, 3L, 4L), ids(registration.getSlots()));
+        assertEquals(Long.valueOf(2), registration.getSlot().getId());
+        assertEquals(4, parking.getAvailableCapacity());
+
+        // slots 5 to 7 are the first free run after the car leaves slot 1
+        parking.checkOut(car, start.plusHours(1));
+        assertEquals(Arrays.asList(5L, 6L, 7L), ids(parking.register(getOtherVehicle(), start).getSlots()));
+        assertEquals(Long.valueOf(1), parking.register(getGasVehicle(), start).getSlot().getId());
+        assertFalse(parking.register(getOtherVehicle(), start).isSuccessful());
+        assertEquals(1, parking.getAvailableCapacity());
+    }
+
+    @Test
+    public void checkOutReleasesAllTheSlots() {
+        TestVehicle bus = getOtherVehicle();
+        parking.register(bus, start);
+        // each slot is billed 3 per hour plus 1
+        assertPriceEquals(money(21), parking.quote(bus, start.plusHours(2)));
+        Bill<TestVehicle> bill = parking.checkOut(bus, start.plusHours(2));
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(bill.getSlots()));
+        assertPriceEquals(money(21), bill.getPrice());
+        assertEquals(8, parking.getAvailableCapacity());
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(parking.register(getOtherVehicle(), start).getSlots()));
+    }
+
+    @Test
+    public void expectedFreeIn() {
+        Parking<TestVehicle> estimated = Parking.<TestVehicle>builder()
+                .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .setVehicleSlots(vehicle -> vehicle.getVehicleType() == VehicleType.OTHER ? 3 : 1)
+                .estimateStays()
+                .addSlots(lane, 8)
+                .build();
+        TestVehicle bus = getOtherVehicle();
+        estimated.register(bus, start);
+        estimated.checkOut(bus, start.plusHours(2));
+        // one stay for the three slots of the bus
+        assertEquals(1, estimated.getPools().get(0).getStays().getCount());
+
+        LocalDateTime arrival = start.plusDays(1);
+        List<TestVehicle> vehicles = getGasVehicle(8);
+        vehicles.forEach(vehicle -> estimated.register(vehicle, arrival));
+        for (int position = 1; position < 8; position += 3) {
+            estimated.checkOut(vehicles.get(position), arrival.plusMinutes(90));
+        }
+        assertEquals(4, estimated.getPools().get(0).getStays().getCount());
+        // three free slots, none next to another
+        LocalDateTime now = arrival.plusMinutes(90);
+        assertEquals(Duration.ZERO, estimated.expectedFreeIn(getGasVehicle(), now));
+        // the stays of the other vehicles end within 2 hours
+        Duration busFreeIn = estimated.expectedFreeIn(getOtherVehicle(), now);
+        assertTrue(busFreeIn.getSeconds() > 0 && busFreeIn.getSeconds() <= 30 * 60);
+    }
+
+    @Test
+    public void freeRuns() {
+        Random random = new Random(3);
+        boolean[] free = new boolean[100];
+        Arrays.fill(free, true);
+        FreeRuns runs = new FreeRuns(free.length);
+        for (int i = 0; i < 10_000; i++) {
+            int position = random.nextInt(free.length);
+            free[position] = random.nextInt(3) == 0;
+            runs.set(position, free[position]);
+            int length = 1 + random.nextInt(4);
+            assertEquals(firstRun(free, length), runs.find(length));
+        }
+    }
+
+    private static int firstRun(boolean[] free, int length) {
+        int run = 0;
+        for (int position = 0; position < free.length; position++) {
+            run = free[position] ? run + 1 : 0;
+            if (run == length) {
+                return position - length + 1;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void heapOccupancyOnly() {
+        expectedException.expect(ParkingException.class);
+        Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .setVehicleSlots(vehicle -> 1)
+                .useOffHeapOccupancy(TestVehicle::getId)
+                .addSlot(isGASPredicate)
+                .build();
+    }
+
+    @Test
+    public void singleSlotVehicles() {
+        Registration<TestVehicle> registration = parking.register(getGasVehicle(), start);
+        assertTrue(registration.isSuccessful());
+        assertEquals(1, registration.getSlots().size());
+        assertEquals(0, parking.register(getE20Vehicle(), start).getSlots().size());
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.parking.OccupancyHistory.Resolution;
+import com.parking.OccupancyHistory.Sample;
+
+public class OccupancyHistoryTest extends TollPakingTestTool {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private Parking<TestVehicle> parking;
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 17, 0);
+
+    @Before
+    public void init() {
+        parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .recordOccupancy(Duration.ofHours(6))
+                .addSlots(isE20Predicate, 5)
+                .addSlots(isGASPredicate, 10)
+                .build();
+    }
+
+    @Test
+    public void pools() {
+        List<SlotPool<TestVehicle>> pools = parking.getPools();
+        assertEquals(2, pools.size());
+        assertEquals(5, pools.get(0).getCapacity());
+        assertEquals(10, pools.get(1).getCapacity());
+
+        parking.register(getGasVehicle(), start);
+        assertEquals(5, pools.get(0).getAvailableCapacity());
+        assertEquals(9, pools.get(1).getAvailableCapacity());
+    }
+
+    @Test
+    public void history() {
+        OccupancyHistory history = parking.getPools().get(1).getOccupancyHistory();
+        List<TestVehicle> vehicles = getGasVehicle(3);
+        parking.register(vehicles.get(0), start);
+        parking.register(vehicles.get(1), start.plusMinutes(5));
+        parking.register(vehicles.get(2), start.plusMinutes(5).plusSeconds(10));
+        parking.checkOut(vehicles.get(2), start.plusMinutes(5).plusSeconds(50));
+        parking.checkOut(vehicles.get(0), start.plusMinutes(90));
+
+        assertEquals(1, history.getOccupiedSlots(start));
+        assertEquals(1, history.getOccupiedSlots(start.plusMinutes(4)));
+        assertEquals(2, history.getOccupiedSlots(start.plusMinutes(5)));
+        assertEquals(2, history.getOccupiedSlots(start.plusMinutes(89)));
+        assertEquals(1, history.getOccupiedSlots(start.plusMinutes(90)));
+        assertEquals(1, history.getOccupiedSlots(start.plusHours(5)));
+
+        List<Sample> minutes = history.query(start.plusMinutes(4), start.plusMinutes(6), Resolution.MINUTE);
+        assertEquals(2, minutes.size());
+        assertEquals(start.plusMinutes(5), minutes.get(1).getStart());
+        assertEquals(3, minutes.get(1).getPeakOccupiedSlots());
+
+        List<Sample> hours = history.query(start, start.plusHours(2), Resolution.HOUR);
+        assertEquals(2, hours.size());
+        // 5 minutes with 1 vehicle then 55 minutes with 2 vehicles
+        assertEquals((5 + 55 * 2) / 60d, hours.get(0).getAverageOccupiedSlots(), 1e-9);
+        assertEquals(3, hours.get(0).getPeakOccupiedSlots());
+        assertEquals(2, hours.get(1).getPeakOccupiedSlots());
+    }
+
+    @Test
+    public void pastRelease() {
+        OccupancyHistory history = parking.getPools().get(1).getOccupancyHistory();
+        TestVehicle vehicle = getGasVehicle();
+        parking.register(vehicle, start);
+        parking.register(getGasVehicle(), start.plusHours(2));
+        // release in the past updates the history since the departure
+        parking.checkOut(vehicle, start.plusHours(1));
+        assertEquals(1, history.getOccupiedSlots(start));
+        assertEquals(0, history.getOccupiedSlots(start.plusMinutes(90)));
+        assertEquals(1, history.getOccupiedSlots(start.plusHours(2)));
+    }
+
+    @Test
+    public void outOfWindow() {
+        OccupancyHistory history = parking.getPools().get(1).getOccupancyHistory();
+        parking.register(getGasVehicle(), start);
+        parking.register(getGasVehicle(), start.plusDays(1));
+        expectedException.expect(IllegalArgumentException.class);
+        history.getOccupiedSlots(start);
+    }
+
+    @Test
+    public void notRecorded() {
+        Parking<TestVehicle> parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addSlots(isGASPredicate, 10).build();
+        expectedException.expect(IllegalStateException.class);
+        parking.getPools().get(0).getOccupancyHistory();
+    }
+
+}
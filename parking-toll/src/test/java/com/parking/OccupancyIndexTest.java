@@ -0,0 +1,88 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class OccupancyIndexTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 5, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    // 10 slots per level
+    private final Parking<TestVehicle> parking = Parking.<TestVehicle>builder()
+            .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+            .addOccupancyIndex("level", slot -> (slot.getId() - 1) / 10)
+            .addOccupancyIndex("electric", slot -> slot.getVehicle().getVehicleType().isElectric())
+            .addSlots(isGASPredicate, 20)
+            .addSlots(isE20Predicate, 20)
+            .build();
+
+    private List<Long> ids(Stream<Slot<TestVehicle>> slots) {
+        return slots.map(Slot::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void arrivals() {
+        TestVehicle early = getGasVehicle();
+        parking.register(getGasVehicle(), start.plusMinutes(30));
+        parking.register(early, start);
+        parking.register(getE20Vehicle(), start.plusMinutes(30));
+        parking.register(getGasVehicle(), start.plusHours(2));
+        OccupancyIndex<TestVehicle> index = parking.getOccupancyIndex();
+        assertEquals(4, index.size());
+
+        LocalDateTime six = start.plusHours(1);
+        assertEquals(Arrays.asList(2L, 1L, 21L), ids(index.arrivedBefore(six)));
+        assertEquals(Arrays.asList(1L, 21L), ids(index.arrivedBetween(start.plusMinutes(30), start.plusHours(2))));
+
+        parking.checkOut(early, six);
+        assertEquals(Arrays.asList(1L, 21L), ids(index.arrivedBefore(six)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void attributes() {
+        List<TestVehicle> gasVehicles = getGasVehicle(15);
+        gasVehicles.forEach(vehicle -> parking.register(vehicle, start));
+        getE20Vehicle(12).forEach(vehicle -> parking.register(vehicle, start));
+        OccupancyIndex<TestVehicle> index = parking.getOccupancyIndex();
+
+        assertEquals(10, index.find("level", 0L).count());
+        assertEquals(5, index.find("level", 1L).count());
+        assertEquals(Arrays.asList(31L, 32L), ids(index.find("level", 3L)));
+        assertEquals(12, index.find("electric", true).count());
+        // electric vehicles on level 2
+        assertEquals(10, index.find("level", 2L).filter(slot -> slot.getVehicle().getVehicleType().isElectric())
+                .count());
+
+        parking.checkOut(gasVehicles.get(12), start.plusHours(1));
+        assertEquals(4, index.find("level", 1L).count());
+        assertEquals(0, index.find("level", 9L).count());
+    }
+
+    @Test
+    public void unknownIndex() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Index zone is not declared!");
+        parking.getOccupancyIndex().find("zone", 1);
+    }
+
+    @Test
+    public void notIndexed() {
+        expectedException.expect(IllegalStateException.class);
+        Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED).addSlot(isGASPredicate).build()
+                .getOccupancyIndex();
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class OccupancyViewTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private Parking<TestVehicle> parking(int gasSlots, int e20Slots) {
+        return Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .publishOccupancyViews()
+                .addSlots(isGASPredicate, gasSlots)
+                .addSlots(isE20Predicate, e20Slots)
+                .build();
+    }
+
+    @Test
+    public void viewsArePointInTime() {
+        Parking<TestVehicle> parking = parking(1000, 500);
+        OccupancyView<TestVehicle> empty = parking.getOccupancyView();
+        assertEquals(1500, empty.size());
+        assertEquals(0, empty.getOccupiedSlots());
+
+        TestVehicle gasVehicle = getGasVehicle();
+        TestVehicle e20Vehicle = getE20Vehicle();
+        parking.register(gasVehicle, start);
+        parking.register(e20Vehicle, start.plusMinutes(5));
+        OccupancyView<TestVehicle> twoVehicles = parking.getOccupancyView();
+        parking.checkOut(gasVehicle, start.plusHours(1));
+        OccupancyView<TestVehicle> oneVehicle = parking.getOccupancyView();
+
+        assertEquals(0L, empty.getVersion());
+        assertEquals(2L, twoVehicles.getVersion());
+        assertEquals(3L, oneVehicle.getVersion());
+
+        assertNull(empty.get(0).getVehicle());
+        assertEquals(gasVehicle, twoVehicles.get(0).getVehicle());
+        assertEquals(start, twoVehicles.get(0).getArrivalDateTime());
+        assertEquals(e20Vehicle, twoVehicles.get(1000).getVehicle());
+        assertEquals(2, twoVehicles.getOccupiedSlots());
+        assertNull(oneVehicle.get(0).getVehicle());
+        assertEquals(e20Vehicle, oneVehicle.get(1000).getVehicle());
+        assertEquals(1, oneVehicle.getOccupiedSlots());
+
+        assertEquals(Long.valueOf(1001), oneVehicle.get(1000).getId());
+        assertEquals(1500, oneVehicle.stream().count());
+        List<Slot<TestVehicle>> occupied = twoVehicles.occupiedSlots().collect(Collectors.toList());
+        assertEquals(2, occupied.size());
+        assertEquals(gasVehicle, occupied.get(0).getVehicle());
+        AtomicInteger visited = new AtomicInteger();
+        oneVehicle.forEach(slot -> visited.incrementAndGet());
+        assertEquals(1500, visited.get());
+    }
+
+    @Test
+    public void smallParking() {
+        Parking<TestVehicle> parking = parking(1, 0);
+        parking.register(getGasVehicle(), start);
+        assertEquals(1, parking.getOccupancyView().getOccupiedSlots());
+        assertFalse(parking.getOccupancyView().get(0).isFree());
+    }
+
+    @Test
+    public void consistentWhileGatesRun() throws InterruptedException {
+        Parking<TestVehicle> parking = parking(100, 0);
+        List<TestVehicle> vehicles = getGasVehicle(50);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread gate = new Thread(() -> {
+            while (running.get()) {
+                vehicles.forEach(vehicle -> parking.register(vehicle, start));
+                vehicles.forEach(vehicle -> parking.checkOut(vehicle, start));
+            }
+        });
+        gate.start();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                OccupancyView<TestVehicle> view = parking.getOccupancyView();
+                assertEquals(view.getOccupiedSlots(), view.occupiedSlots().count());
+                // vehicles are registered then checked out in order, so the occupied slots are contiguous
+                long[] ids = view.occupiedSlots().mapToLong(Slot::getId).toArray();
+                if (ids.length > 0) {
+                    assertEquals(ids.length - 1, ids[ids.length - 1] - ids[0]);
+                }
+            }
+        } finally {
+            running.set(false);
+            gate.join();
+        }
+    }
+
+    @Test
+    public void notPublished() {
+        expectedException.expect(IllegalStateException.class);
+        Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED).addSlot(isOther).build()
+                .getOccupancyView();
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.parking.exception.ParkingException;
+
+public class OffHeapOccupancyTest extends TollPakingTestTool {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private Parking<TestVehicle> parking;
+
+    private LocalDateTime now;
+
+    @Before
+    public void init() {
+        parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .useOffHeapOccupancy(TestVehicle::getId)
+                .addSlots(isE20Predicate, 10)
+                .addSlots(isGASPredicate, 30)
+                .build();
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    public void registerAndCheckOut() {
+        TestVehicle gasVehicle = getGasVehicle();
+        LocalDateTime arrival = now.minus(Duration.ofHours(2));
+        Registration<TestVehicle> registration = parking.register(gasVehicle, arrival);
+        assertTrue(registration.isSuccessful());
+        assertEquals(Long.valueOf(11), registration.getSlot().getId());
+        assertEquals(29, parking.getAvailableCapacity(gasVehicle));
+
+        Bill<TestVehicle> bill = parking.checkOut(gasVehicle, now);
+        assertEquals(gasVehicle, bill.getSlot().getVehicle());
+        assertEquals(arrival, bill.getSlot().getArrivalDateTime());
+        assertEquals(now, bill.getSlot().getDepartureDateTime());
+        // 2 hours * 3 + 1(for fixed rate) = 7
+        assertPriceEquals(new BigDecimal(7), bill.getPrice());
+        assertEquals(40, parking.getAvailableCapacity());
+    }
+
+    @Test
+    public void fillAndEmpty() {
+        List<TestVehicle> vehicles = getGasVehicle(30);
+        vehicles.forEach(vehicle -> assertTrue(parking.register(vehicle, now).isSuccessful()));
+        assertFalse(parking.register(getGasVehicle(), now).isSuccessful());
+        assertEquals(10, parking.getAvailableCapacity());
+
+        // leave in a different order than the arrival to exercise the key table deletions
+        for (int i = 0; i < vehicles.size(); i += 2) {
+            parking.checkOut(vehicles.get(i), now);
+        }
+        for (int i = 1; i < vehicles.size(); i += 2) {
+            assertEquals(vehicles.get(i), parking.checkOut(vehicles.get(i), now).getSlot().getVehicle());
+        }
+        assertEquals(40, parking.getAvailableCapacity());
+    }
+
+    @Test
+    public void vehicleRegisteredTwice() {
+        TestVehicle e20Vehicle = getE20Vehicle();
+        parking.register(e20Vehicle, now);
+        expectedException.expect(ParkingException.class);
+        parking.register(e20Vehicle, now);
+    }
+
+    @Test
+    public void rejectedVehicleLeavesTheParkingAsItWas() {
+        Parking<TestVehicle> parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .useOffHeapOccupancy(TestVehicle::getId)
+                .publishAvailability(Duration.ofHours(1))
+                .addSlots(isGASPredicate, 4)
+                .build();
+        GateSlotCache<TestVehicle> gate = parking.newGateSlotCache(2);
+        TestVehicle gasVehicle = getGasVehicle();
+        gate.register(gasVehicle, now);
+        try {
+            gate.register(gasVehicle, now);
+            fail();
+        } catch (ParkingException e) {
+            assertEquals(3, parking.getAvailableCapacity());
+            assertEquals(3, parking.getPools().get(0).getAvailableCapacity());
+            assertEquals(3, parking.getAvailabilityFeed().getAvailable(0));
+        }
+        assertEquals(Long.valueOf(2), parking.register(getGasVehicle(), now).getSlot().getId());
+    }
+
+    @Test
+    public void tableSize() {
+        assertEquals(4, OffHeapOccupancy.tableSize(0));
+        assertEquals(128, OffHeapOccupancy.tableSize(40));
+        assertEquals(1 << 30, OffHeapOccupancy.tableSize((1 << 29) - 1));
+        expectedException.expect(ParkingException.class);
+        expectedException.expectMessage("The off-heap occupancy holds at most 536870911 slots!");
+        OffHeapOccupancy.tableSize(1 << 29);
+    }
+
+    @Test
+    public void vehicleNotFound() {
+        expectedException.expect(ParkingException.class);
+        parking.checkOut(getGasVehicle(), now);
+    }
+
+    @Test
+    public void invalidDepartureDate() {
+        TestVehicle gasVehicle = getGasVehicle();
+        parking.register(gasVehicle, now);
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("departureDateTime should be after arrivalDateTime!");
+        parking.checkOut(gasVehicle, now.minus(Duration.ofHours(1)));
+    }
+
+}
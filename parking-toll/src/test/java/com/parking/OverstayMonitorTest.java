@@ -0,0 +1,73 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class OverstayMonitorTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    private final List<Slot<TestVehicle>> overstays = new ArrayList<>();
+
+    private OverstayMonitor<TestVehicle> monitor;
+
+    private Parking<TestVehicle> parking;
+
+    @Before
+    public void init() {
+        // electric vehicles can stay 2 hours, gas vehicles 4 hours
+        monitor = new OverstayMonitor<>(
+                vehicle -> vehicle.getVehicleType() == VehicleType.GASOLINE ? Duration.ofHours(4) : Duration.ofHours(2),
+                Duration.ofMinutes(1), overstays::add);
+        parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addListener(monitor)
+                .addSlots(isE20Predicate, 5)
+                .addSlots(isGASPredicate, 5)
+                .build();
+    }
+
+    @Test
+    public void overstay() {
+        TestVehicle e20Vehicle = getE20Vehicle();
+        TestVehicle gasVehicle = getGasVehicle();
+        TestVehicle leavingVehicle = getGasVehicle();
+        parking.register(e20Vehicle, start);
+        parking.register(gasVehicle, start.plusMinutes(30));
+        parking.register(leavingVehicle, start);
+        assertEquals(3, monitor.getMonitoredVehicles());
+
+        monitor.advanceTo(start.plusMinutes(119));
+        assertEquals(0, overstays.size());
+        monitor.advanceTo(start.plusHours(2));
+        assertEquals(1, overstays.size());
+        assertEquals(e20Vehicle, overstays.get(0).getVehicle());
+
+        parking.checkOut(leavingVehicle, start.plusHours(3));
+        monitor.advanceTo(start.plusHours(5));
+        assertEquals(2, overstays.size());
+        assertEquals(gasVehicle, overstays.get(1).getVehicle());
+        assertEquals(0, monitor.getMonitoredVehicles());
+    }
+
+    @Test
+    public void slotReused() {
+        TestVehicle first = getE20Vehicle();
+        parking.register(first, start);
+        parking.checkOut(first, start.plusHours(1));
+        TestVehicle second = getE20Vehicle();
+        parking.register(second, start.plusHours(1));
+
+        monitor.advanceTo(start.plusHours(2).plusMinutes(30));
+        assertEquals(0, overstays.size());
+        monitor.advanceTo(start.plusHours(3));
+        assertEquals(second, overstays.get(0).getVehicle());
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class ParkingEventsTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    private final Parking<TestVehicle> parking = Parking.<TestVehicle>builder()
+            .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+            .addSlots(isGASPredicate, 2)
+            .addSlots(isE20Predicate, 1)
+            .build();
+
+    private List<RecordedEvent> record(Duration threshold, Runnable operations) throws IOException {
+        Path file = Files.createTempFile("parking", ".jfr");
+        try (Recording recording = ParkingEvents.enable(new Recording(), threshold)) {
+            recording.start();
+            operations.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().startsWith("com.parking."))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void operations() throws IOException {
+        TestVehicle e20Vehicle = getE20Vehicle();
+        List<RecordedEvent> events = record(Duration.ZERO, () -> {
+            parking.register(e20Vehicle, start);
+            parking.register(getE20Vehicle(), start);
+            parking.checkOut(e20Vehicle, start.plusHours(1));
+        });
+
+        List<RecordedEvent> registrations = events(events, ParkingEvents.REGISTER);
+        assertEquals(2, registrations.size());
+        assertTrue(registrations.get(0).getBoolean("successful"));
+        assertEquals(3L, registrations.get(0).getLong("slotId"));
+        assertEquals(1, registrations.get(0).getInt("poolsSearched"));
+        assertEquals(2, registrations.get(0).getInt("predicatesEvaluated"));
+        assertFalse(registrations.get(1).getBoolean("successful"));
+
+        List<RecordedEvent> checkOuts = events(events, ParkingEvents.CHECK_OUT);
+        assertEquals(1, checkOuts.size());
+        assertEquals(3L, checkOuts.get(0).getLong("slotId"));
+        List<RecordedEvent> pricings = events(events, ParkingEvents.PRICING);
+        assertEquals(1, pricings.size());
+        assertEquals("4", pricings.get(0).getString("price"));
+        assertEquals(Duration.ofHours(1), pricings.get(0).getDuration("stay"));
+    }
+
+    @Test
+    public void disabledByDefault() throws IOException {
+        Path file = Files.createTempFile("parking", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.start();
+            TestVehicle vehicle = getGasVehicle();
+            parking.register(vehicle, start);
+            parking.checkOut(vehicle, start.plusHours(1));
+            recording.stop();
+            recording.dump(file);
+            assertTrue(RecordingFile.readAllEvents(file).stream()
+                    .noneMatch(event -> event.getEventType().getName().startsWith("com.parking.")));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void threshold() throws IOException {
+        List<RecordedEvent> events = record(Duration.ofHours(1), () -> parking.register(getGasVehicle(), start));
+        assertTrue(events.isEmpty());
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.parking.exception.ParkingException;
+
+public class ParkingLayoutTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final ParkingLayout<TestVehicle> layout = Parking.<TestVehicle>builder()
+            .addSlots(isGASPredicate, 3)
+            .addSlot(100L, isE20Predicate)
+            .addSlots(isE50Predicate, 2)
+            .buildLayout();
+
+    @Test
+    public void layout() {
+        assertEquals(6, layout.getCapacity());
+        assertEquals(3, layout.getPoolCount());
+    }
+
+    @Test
+    public void sharedLayout() {
+        List<Parking<TestVehicle>> lots = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lots.add(Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED).build());
+        }
+        Parking<TestVehicle> first = lots.get(0);
+        Parking<TestVehicle> second = lots.get(1);
+        assertSame(layout, first.getLayout());
+        assertSame(layout, second.getLayout());
+
+        TestVehicle e20Vehicle = getE20Vehicle();
+        Registration<TestVehicle> registration = first.register(e20Vehicle, start);
+        assertEquals(Long.valueOf(100), registration.getSlot().getId());
+        assertEquals(5, first.getAvailableCapacity());
+        assertEquals(6, second.getAvailableCapacity());
+
+        // the same vehicle can be in two lots
+        first.register(getGasVehicle(), start);
+        second.register(e20Vehicle, start);
+        assertEquals(0, second.getAvailableCapacity(e20Vehicle));
+        assertPriceEquals(money(4), first.checkOut(e20Vehicle, start.plusHours(1)).getPrice());
+        assertEquals(1, first.getAvailableCapacity(e20Vehicle));
+        assertEquals(0, second.getAvailableCapacity(e20Vehicle));
+        assertEquals(3, first.getPools().size());
+        assertTrue(lots.stream().skip(2).allMatch(lot -> lot.getAvailableCapacity() == 6));
+    }
+
+    @Test
+    public void ranges() {
+        ParkingLayout<TestVehicle> ranges = Parking.<TestVehicle>builder()
+                .addSlots(isGASPredicate, 10)
+                .addSlot(11L, isE20Predicate)
+                .addSlots(1000L, isE50Predicate, 5)
+                .buildLayout();
+        assertEquals(16, ranges.getCapacity());
+        assertEquals(2, ranges.getRangeCount());
+        assertEquals(3, ranges.getPoolCount());
+
+        Parking<TestVehicle> parking = Parking.builder(ranges).setPricingPolicy(THREE_HOURLY_AND_FIXED).build();
+        assertEquals(Long.valueOf(11), parking.register(getE20Vehicle(), start).getSlot().getId());
+        assertEquals(Long.valueOf(1000), parking.register(getE50Vehicle(), start).getSlot().getId());
+        assertEquals(Long.valueOf(1001), parking.register(getE50Vehicle(), start).getSlot().getId());
+    }
+
+    @Test(timeout = 5000)
+    public void hugeLayout() {
+        Parking<TestVehicle> parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .publishOccupancyViews()
+                .addSlots(isGASPredicate, 50_000_000)
+                .addSlots(isE20Predicate, 50_000_000)
+                .build();
+        assertEquals(100_000_000, parking.getAvailableCapacity());
+        assertEquals(1, parking.getLayout().getRangeCount());
+
+        List<TestVehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            TestVehicle gasVehicle = getGasVehicle();
+            vehicles.add(gasVehicle);
+            assertEquals(Long.valueOf(i + 1), parking.register(gasVehicle, start).getSlot().getId());
+        }
+        TestVehicle e20Vehicle = getE20Vehicle();
+        assertEquals(Long.valueOf(50_000_001), parking.register(e20Vehicle, start).getSlot().getId());
+        assertEquals(10_001, parking.getOccupancyView().getOccupiedSlots());
+        assertEquals(e20Vehicle, parking.getOccupancyView().get(50_000_000).getVehicle());
+
+        // the freed slot is the first one given again
+        parking.checkOut(vehicles.get(5000), start.plusHours(1));
+        assertEquals(Long.valueOf(5001), parking.register(getGasVehicle(), start).getSlot().getId());
+        assertEquals(Long.valueOf(10_001), parking.register(getGasVehicle(), start).getSlot().getId());
+        assertPriceEquals(money(4), parking.checkOut(e20Vehicle, start.plusHours(1)).getPrice());
+        assertEquals(100_000_000 - 10_001, parking.getAvailableCapacity());
+    }
+
+    @Test
+    public void slotsOfTheLayoutOnly() {
+        expectedException.expect(IllegalStateException.class);
+        Parking.builder(layout).addSlot(isOther);
+    }
+
+    @Test
+    public void emptyLayout() {
+        expectedException.expect(ParkingException.class);
+        expectedException.expectMessage("The paking should contain at least one slot!");
+        Parking.<TestVehicle>builder().buildLayout();
+    }
+
+}
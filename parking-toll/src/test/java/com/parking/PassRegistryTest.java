@@ -0,0 +1,108 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class PassRegistryTest extends TollPakingTestTool {
+
+    private static final int MONTHLY = 0;
+    private static final int STAFF = 1;
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    private final PassRegistry<TestVehicle> passes = new PassRegistry<>(TestVehicle::getId);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void lookups() {
+        PassRegistry.Loader loader = PassRegistry.loader();
+        for (long plate = 1; plate <= 100_000; plate++) {
+            loader.add(plate * 3, plate % 10 == 0 ? STAFF : MONTHLY);
+        }
+        // duplicated pass keeps the lowest plan
+        loader.add(30, MONTHLY);
+        passes.reload(loader);
+
+        assertEquals(100_000, passes.size());
+        assertEquals(MONTHLY, passes.planOf(3));
+        assertEquals(MONTHLY, passes.planOf(30));
+        assertEquals(STAFF, passes.planOf(60));
+        assertEquals(PassRegistry.NO_PASS, passes.planOf(4));
+        assertEquals(PassRegistry.NO_PASS, passes.planOf(300_003));
+        for (long plate = 1; plate <= 300_000; plate++) {
+            assertEquals(plate % 3 == 0, passes.planOf(plate) != PassRegistry.NO_PASS);
+        }
+    }
+
+    @Test
+    public void subscriberPricing() {
+        TestVehicle subscriber = getGasVehicle();
+        TestVehicle staff = getGasVehicle();
+        TestVehicle visitor = getGasVehicle();
+        passes.reload(PassRegistry.loader().add(subscriber.getId(), MONTHLY).add(staff.getId(), STAFF));
+
+        Parking<TestVehicle> parking = Parking.<TestVehicle>builder()
+                .setPricingPolicy(passes.pricing(THREE_HOURLY_AND_FIXED, plan -> plan == MONTHLY
+                        ? PricingPolicy.HOURLY(ONE) : plan == STAFF ? PricingPolicy.FIXED(money(0)) : null))
+                .addSlot(passes.holders(STAFF))
+                .addSlots(isGASPredicate, 2)
+                .build();
+        parking.register(staff, start);
+        parking.register(subscriber, start);
+        parking.register(visitor, start);
+        assertEquals(Long.valueOf(1), parking.checkOut(staff, start.plusHours(2)).getSlot().getId());
+        assertPriceEquals(money(2), parking.checkOut(subscriber, start.plusHours(2)).getPrice());
+        assertPriceEquals(money(7), parking.checkOut(visitor, start.plusHours(2)).getPrice());
+    }
+
+    @Test
+    public void holders() {
+        TestVehicle subscriber = getGasVehicle();
+        passes.reload(PassRegistry.loader().add(subscriber.getId(), MONTHLY));
+        assertTrue(passes.holders().test(subscriber));
+        assertTrue(passes.holders(MONTHLY).test(subscriber));
+        assertFalse(passes.holders(STAFF).test(subscriber));
+        assertFalse(passes.holders().test(getGasVehicle()));
+    }
+
+    @Test
+    public void reloadWhileLookingUp() throws InterruptedException {
+        passes.reload(PassRegistry.loader().add(1, MONTHLY).add(2, MONTHLY));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger inconsistencies = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                // plate 1 has a pass in every load
+                if (passes.planOf(1) == PassRegistry.NO_PASS) {
+                    inconsistencies.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 1000; i++) {
+            passes.reload(PassRegistry.loader().add(1, i % 2).add(2, i % 2).add(i + 3, MONTHLY));
+        }
+        running.set(false);
+        reader.join();
+        assertEquals(0, inconsistencies.get());
+        assertEquals(3, passes.size());
+    }
+
+    @Test
+    public void invalidPlan() {
+        expectedException.expect(IllegalArgumentException.class);
+        PassRegistry.loader().add(1, PassRegistry.MAX_PLAN + 1);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class PlateKeyTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void encode() {
+        assertEquals(PlateKey.encode("AB-123-CD"), PlateKey.encode("ab 123 cd"));
+        assertNotEquals(PlateKey.encode("AB-123-CD"), PlateKey.encode("AB-123-CE"));
+        assertNotEquals(PlateKey.encode("A1"), PlateKey.encode("1A"));
+        assertEquals("AB123CD", PlateKey.decode(PlateKey.encode("AB-123-CD")));
+        assertEquals("ZZZZZZZZZZZZ", PlateKey.decode(PlateKey.encode("zzzzzzzzzzzz")));
+        assertEquals("", PlateKey.decode(PlateKey.encode("--")));
+    }
+
+    @Test
+    public void encodeBuffer() {
+        ByteBuffer buffer = ByteBuffer.wrap("x,AB-123-CD,y".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(PlateKey.encode("AB123CD"), PlateKey.encode(buffer, 2, 11));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void tooLong() {
+        expectedException.expect(IllegalArgumentException.class);
+        PlateKey.encode("ABCDEFGHIJKLM");
+    }
+
+}
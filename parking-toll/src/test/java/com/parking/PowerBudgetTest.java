@@ -0,0 +1,104 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.function.Predicate;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class PowerBudgetTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    // 50kw vehicles can charge at 20kw or park without charging
+    private final Predicate<TestVehicle> fastCharger = isE50Predicate;
+    private final Predicate<TestVehicle> slowCharger = isE50Predicate.or(isE20Predicate);
+    private final Predicate<TestVehicle> regular = isE50Predicate.or(isE20Predicate).or(isGASPredicate);
+
+    private Builder<TestVehicle> builder() {
+        return Parking.<TestVehicle>builder()
+                .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addSlots(fastCharger, 4)
+                .addSlots(slowCharger, 4)
+                .addSlots(regular, 4)
+                .setChargingPower(fastCharger, 50)
+                .setChargingPower(slowCharger, 20)
+                .addPowerBudget("site", 140)
+                .addPowerBudget("fast", 100, Collections.singletonList(fastCharger));
+    }
+
+    @Test
+    public void budgets() {
+        Parking<TestVehicle> parking = builder().build();
+        TestVehicle first = getE50Vehicle();
+        assertEquals(Long.valueOf(1), parking.register(first, start).getSlot().getId());
+        assertEquals(Long.valueOf(2), parking.register(getE50Vehicle(), start).getSlot().getId());
+        assertEquals(100, parking.getUsedPower("fast"));
+        // the fast chargers zone is full
+        assertFalse(parking.register(getE50Vehicle(), start).isSuccessful());
+        assertEquals(Long.valueOf(5), parking.register(getE20Vehicle(), start).getSlot().getId());
+        assertEquals(Long.valueOf(6), parking.register(getE20Vehicle(), start).getSlot().getId());
+        assertEquals(140, parking.getUsedPower("site"));
+        // the site is full
+        assertFalse(parking.register(getE20Vehicle(), start).isSuccessful());
+        assertEquals(Long.valueOf(9), parking.register(getGasVehicle(), start).getSlot().getId());
+
+        parking.checkOut(first, start.plusHours(1));
+        assertEquals(90, parking.getUsedPower("site"));
+        assertEquals(Long.valueOf(1), parking.register(getE50Vehicle(), start).getSlot().getId());
+        assertEquals(140, parking.getPowerBudget("site"));
+    }
+
+    @Test
+    public void fallback() {
+        Parking<TestVehicle> parking = builder().allowPowerFallback().build();
+        parking.register(getE50Vehicle(), start);
+        parking.register(getE50Vehicle(), start);
+        assertEquals(Long.valueOf(5), parking.register(getE50Vehicle(), start).getSlot().getId());
+        assertEquals(Long.valueOf(6), parking.register(getE50Vehicle(), start).getSlot().getId());
+        // no power left on the site: parked without charging
+        assertEquals(Long.valueOf(9), parking.register(getE50Vehicle(), start).getSlot().getId());
+        assertEquals(Long.valueOf(10), parking.register(getE20Vehicle(), start).getSlot().getId());
+        assertEquals(140, parking.getUsedPower("site"));
+    }
+
+    @Test
+    public void expectedFreeIn() {
+        Parking<TestVehicle> parking = builder().estimateStays().build();
+        TestVehicle vehicle = getE50Vehicle();
+        parking.register(vehicle, start);
+        parking.checkOut(vehicle, start.plusHours(1));
+        LocalDateTime arrival = start.plusDays(1);
+        parking.register(getE50Vehicle(), arrival);
+        parking.register(getE50Vehicle(), arrival);
+        // free fast chargers, but no power left for them
+        assertEquals(2, parking.getPools().get(0).getAvailableCapacity());
+        assertEquals(1800, parking.expectedFreeIn(getE50Vehicle(), arrival.plusMinutes(30)).getSeconds(), 2);
+        assertEquals(Duration.ZERO, parking.expectedFreeIn(getE20Vehicle(), arrival.plusMinutes(30)));
+    }
+
+    @Test
+    public void expectedFreeInWithFallback() {
+        Parking<TestVehicle> parking = builder().allowPowerFallback().estimateStays().build();
+        parking.register(getE50Vehicle(), start);
+        parking.register(getE50Vehicle(), start);
+        assertEquals(Duration.ZERO, parking.expectedFreeIn(getE50Vehicle(), start));
+    }
+
+    @Test
+    public void unknownZone() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Zone level-3 has no power budget!");
+        builder().build().getUsedPower("level-3");
+    }
+
+}
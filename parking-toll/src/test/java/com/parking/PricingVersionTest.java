@@ -0,0 +1,94 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class PricingVersionTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    private final PricingPolicy<TestVehicle> tenFixed = PricingPolicy.FIXED(money(10));
+
+    private Builder<TestVehicle> builder() {
+        return Parking.<TestVehicle>builder()
+                .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addSlots(isGASPredicate, 4);
+    }
+
+    @Test
+    public void priceAtDeparture() {
+        Parking<TestVehicle> parking = builder().build();
+        TestVehicle vehicle = getGasVehicle();
+        Registration<TestVehicle> registration = parking.register(vehicle, start);
+        assertEquals(1, registration.getPricingVersion().getVersion());
+
+        PricingVersion<TestVehicle> version = parking.updatePricingPolicy(tenFixed);
+        assertEquals(2, version.getVersion());
+        assertEquals(version, parking.getPricingVersion());
+        assertPriceEquals(money(10), parking.quote(vehicle, start.plusHours(1)));
+        Bill<TestVehicle> bill = parking.checkOut(vehicle, start.plusHours(1));
+        assertPriceEquals(money(10), bill.getPrice());
+        assertEquals(version, bill.getPricingVersion());
+    }
+
+    @Test
+    public void priceAtArrival() {
+        Parking<TestVehicle> parking = builder().priceWithArrivalPolicy().build();
+        TestVehicle before = getGasVehicle();
+        parking.register(before, start);
+        parking.updatePricingPolicy(tenFixed);
+        TestVehicle after = getGasVehicle();
+        assertEquals(2, parking.register(after, start).getPricingVersion().getVersion());
+
+        Bill<TestVehicle> bill = parking.checkOut(before, start.plusHours(1));
+        assertPriceEquals(money(4), bill.getPrice());
+        assertEquals(1, bill.getPricingVersion().getVersion());
+        assertPriceEquals(money(10), parking.checkOut(after, start.plusHours(1)).getPrice());
+
+        // the slot of the first vehicle is priced with the version of its next stay
+        TestVehicle next = getGasVehicle();
+        parking.register(next, start);
+        assertPriceEquals(money(10), parking.checkOut(next, start.plusHours(1)).getPrice());
+    }
+
+    @Test(timeout = 10_000)
+    public void swapWithoutTheParkingLock() throws InterruptedException {
+        List<Long> notified = new CopyOnWriteArrayList<>();
+        Parking<TestVehicle> parking = builder().addListener(new ParkingListener<TestVehicle>() {
+
+            @Override
+            public void pricingUpdated(PricingVersion<TestVehicle> version) {
+                notified.add(version.getVersion());
+            }
+        }).build();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch swapped = new CountDownLatch(1);
+        Thread gate = new Thread(() -> {
+            synchronized (parking) {
+                locked.countDown();
+                try {
+                    swapped.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        gate.start();
+        locked.await();
+        // the parking is locked by a gate during the swap and its notification
+        assertEquals(2, parking.updatePricingPolicy(tenFixed).getVersion());
+        assertEquals(Arrays.asList(2L), notified);
+        swapped.countDown();
+        gate.join(TimeUnit.SECONDS.toMillis(5));
+        assertEquals(2, parking.register(getGasVehicle(), start).getPricingVersion().getVersion());
+    }
+
+}
@@ -0,0 +1,298 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ReplicationTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final ParkingLayout<TestVehicle> layout = Parking.<TestVehicle>builder()
+            .addSlots(isGASPredicate, 100)
+            .addSlots(1000L, isE20Predicate, 50)
+            .buildLayout();
+
+    private final VehicleCodec<TestVehicle> codec = new VehicleCodec<TestVehicle>() {
+
+        @Override
+        public TestVehicle create(long plateKey, long vehicleClassKey) {
+            return new TestVehicle(VehicleType.values()[(int) vehicleClassKey]);
+        }
+
+        @Override
+        public long plateKeyOf(TestVehicle vehicle) {
+            return vehicle.getId();
+        }
+
+        @Override
+        public long vehicleClassKeyOf(TestVehicle vehicle) {
+            return vehicle.getVehicleType().ordinal();
+        }
+    };
+
+    private ParkingBackup<TestVehicle> backup() {
+        return new ParkingBackup<>(Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED).build(), codec);
+    }
+
+    @Test
+    public void promotion() throws InterruptedException {
+        ParkingBackup<TestVehicle> first = backup();
+        ParkingBackup<TestVehicle> second = backup();
+        ReplicationPrimary<TestVehicle> replication = new ReplicationPrimary<>(layout, codec).setBatchSize(16)
+                .setMaxInFlight(64)
+                .addBackup(new LoopbackTransport(first))
+                .addBackup(new LoopbackTransport(second));
+        Parking<TestVehicle> primary = Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addListener(replication).build();
+
+        List<TestVehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            TestVehicle vehicle = i % 3 == 0 ? getE20Vehicle() : getGasVehicle();
+            if (primary.register(vehicle, start.plusMinutes(i)).isSuccessful()) {
+                vehicles.add(vehicle);
+            }
+            if (i % 2 == 0) {
+                primary.checkOut(vehicles.remove(0), start.plusMinutes(i + 1));
+            }
+        }
+        assertTrue(replication.awaitAcknowledged(Duration.ofSeconds(10)));
+        assertEquals(replication.getSequence(), replication.getAcknowledged());
+        assertEquals(replication.getSequence(), second.getApplied());
+
+        Parking<TestVehicle> promoted = first.promote();
+        assertEquals(primary.getAvailableCapacity(), promoted.getAvailableCapacity());
+        assertEquals(primary.getAvailableCapacity(getE20Vehicle()), promoted.getAvailableCapacity(getE20Vehicle()));
+        Map<Integer, TestVehicle> promotedVehicles = first.getVehicles();
+        assertEquals(vehicles.size(), promotedVehicles.size());
+        for (TestVehicle vehicle : vehicles) {
+            LocalDateTime departure = start.plusDays(1);
+            Bill<TestVehicle> bill = primary.checkOut(vehicle, departure);
+            TestVehicle copy = promotedVehicles.get(layout.indexOf(bill.getSlot().getId()));
+            Bill<TestVehicle> promotedBill = promoted.checkOut(copy, departure);
+            assertEquals(bill.getSlot().getId(), promotedBill.getSlot().getId());
+            assertEquals(bill.getSlot().getArrivalDateTime(), promotedBill.getSlot().getArrivalDateTime());
+            assertPriceEquals(bill.getPrice(), promotedBill.getPrice());
+        }
+        replication.close();
+    }
+
+    @Test
+    public void samePlates() throws InterruptedException {
+        VehicleCodec<TestVehicle> samePlate = new VehicleCodec<TestVehicle>() {
+
+            @Override
+            public TestVehicle create(long plateKey, long vehicleClassKey) {
+                return codec.create(plateKey, vehicleClassKey);
+            }
+
+            @Override
+            public long plateKeyOf(TestVehicle vehicle) {
+                return 42L;
+            }
+
+            @Override
+            public long vehicleClassKeyOf(TestVehicle vehicle) {
+                return codec.vehicleClassKeyOf(vehicle);
+            }
+        };
+        ParkingBackup<TestVehicle> backup = new ParkingBackup<>(
+                Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED).build(), samePlate);
+        ReplicationPrimary<TestVehicle> replication = new ReplicationPrimary<>(layout, samePlate)
+                .addBackup(new LoopbackTransport(backup));
+        Parking<TestVehicle> primary = Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addListener(replication).build();
+        List<TestVehicle> vehicles = getGasVehicle(3);
+        vehicles.forEach(vehicle -> primary.register(vehicle, start));
+        primary.checkOut(vehicles.get(1), start.plusHours(1));
+        assertTrue(replication.awaitAcknowledged(Duration.ofSeconds(10)));
+
+        // the vehicles in the slots next to each other are not mixed up
+        Map<Integer, TestVehicle> promotedVehicles = backup.getVehicles();
+        assertEquals(Arrays.asList(0, 2), new ArrayList<>(promotedVehicles.keySet()));
+        Parking<TestVehicle> promoted = backup.promote();
+        assertEquals(Long.valueOf(3), promoted.checkOut(promotedVehicles.get(2), start.plusHours(2)).getSlot().getId());
+        assertEquals(Long.valueOf(1), promoted.checkOut(promotedVehicles.get(0), start.plusHours(2)).getSlot().getId());
+        assertEquals(promoted.getCapacity(), promoted.getAvailableCapacity());
+        replication.close();
+    }
+
+    @Test
+    public void synchronousReplication() throws InterruptedException {
+        ParkingBackup<TestVehicle> backup = backup();
+        ReplicationPrimary<TestVehicle> replication = new ReplicationPrimary<>(layout, codec)
+                .setSynchronous(Duration.ofSeconds(10))
+                .addBackup(new LoopbackTransport(backup));
+        Parking<TestVehicle> primary = Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addListener(replication).build();
+        TestVehicle vehicle = getE20Vehicle();
+        primary.register(vehicle, start);
+        // acknowledged before the end of the registration
+        assertEquals(1L, backup.getApplied());
+        assertEquals(49, backup.promote().getAvailableCapacity(vehicle));
+        replication.close();
+    }
+
+    @Test
+    public void failedBackup() throws InterruptedException {
+        ParkingBackup<TestVehicle> backup = backup();
+        ReplicationPrimary<TestVehicle> replication = new ReplicationPrimary<>(layout, codec)
+                .setSynchronous(Duration.ofMillis(50))
+                .addBackup(new LoopbackTransport(backup))
+                .addBackup(new ReplicationTransport() {
+
+                    @Override
+                    public void setAcknowledgementListener(LongConsumer acknowledgements) {
+                    }
+
+                    @Override
+                    public void send(ByteBuffer batch) {
+                    }
+                });
+        Parking<TestVehicle> primary = Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addListener(replication).build();
+        primary.register(getGasVehicle(), start);
+        assertEquals(1, replication.getLiveBackups());
+        primary.register(getGasVehicle(), start);
+        assertEquals(2L, backup.getApplied());
+        replication.close();
+    }
+
+    @Test
+    public void missingEvents() {
+        ParkingBackup<TestVehicle> backup = backup();
+        ByteBuffer batch = ByteBuffer.allocate(ReplicationBatch.HEADER);
+        batch.putLong(3L).putInt(0).flip();
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Events 1 to 2 are missing!");
+        backup.apply(batch);
+    }
+
+    @Test
+    public void backupsBeforeOperations() {
+        ReplicationPrimary<TestVehicle> replication = new ReplicationPrimary<>(layout, codec)
+                .addBackup(new LoopbackTransport(backup()));
+        Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED).addListener(replication).build()
+                .register(getGasVehicle(), start);
+        assertFalse(replication.getSequence() == 0L);
+        expectedException.expect(IllegalStateException.class);
+        replication.addBackup(new LoopbackTransport(backup()));
+    }
+
+    @Test
+    public void pricingVersions() throws InterruptedException {
+        PricingPolicy<TestVehicle> fixed = PricingPolicy.FIXED(money(5));
+        ParkingBackup<TestVehicle> backup = new ParkingBackup<>(Parking.builder(layout)
+                .setPricingPolicy(THREE_HOURLY_AND_FIXED).priceWithArrivalPolicy().build(), codec,
+                version -> version == 2L ? fixed : null);
+        ReplicationPrimary<TestVehicle> replication = new ReplicationPrimary<>(layout, codec)
+                .addBackup(new LoopbackTransport(backup));
+        Parking<TestVehicle> primary = Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .priceWithArrivalPolicy().addListener(replication).build();
+        TestVehicle before = getGasVehicle();
+        primary.register(before, start);
+        primary.updatePricingPolicy(fixed);
+        TestVehicle after = getGasVehicle();
+        primary.register(after, start);
+        assertTrue(replication.awaitAcknowledged(Duration.ofSeconds(10)));
+
+        Parking<TestVehicle> promoted = backup.promote();
+        assertEquals(2L, promoted.getPricingVersion().getVersion());
+        Map<Integer, TestVehicle> vehicles = backup.getVehicles();
+        LocalDateTime departure = start.plusHours(2);
+        // 3 per hour plus 1 for the vehicle arrived before the update, 5 for the other
+        assertPriceEquals(money(7), promoted.checkOut(vehicles.get(0), departure).getPrice());
+        assertPriceEquals(money(5), promoted.checkOut(vehicles.get(1), departure).getPrice());
+        assertPriceEquals(primary.checkOut(before, departure).getPrice(), money(7));
+        replication.close();
+    }
+
+    @Test
+    public void unknownPricingVersion() {
+        ParkingBackup<TestVehicle> backup = backup();
+        ByteBuffer batch = ByteBuffer.allocate(ReplicationBatch.HEADER + ReplicationBatch.EVENT);
+        batch.putLong(1L).putInt(1);
+        ReplicationBatch.writeEvent(batch, ReplicationBatch.PRICING, -1, -1, 0L, 0L, 2L, start);
+        batch.flip();
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("The policy of the pricing version 2 is unknown!");
+        backup.apply(batch);
+    }
+
+    @Test
+    public void releaseOfFreeSlot() {
+        ParkingBackup<TestVehicle> backup = backup();
+        ByteBuffer batch = ByteBuffer.allocate(ReplicationBatch.HEADER + ReplicationBatch.EVENT);
+        batch.putLong(1L).putInt(1);
+        ReplicationBatch.writeEvent(batch, ReplicationBatch.RELEASED, 5, 5, 42L, 0L, 0L, start);
+        batch.flip();
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("Event 1 releases the slot at position 5 which is not allocated!");
+        backup.apply(batch);
+    }
+
+    private static void awaitApplied(ParkingBackup<?> backup, long event) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (backup.getApplied() < event && System.nanoTime() < deadline) {
+            Thread.sleep(1L);
+        }
+        assertTrue(backup.getApplied() >= event);
+    }
+
+    @Test
+    public void laggingBackup() throws InterruptedException {
+        ParkingBackup<TestVehicle> backup = backup();
+        List<ByteBuffer> unacknowledged = new ArrayList<>();
+        ReplicationPrimary<TestVehicle> replication = new ReplicationPrimary<>(layout, codec).setBatchSize(4)
+                .setMaxInFlight(8)
+                .setMaxLag(32)
+                .addBackup(new LoopbackTransport(backup))
+                .addBackup(new ReplicationTransport() {
+
+                    @Override
+                    public void setAcknowledgementListener(LongConsumer acknowledgements) {
+                    }
+
+                    @Override
+                    public void send(ByteBuffer batch) {
+                        unacknowledged.add(batch);
+                    }
+                });
+        Parking<TestVehicle> primary = Parking.builder(layout).setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addListener(replication).build();
+        for (int i = 0; i < 50; i++) {
+            TestVehicle vehicle = getGasVehicle();
+            primary.register(vehicle, start);
+            primary.checkOut(vehicle, start.plusHours(1));
+            if (replication.getLiveBackups() == 1) {
+                assertTrue(replication.awaitAcknowledged(Duration.ofSeconds(10)));
+            } else if (replication.getSequence() >= 8) {
+                // the events in flight reach the backup, then the sender waits for the other backup
+                awaitApplied(backup, 8L);
+            }
+        }
+        // the backup never acknowledging is failed instead of buffering the events forever
+        assertEquals(1, replication.getLiveBackups());
+        assertTrue(replication.awaitAcknowledged(Duration.ofSeconds(10)));
+        assertEquals(100L, backup.getApplied());
+        assertTrue(unacknowledged.size() < 100 / 4);
+        replication.close();
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class RepricerTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    private final List<PricingPolicy<TestVehicle>> policies = Arrays.asList(PricingPolicy.HOURLY(THREE),
+            PricingPolicy.FIXED(money(5)), THREE_HOURLY_AND_FIXED);
+
+    @Test
+    public void repriceBatch() {
+        StayBatch<TestVehicle> stays = new StayBatch<>(4);
+        // 10 000 gas stays of 1 hour and 5 000 electric stays of 2 hours, split in many ranges
+        for (int i = 0; i < 10_000; i++) {
+            stays.add(getGasVehicle(), start.plusMinutes(i), start.plusMinutes(i).plusHours(1));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            stays.add(getE20Vehicle(), start.plusMinutes(i), start.plusMinutes(i).plusHours(2));
+        }
+
+        RepricingResult<VehicleType> result = new Repricer().reprice(stays, policies, TestVehicle::getVehicleType);
+
+        assertEquals(3, result.getPolicyCount());
+        assertEquals(Long.valueOf(10_000), result.getStays().get(VehicleType.GASOLINE));
+        assertEquals(Long.valueOf(5_000), result.getStays().get(VehicleType.ELECTRIC_20KW));
+        assertPriceEquals(money(30_000), result.getRevenue(0, VehicleType.GASOLINE));
+        assertPriceEquals(money(30_000), result.getRevenue(0, VehicleType.ELECTRIC_20KW));
+        assertPriceEquals(money(75_000), result.getRevenue(1));
+        // 3 * 1 + 1 for gas, 3 * 2 + 1 for electric
+        assertPriceEquals(money(10_000 * 4 + 5_000 * 7), result.getRevenue(2));
+        assertPriceEquals(BigDecimal.ZERO, result.getRevenue(2, VehicleType.OTHER));
+    }
+
+    @Test
+    public void repriceBills() {
+        Parking<TestVehicle> parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addSlots(isGASPredicate, 10).build();
+        List<TestVehicle> vehicles = getGasVehicle(10);
+        vehicles.forEach(vehicle -> parking.register(vehicle, start));
+        List<Bill<TestVehicle>> bills = vehicles.stream()
+                .map(vehicle -> parking.checkOut(vehicle, start.plus(Duration.ofMinutes(30))))
+                .collect(Collectors.toList());
+
+        RepricingResult<VehicleType> result = new Repricer().reprice(bills.stream(), policies,
+                TestVehicle::getVehicleType);
+        assertPriceEquals(money(15), result.getRevenue(0));
+        assertPriceEquals(money(50), result.getRevenue(1));
+        // repricing with the current policy gives the billed revenue
+        assertPriceEquals(bills.stream().map(Bill::getPrice).reduce(BigDecimal.ZERO, BigDecimal::add),
+                result.getRevenue(2));
+    }
+
+    @Test
+    public void repriceBillSlots() {
+        Parking<TestVehicle> parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .addSlots(isGASPredicate, 4).build();
+        List<TestVehicle> vehicles = getGasVehicle(4);
+        vehicles.forEach(vehicle -> parking.register(vehicle, start));
+        StayBatch<TestVehicle> stays = new StayBatch<>();
+        vehicles.forEach(vehicle -> stays.add(parking.checkOut(vehicle, start.plusHours(1))));
+
+        // policies see the slots of the bills, priced by id and accepting only gas vehicles
+        PricingPolicy<TestVehicle> bySlot = slot -> slot.getAllocationStrategy().test(getE20Vehicle())
+                ? BigDecimal.ZERO : money(slot.getId().intValue());
+        RepricingResult<VehicleType> result = new Repricer().reprice(stays, Arrays.asList(bySlot),
+                TestVehicle::getVehicleType);
+        assertPriceEquals(money(1 + 2 + 3 + 4), result.getRevenue(0));
+    }
+
+    @Test
+    public void repriceMultiSlotBills() {
+        Parking<TestVehicle> parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .setVehicleSlots(vehicle -> vehicle.getVehicleType() == VehicleType.OTHER ? 3 : 1)
+                .addSlots(isGASPredicate.or(isOther), 4).build();
+        TestVehicle bus = getOtherVehicle();
+        TestVehicle car = getGasVehicle();
+        parking.register(bus, start);
+        parking.register(car, start);
+        List<Bill<TestVehicle>> bills = Arrays.asList(parking.checkOut(bus, start.plusHours(2)),
+                parking.checkOut(car, start.plusHours(2)));
+
+        RepricingResult<VehicleType> result = new Repricer().reprice(bills.stream(), policies,
+                TestVehicle::getVehicleType);
+        // the bus is priced on its three slots
+        assertEquals(Long.valueOf(3), result.getStays().get(VehicleType.OTHER));
+        assertPriceEquals(money(18), result.getRevenue(0, VehicleType.OTHER));
+        assertPriceEquals(money(15), result.getRevenue(1, VehicleType.OTHER));
+        assertPriceEquals(money(21), result.getRevenue(2, VehicleType.OTHER));
+        assertPriceEquals(bills.get(0).getPrice(), result.getRevenue(2, VehicleType.OTHER));
+        assertPriceEquals(money(7), result.getRevenue(2, VehicleType.GASOLINE));
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class StaySketchTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void quantiles() {
+        StaySketch sketch = new StaySketch();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            // exponential stays with a mean of one hour
+            sketch.add(Duration.ofSeconds((long) (-3600 * Math.log(1 - random.nextDouble()))));
+        }
+        assertEquals(200_000, sketch.getCount());
+        assertEquals(3600 * Math.log(2), sketch.quantile(0.5).getSeconds(), 30);
+        assertEquals(3600 * -Math.log(0.01), sketch.quantile(0.99).getSeconds(), 60);
+        assertEquals(0.5, sketch.cdf(Duration.ofSeconds(2495)), 0.01);
+        assertEquals(0d, sketch.cdf(Duration.ofSeconds(-1)), 0d);
+    }
+
+    @Test
+    public void snapshot() {
+        StaySketch sketch = new StaySketch();
+        Random random = new Random(11);
+        for (int i = 0; i < 50_000; i++) {
+            sketch.add(Duration.ofSeconds((long) (-3600 * Math.log(1 - random.nextDouble()))));
+        }
+        StaySketch.Cdf cdf = sketch.snapshot();
+        // the binary search of the snapshot gives the linear scan of the sketch
+        for (long seconds = -10; seconds < 40_000; seconds += 37) {
+            assertEquals(sketch.cdf(Duration.ofSeconds(seconds)), cdf.at(seconds), 1e-12);
+        }
+        assertEquals(sketch.getMax().toMillis() / 1000d, cdf.getMax(), 1e-3);
+        assertTrue(Double.isNaN(new StaySketch().snapshot().at(60d)));
+    }
+
+    @Test
+    public void expectedFreeIn() {
+        Parking<TestVehicle> parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .estimateStays()
+                .addSlots(isGASPredicate, 2)
+                .addSlot(isE20Predicate)
+                .build();
+        TestVehicle e20Vehicle = getE20Vehicle();
+        assertEquals(Duration.ZERO, parking.expectedFreeIn(e20Vehicle, start));
+        // all the stays last one hour
+        for (int i = 0; i < 10; i++) {
+            TestVehicle vehicle = getE20Vehicle();
+            parking.register(vehicle, start.plusHours(i));
+            parking.checkOut(vehicle, start.plusHours(i + 1));
+        }
+        LocalDateTime arrival = start.plusDays(1);
+        parking.register(e20Vehicle, arrival);
+        assertEquals(600, parking.expectedFreeIn(getE20Vehicle(), arrival.plusMinutes(50)).getSeconds(), 2);
+        assertEquals(Duration.ZERO, parking.expectedFreeIn(getGasVehicle(), arrival));
+        assertEquals(Duration.ofHours(1), parking.getPools().get(1).getStays().quantile(0.5));
+        // staying longer than every past stay
+        assertNull(parking.expectedFreeIn(getE20Vehicle(), arrival.plusHours(2)));
+    }
+
+    @Test
+    public void firstOfManyDepartures() {
+        Parking<TestVehicle> parking = Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .estimateStays()
+                .addSlots(isGASPredicate, 10)
+                .build();
+        // stays from 1 to 100 minutes
+        for (int minutes = 1; minutes <= 100; minutes++) {
+            TestVehicle vehicle = getGasVehicle();
+            parking.register(vehicle, start);
+            parking.checkOut(vehicle, start.plusMinutes(minutes));
+        }
+        LocalDateTime now = start.plusDays(1);
+        getGasVehicle(10).forEach(vehicle -> parking.register(vehicle, now));
+        Duration expected = parking.expectedFreeIn(getGasVehicle(), now);
+        // the first of 10 departures is much sooner than the median stay
+        assertTrue(expected.toMinutes() >= 3 && expected.toMinutes() <= 10);
+    }
+
+    @Test
+    public void notEstimated() {
+        expectedException.expect(IllegalStateException.class);
+        Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED).addSlot(isGASPredicate).build()
+                .expectedFreeIn(getGasVehicle(), start);
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TimingWheelTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Test
+    public void fireInOrder() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(Duration.ofSeconds(1), start);
+        wheel.schedule(start.plusHours(3), 3);
+        wheel.schedule(start.plusSeconds(10), 1);
+        wheel.schedule(start.plusDays(40), 4);
+        wheel.schedule(start.plusMinutes(5), 2);
+        wheel.schedule(start.minusMinutes(5), 0);
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advanceTo(start.plusSeconds(9), fired::add);
+        assertEquals(1, fired.size());
+        wheel.advanceTo(start.plusDays(39), fired::add);
+        assertEquals(4, fired.size());
+        wheel.advanceTo(start.plusDays(41), fired::add);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.valueOf(i), fired.get(i));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void cancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(Duration.ofMinutes(1), start);
+        TimingWheel.Timer<String> timer = wheel.schedule(start.plusHours(2), "cancelled");
+        wheel.schedule(start.plusHours(2), "fired");
+        assertTrue(timer.isPending());
+        assertTrue(timer.cancel());
+        assertFalse(timer.cancel());
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(start.plusHours(3), fired::add);
+        assertEquals(1, fired.size());
+        assertEquals("fired", fired.get(0));
+    }
+
+    @Test
+    public void randomDeadlines() {
+        Random random = new Random(7);
+        TimingWheel<LocalDateTime> wheel = new TimingWheel<>(Duration.ofSeconds(1), start);
+        List<LocalDateTime> deadlines = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime deadline = start.plusSeconds(random.nextInt(10_000_000));
+            wheel.schedule(deadline, deadline);
+            deadlines.add(deadline);
+        }
+        List<LocalDateTime> fired = new ArrayList<>();
+        LocalDateTime now = start;
+        while (wheel.size() > 0) {
+            now = now.plusSeconds(random.nextInt(100_000));
+            LocalDateTime advance = now;
+            wheel.advanceTo(now, deadline -> {
+                assertFalse(deadline.isAfter(advance));
+                fired.add(deadline);
+            });
+            // every timer with a passed deadline fired
+            assertEquals(deadlines.stream().filter(deadline -> !deadline.isAfter(advance)).count(), fired.size());
+            assertEquals(10_000 - fired.size(), wheel.size());
+        }
+        for (int i = 1; i < fired.size(); i++) {
+            assertFalse(fired.get(i).isBefore(fired.get(i - 1)));
+        }
+    }
+
+}
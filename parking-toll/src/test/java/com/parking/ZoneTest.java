@@ -0,0 +1,97 @@
+package com.parking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.parking.exception.ParkingException;
+
+public class ZoneTest extends TollPakingTestTool {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    // level-1: rows A (1-3) and B (4-6), level-2: rows A (7-9), B (10-11 and 12 for 20kw) and C (13-14)
+    private final Parking<TestVehicle> parking = Parking.<TestVehicle>builder()
+            .setPricingPolicy(THREE_HOURLY_AND_FIXED)
+            .beginZone("level-1")
+                .beginZone("row-A").addSlots(isGASPredicate, 3).endZone()
+                .beginZone("row-B").addSlots(isGASPredicate, 3).endZone()
+            .endZone()
+            .beginZone("level-2")
+                .beginZone("row-A").addSlots(isGASPredicate, 3).endZone()
+                .beginZone("row-B").addSlots(isGASPredicate, 2).addSlot(isE20Predicate).endZone()
+                .beginZone("row-C").addSlots(isGASPredicate, 2).endZone()
+            .endZone()
+            .addSlot(isGASPredicate)
+            .build();
+
+    @Test
+    public void counters() {
+        assertEquals(Arrays.asList("level-1", "level-1/row-A", "level-1/row-B", "level-2", "level-2/row-A",
+                "level-2/row-B", "level-2/row-C"), parking.getZones());
+        assertEquals(6, parking.getZoneCapacity("level-1"));
+        assertEquals(8, parking.getZoneCapacity("level-2"));
+        assertEquals(3, parking.getZoneCapacity("level-2/row-B"));
+
+        TestVehicle vehicle = getGasVehicle();
+        parking.register(vehicle, start);
+        getGasVehicle(5).forEach(other -> parking.register(other, start));
+        assertEquals(0, parking.getZoneAvailableCapacity("level-1"));
+        assertEquals(0, parking.getZoneAvailableCapacity("level-1/row-B"));
+        assertEquals(8, parking.getZoneAvailableCapacity("level-2"));
+
+        parking.checkOut(vehicle, start.plusHours(1));
+        assertEquals(1, parking.getZoneAvailableCapacity("level-1"));
+        assertEquals(1, parking.getZoneAvailableCapacity("level-1/row-A"));
+    }
+
+    @Test
+    public void registerInZone() {
+        assertEquals(Long.valueOf(10), parking.registerInZone(getGasVehicle(), start, "level-2/row-B").getSlot()
+                .getId());
+        assertEquals(Long.valueOf(11), parking.registerInZone(getGasVehicle(), start, "level-2/row-B").getSlot()
+                .getId());
+        // row B only has the 20kw slot left, row A is searched before row C at the same distance
+        assertEquals(Long.valueOf(7), parking.registerInZone(getGasVehicle(), start, "level-2/row-B").getSlot()
+                .getId());
+        assertEquals(Long.valueOf(12), parking.registerInZone(getE20Vehicle(), start, "level-2/row-C").getSlot()
+                .getId());
+        assertEquals(Long.valueOf(4), parking.registerInZone(getGasVehicle(), start, "level-1/row-B").getSlot()
+                .getId());
+        assertEquals(4, parking.getZoneAvailableCapacity("level-2"));
+    }
+
+    @Test
+    public void nearestSiblingOnly() {
+        getGasVehicle(6).forEach(vehicle -> parking.register(vehicle, start));
+        // level-2 is not a sibling of the rows of level-1
+        assertFalse(parking.registerInZone(getGasVehicle(), start, "level-1/row-A").isSuccessful());
+        assertEquals(Long.valueOf(7), parking.registerInZone(getGasVehicle(), start, "level-1").getSlot().getId());
+    }
+
+    @Test
+    public void unknownZone() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Zone level-3 is not declared!");
+        parking.getZoneAvailableCapacity("level-3");
+    }
+
+    @Test
+    public void zoneNotEnded() {
+        expectedException.expect(ParkingException.class);
+        expectedException.expectMessage("Zone level-1/row-A is not ended!");
+        Parking.<TestVehicle>builder().setPricingPolicy(THREE_HOURLY_AND_FIXED)
+                .beginZone("level-1").beginZone("row-A").addSlot(isGASPredicate)
+                .build();
+    }
+
+}
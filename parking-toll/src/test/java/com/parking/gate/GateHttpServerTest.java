@@ -0,0 +1,157 @@
+package com.parking.gate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.parking.Parking;
+import com.parking.PlateKey;
+import com.parking.PricingPolicy;
+import com.parking.VehicleFactory;
+import com.parking.gate.GateTcpServerTest.MutableClock;
+
+public class GateHttpServerTest {
+
+    private static final long ELECTRIC = PlateKey.encode("ELEC");
+
+    static final class Car {
+        final boolean electric;
+
+        Car(boolean electric) {
+            this.electric = electric;
+        }
+    }
+
+    private Parking<Car> parking;
+    private GateHttpServer<Car> server;
+
+    @Before
+    public void init() throws IOException {
+        parking = Parking.<Car>builder()
+                .setPricingPolicy(PricingPolicy.FIXED(new BigDecimal(2)))
+                .addSlot(car -> !car.electric)
+                .addSlot(car -> !car.electric)
+                .addSlot(car -> car.electric)
+                .build();
+        VehicleFactory<Car> factory = (plate, vehicleClass) -> new Car(vehicleClass == ELECTRIC);
+        Clock clock = Clock.fixed(Instant.parse("2020-01-01T08:00:00Z"), ZoneOffset.UTC);
+        server = new GateHttpServer<>(parking, factory, new InetSocketAddress("localhost", 0), null, clock);
+        server.start();
+    }
+
+    @After
+    public void close() {
+        server.close();
+    }
+
+    private String call(String method, String path, int expectedStatus) throws IOException {
+        URL url = new URL("http://localhost:" + server.getAddress().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        assertEquals(expectedStatus, connection.getResponseCode());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream input = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[256];
+            for (int read; (read = input.read(buffer)) >= 0;) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void registerQuoteAndCheckOut() throws IOException {
+        assertEquals("{\"registered\":true,\"slot\":1,\"arrival\":\"2020-01-01T08:00\"}",
+                call("POST", "/register?plate=AB-123-CD&class=GAS", 200));
+        assertEquals("{\"available\":1,\"capacity\":2}", call("GET", "/availability?class=GAS", 200));
+        assertEquals("{\"price\":\"2\"}", call("GET", "/quote?plate=ab123cd", 200));
+        assertEquals("{\"slot\":1,\"arrival\":\"2020-01-01T08:00\",\"departure\":\"2020-01-01T08:00\",\"price\":\"2\"}",
+                call("POST", "/checkout?plate=AB%2D123%2DCD", 200));
+        assertEquals("{\"available\":3,\"capacity\":3}", call("GET", "/availability", 200));
+    }
+
+    @Test
+    public void noFreeSlot() throws IOException {
+        call("POST", "/register?plate=EV1&class=ELEC", 200);
+        assertEquals("{\"registered\":false}", call("POST", "/register?plate=EV2&class=ELEC", 200));
+        assertEquals("{\"available\":0,\"capacity\":1}", call("GET", "/availability?class=ELEC", 200));
+    }
+
+    @Test
+    public void errors() throws IOException {
+        call("POST", "/register?plate=AB1&class=GAS", 200);
+        assertTrue(call("POST", "/register?plate=AB1&class=GAS", 409).contains("already in the parking"));
+        assertTrue(call("POST", "/checkout?plate=ZZ9", 404).contains("not found"));
+        assertTrue(call("GET", "/quote?plate=ZZ9", 404).contains("not found"));
+        assertTrue(call("POST", "/checkout", 400).contains("plate is required"));
+        assertTrue(call("GET", "/register?plate=AB2&class=GAS", 405).contains("not allowed"));
+    }
+
+    @Test
+    public void failedCheckOut() throws IOException {
+        MutableClock clock = new MutableClock();
+        Parking<Car> gas = Parking.<Car>builder()
+                .setPricingPolicy(PricingPolicy.FIXED(new BigDecimal(2)))
+                .addSlot(car -> !car.electric)
+                .build();
+        server.close();
+        server = new GateHttpServer<>(gas, (plate, vehicleClass) -> new Car(false),
+                new InetSocketAddress("localhost", 0), null, clock);
+        server.start();
+        call("POST", "/register?plate=AB1&class=GAS", 200);
+        // the clock of the gate went back, the check out is refused
+        clock.now = clock.now.minusSeconds(60);
+        assertTrue(call("POST", "/checkout?plate=AB1", 400).contains("departureDateTime"));
+        // the vehicle is still reachable by its plate
+        clock.now = clock.now.plusSeconds(120);
+        assertTrue(call("POST", "/checkout?plate=AB1", 200).contains("\"price\":\"2\""));
+        assertEquals(1, gas.getAvailableCapacity());
+    }
+
+    @Test
+    public void internalError() throws IOException {
+        Parking<Car> failing = Parking.<Car>builder()
+                .setPricingPolicy(slot -> {
+                    throw new IllegalStateException("Pricing unavailable");
+                })
+                .addSlot(car -> true)
+                .build();
+        server.close();
+        server = new GateHttpServer<>(failing, (plate, vehicleClass) -> new Car(false),
+                new InetSocketAddress("localhost", 0), null, Clock.systemUTC());
+        server.start();
+        call("POST", "/register?plate=AB1&class=GAS", 200);
+        assertEquals("{\"error\":\"Internal error\"}", call("GET", "/quote?plate=AB1", 500));
+        // the server still answers
+        assertEquals("{\"available\":0,\"capacity\":1}", call("GET", "/availability", 200));
+    }
+
+    @Test
+    public void load() throws InterruptedException {
+        LoadReport report = new HttpLoadGenerator(server.getAddress(), "GAS")
+                .setClients(2)
+                .setVehiclesPerClient(50)
+                .run();
+        assertEquals(200, report.getRequests());
+        assertEquals(0, report.getErrors());
+        assertEquals(200, report.getLatencies().getCount());
+        assertTrue(report.getThroughput() > 0);
+        assertEquals(3, parking.getAvailableCapacity());
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.parking.gate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import org.junit.Test;
+
+import com.parking.Parking;
+import com.parking.PricingPolicy;
+import com.parking.gate.GateHttpServerTest.Car;
+
+public class GateSoakToolTest {
+
+    @Test
+    public void soak() throws InterruptedException {
+        Parking<Car> parking = Parking.<Car>builder()
+                .setPricingPolicy(PricingPolicy.HOURLY(new BigDecimal(3)))
+                .addSlot(car -> !car.electric)
+                .addSlot(car -> !car.electric)
+                .addSlot(car -> car.electric)
+                .build();
+        SoakReport report = new GateSoakTool<>(parking)
+                .addArrivals(3, () -> new Car(false))
+                .addArrivals(1, () -> new Car(true))
+                .setEntryGates(2)
+                .setExitGates(2)
+                .setStay(Duration.ofMillis(2))
+                .setDuration(Duration.ofMillis(300))
+                .setReportInterval(Duration.ofMillis(100))
+                .run();
+
+        assertEquals(3, report.getSamples().size());
+        // the last registrations may be sampled with the final check outs
+        long accepted = report.getDrain().getRegistrations() - report.getDrain().getRejections();
+        long checkOuts = report.getDrain().getCheckOuts();
+        for (SoakReport.Sample sample : report.getSamples()) {
+            accepted += sample.getRegistrations() - sample.getRejections();
+            checkOuts += sample.getCheckOuts();
+        }
+        assertTrue(accepted > 0);
+        assertEquals(accepted, checkOuts);
+        assertEquals(0L, report.getErrors());
+        // entries are not paced, so the parking is often full
+        assertTrue(report.getRejectionRate() > 0d);
+        assertTrue(report.getThroughput() > 0d);
+        assertEquals(3, parking.getAvailableCapacity());
+    }
+
+    @Test
+    public void failedCheckOuts() throws InterruptedException {
+        // electric cars cannot pay, their check outs fail after the release of their slot
+        Parking<Car> parking = Parking.<Car>builder()
+                .setPricingPolicy(slot -> {
+                    if (slot.getVehicle().electric) {
+                        throw new IllegalStateException("Payment refused");
+                    }
+                    return BigDecimal.ONE;
+                })
+                .addSlots(car -> true, 4)
+                .build();
+        SoakReport report = new GateSoakTool<>(parking)
+                .addArrivals(1, () -> new Car(false))
+                .addArrivals(1, () -> new Car(true))
+                .setDuration(Duration.ofMillis(200))
+                .setReportInterval(Duration.ofMillis(100))
+                .run();
+
+        long accepted = report.getDrain().getRegistrations() - report.getDrain().getRejections();
+        long checkOuts = report.getDrain().getCheckOuts();
+        for (SoakReport.Sample sample : report.getSamples()) {
+            accepted += sample.getRegistrations() - sample.getRejections();
+            checkOuts += sample.getCheckOuts();
+        }
+        assertTrue(report.getErrors() > 0);
+        // the exit gate went on after the errors
+        assertEquals(accepted, checkOuts + report.getErrors());
+        assertEquals(4, parking.getAvailableCapacity());
+    }
+
+    @Test
+    public void failedRegistrations() throws InterruptedException {
+        Parking<Car> parking = Parking.<Car>builder()
+                .setPricingPolicy(PricingPolicy.FIXED(BigDecimal.ONE))
+                .addSlots(car -> true, 4)
+                .build();
+        // half of the arrivals cannot be created, the entry gate goes on with the other ones
+        SoakReport report = new GateSoakTool<>(parking)
+                .addArrivals(1, () -> new Car(false))
+                .addArrivals(1, () -> {
+                    throw new IllegalStateException("Unreadable plate");
+                })
+                .setDuration(Duration.ofMillis(200))
+                .setReportInterval(Duration.ofMillis(100))
+                .run();
+
+        long accepted = report.getDrain().getRegistrations() - report.getDrain().getRejections();
+        long checkOuts = report.getDrain().getCheckOuts();
+        for (SoakReport.Sample sample : report.getSamples()) {
+            accepted += sample.getRegistrations() - sample.getRejections();
+            checkOuts += sample.getCheckOuts();
+        }
+        assertTrue(report.getErrors() > 0);
+        assertTrue(accepted > 0);
+        assertEquals(accepted, checkOuts);
+        assertEquals(4, parking.getAvailableCapacity());
+    }
+
+}
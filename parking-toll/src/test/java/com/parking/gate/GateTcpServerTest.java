@@ -0,0 +1,215 @@
+package com.parking.gate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.parking.Parking;
+import com.parking.PlateKey;
+import com.parking.PricingPolicy;
+import com.parking.gate.GateHttpServerTest.Car;
+
+public class GateTcpServerTest {
+
+    private static final long GAS = PlateKey.encode("GAS");
+    private static final long ELECTRIC = PlateKey.encode("ELEC");
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+    private Parking<Car> parking;
+    private GateTcpServer<Car> server;
+    private GateTcpClient client;
+
+    @Before
+    public void init() throws IOException {
+        parking = Parking.<Car>builder()
+                .setPricingPolicy(PricingPolicy.FIXED(new BigDecimal("2.50")))
+                .addSlot(car -> !car.electric)
+                .addSlot(car -> !car.electric)
+                .addSlot(car -> car.electric)
+                .build();
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        server = new GateTcpServer<>(parking, (plate, vehicleClass) -> new Car(vehicleClass == ELECTRIC),
+                new InetSocketAddress("localhost", 0), clock);
+        server.start();
+        client = new GateTcpClient(server.getAddress());
+    }
+
+    @After
+    public void close() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void pipelinedOperations() throws IOException {
+        long plate = PlateKey.encode("AB-123-CD");
+        int register = client.register(plate, GAS);
+        int quote = client.quote(plate);
+        int availability = client.availability(GAS);
+        int checkOut = client.checkOut(plate);
+
+        GateResponse response = client.receive();
+        assertEquals(register, response.getRequestId());
+        assertEquals(GateResponse.Status.OK, response.getStatus());
+        assertEquals(1L, response.getSlotId());
+        assertEquals(NOW, response.getDateTime());
+        assertNull(response.getPrice());
+
+        response = client.receive();
+        assertEquals(quote, response.getRequestId());
+        assertEquals(new BigDecimal("2.50"), response.getPrice());
+
+        response = client.receive();
+        assertEquals(availability, response.getRequestId());
+        assertEquals(1L, response.getAvailable());
+        assertEquals(2L, response.getCapacity());
+
+        response = client.receive();
+        assertEquals(checkOut, response.getRequestId());
+        assertEquals(1L, response.getSlotId());
+        assertEquals(NOW, response.getDateTime());
+        assertEquals(new BigDecimal("2.50"), response.getPrice());
+    }
+
+    @Test
+    public void hourlyPrices() throws IOException {
+        MutableClock clock = new MutableClock();
+        Parking<Car> hourly = Parking.<Car>builder()
+                .setPricingPolicy(PricingPolicy.HOURLY(new BigDecimal("3")))
+                .addSlot(car -> !car.electric)
+                .build();
+        try (GateTcpServer<Car> hourlyServer = new GateTcpServer<>(hourly,
+                (plate, vehicleClass) -> new Car(vehicleClass == ELECTRIC), new InetSocketAddress("localhost", 0),
+                clock)) {
+            hourlyServer.start();
+            try (GateTcpClient hourlyClient = new GateTcpClient(hourlyServer.getAddress())) {
+                long plate = PlateKey.encode("HR-20");
+                hourlyClient.register(plate, GAS);
+                assertEquals(GateResponse.Status.OK, hourlyClient.receive().getStatus());
+                // 20 minutes at 3 per hour, with a price of scale 54 before rounding
+                clock.now = clock.now.plusSeconds(20 * 60);
+                hourlyClient.quote(plate);
+                hourlyClient.checkOut(plate);
+                hourlyClient.availability(GAS);
+                assertEquals(new BigDecimal("1.00"), hourlyClient.receive().getPrice());
+                GateResponse checkOut = hourlyClient.receive();
+                assertEquals(GateResponse.Status.OK, checkOut.getStatus());
+                assertEquals(new BigDecimal("1.00"), checkOut.getPrice());
+                // the stream is still aligned
+                GateResponse availability = hourlyClient.receive();
+                assertEquals(1L, availability.getAvailable());
+                assertEquals(1L, availability.getCapacity());
+            }
+        }
+    }
+
+    /**
+     * Clock moved by the test
+     */
+    static final class MutableClock extends Clock {
+
+        Instant now = NOW.toInstant(ZoneOffset.UTC);
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Test
+    public void errors() throws IOException {
+        long plate = PlateKey.encode("EV1");
+        client.register(plate, ELECTRIC);
+        client.register(plate, ELECTRIC);
+        client.register(PlateKey.encode("EV2"), ELECTRIC);
+        client.checkOut(PlateKey.encode("ZZ9"));
+        assertEquals(GateResponse.Status.OK, client.receive().getStatus());
+        assertEquals(GateResponse.Status.ALREADY_IN, client.receive().getStatus());
+        assertEquals(GateResponse.Status.NO_FREE_SLOT, client.receive().getStatus());
+        assertEquals(GateResponse.Status.NOT_FOUND, client.receive().getStatus());
+    }
+
+    private GateTcpServer<Car> server(PricingPolicy<Car> pricingPolicy) throws IOException {
+        Parking<Car> priced = Parking.<Car>builder()
+                .setPricingPolicy(pricingPolicy)
+                .addSlot(car -> true)
+                .build();
+        GateTcpServer<Car> pricedServer = new GateTcpServer<>(priced, (plate, vehicleClass) -> new Car(false),
+                new InetSocketAddress("localhost", 0), Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        pricedServer.start();
+        return pricedServer;
+    }
+
+    @Test
+    public void internalError() throws IOException {
+        try (GateTcpServer<Car> failing = server(slot -> {
+            throw new IllegalStateException("Pricing unavailable");
+        }); GateTcpClient failingClient = new GateTcpClient(failing.getAddress())) {
+            long plate = PlateKey.encode("AB1");
+            failingClient.register(plate, GAS);
+            failingClient.quote(plate);
+            failingClient.availability(GAS);
+            assertEquals(GateResponse.Status.OK, failingClient.receive().getStatus());
+            assertEquals(GateResponse.Status.ERROR, failingClient.receive().getStatus());
+            // the selector thread is still serving the terminal
+            GateResponse availability = failingClient.receive();
+            assertEquals(GateResponse.Status.OK, availability.getStatus());
+            assertEquals(0L, availability.getAvailable());
+        }
+    }
+
+    @Test
+    public void largePrices() throws IOException {
+        try (GateTcpServer<Car> expensive = server(PricingPolicy.FIXED(new BigDecimal("12345678901234567890.555")));
+                GateTcpClient expensiveClient = new GateTcpClient(expensive.getAddress())) {
+            long plate = PlateKey.encode("AB1");
+            expensiveClient.register(plate, GAS);
+            expensiveClient.checkOut(plate);
+            assertEquals(GateResponse.Status.OK, expensiveClient.receive().getStatus());
+            // too large for a long with 2 decimals, the bill is still answered with 18 digits
+            GateResponse checkOut = expensiveClient.receive();
+            assertEquals(GateResponse.Status.OK, checkOut.getStatus());
+            assertEquals(0, new BigDecimal("12345678901234567900").compareTo(checkOut.getPrice()));
+        }
+        assertEquals(0, new BigDecimal("-9.99999999999999999E+144").compareTo(
+                BinaryProtocol.normalize(new BigDecimal("-1E+200"))));
+    }
+
+    @Test
+    public void manyPipelinedRequests() throws IOException {
+        int vehicles = 2000;
+        for (int i = 0; i < vehicles; i++) {
+            client.register(i + 1, GAS);
+            client.checkOut(i + 1);
+        }
+        for (int i = 0; i < 2 * vehicles; i++) {
+            GateResponse response = client.receive();
+            assertEquals(i, response.getRequestId());
+            assertEquals(GateResponse.Status.OK, response.getStatus());
+        }
+        assertEquals(3, parking.getAvailableCapacity());
+    }
+
+}
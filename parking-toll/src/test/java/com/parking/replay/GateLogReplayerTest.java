@@ -0,0 +1,143 @@
+package com.parking.replay;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.parking.Bill;
+import com.parking.Parking;
+import com.parking.PlateKey;
+import com.parking.PricingPolicy;
+import com.parking.VehicleFactory;
+import com.parking.exception.ParkingException;
+
+public class GateLogReplayerTest {
+
+    private static final long GAS = PlateKey.encode("GAS");
+    private static final long ELECTRIC = PlateKey.encode("ELEC");
+
+    /**
+     * Vehicle identified by its plate
+     */
+    static final class Car {
+        final long plate;
+        final boolean electric;
+
+        Car(long plate, boolean electric) {
+            this.plate = plate;
+            this.electric = electric;
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private Parking<Car> parking;
+
+    private VehicleFactory<Car> factory = (plate, vehicleClass) -> new Car(plate, vehicleClass == ELECTRIC);
+
+    @Before
+    public void init() {
+        parking = Parking.<Car>builder()
+                .setPricingPolicy(PricingPolicy.HOURLY(new BigDecimal(3)))
+                .addSlot(car -> !car.electric)
+                .addSlot(car -> car.electric)
+                .build();
+    }
+
+    private Path log(String... lines) throws IOException {
+        Path log = folder.newFile().toPath();
+        Files.write(log, String.join("\n", lines).getBytes(StandardCharsets.US_ASCII));
+        return log;
+    }
+
+    @Test
+    public void replay() throws IOException {
+        Path log = log("timestamp,plate,class,direction",
+                "2020-01-01T08:00:00,AB-123-CD,GAS,IN",
+                "2020-01-01T08:30:00.5,EV-1,ELEC,IN\r",
+                "2020-01-01T08:45:00,ZZ-1,GAS,IN",
+                "2020-01-01T09:00:00,XX-999,GAS,OUT",
+                "2020-13-01T09:00:00,XX-999,GAS,OUT",
+                "",
+                "2020-01-01 10:00:00,ab 123 cd,gas,out",
+                "2020-01-01T10:30:00.500,ev-1,ELEC,Out");
+        List<Bill<Car>> bills = new ArrayList<>();
+        ReplayResult result = new GateLogReplayer<>(parking, factory, 2).replay(log, bills::add);
+
+        assertEquals(9, result.getLines());
+        assertEquals(2, result.getSkippedLines());
+        assertEquals(1, result.getMalformedLines());
+        assertEquals(2, result.getEntries());
+        assertEquals(1, result.getRejectedEntries());
+        assertEquals(2, result.getExits());
+        assertEquals(1, result.getUnmatchedExits());
+
+        assertEquals(2, bills.size());
+        assertEquals(PlateKey.encode("AB123CD"), bills.get(0).getSlot().getVehicle().plate);
+        assertEquals(LocalDateTime.of(2020, 1, 1, 8, 30, 0, 500_000_000), bills.get(1).getSlot().getArrivalDateTime());
+        // 2 hours * 3 for each car
+        assertEquals(0, new BigDecimal(12).compareTo(result.getRevenue()));
+        assertEquals(2, parking.getAvailableCapacity());
+    }
+
+    @Test
+    public void replayLargeLog() throws IOException {
+        StringBuilder content = new StringBuilder();
+        LocalDateTime dateTime = LocalDateTime.of(2020, 1, 1, 0, 0);
+        for (int i = 0; i < 10_000; i++) {
+            content.append(dateTime).append(":00,GAS-").append(i).append(",GAS,IN\n");
+            dateTime = dateTime.plusMinutes(30);
+            content.append(dateTime).append(":00,GAS-").append(i).append(",GAS,OUT\n");
+        }
+        Path log = folder.newFile().toPath();
+        Files.write(log, content.toString().getBytes(StandardCharsets.US_ASCII));
+
+        ReplayResult result = new GateLogReplayer<>(parking, factory, 333).replay(log);
+        assertEquals(20_000, result.getLines());
+        assertEquals(10_000, result.getExits());
+        assertEquals(0, new BigDecimal(15_000).compareTo(result.getRevenue()));
+    }
+
+    @Test
+    public void exitBeforeEntry() throws IOException {
+        Path log = log("2020-01-01T08:00:00,AB-123-CD,GAS,IN", "2020-01-01T07:00:00,AB-123-CD,GAS,OUT");
+        expectedException.expect(ParkingException.class);
+        expectedException.expectMessage("Line 2");
+        new GateLogReplayer<>(parking, factory).replay(log);
+    }
+
+    @Test
+    public void replayAfterFailure() throws IOException {
+        GateLogReplayer<Car> replayer = new GateLogReplayer<>(parking, factory);
+        try {
+            replayer.replay(log("2020-01-01T08:00:00,AB-123-CD,GAS,IN", "2020-01-01T07:00:00,AB-123-CD,GAS,OUT"));
+        } catch (ParkingException e) {
+            // the exit is before the entry
+        }
+        // the failed batch is not applied again, and the vehicle can still leave
+        ReplayResult result = replayer.replay(log("2020-01-01T09:00:00,AB-123-CD,GAS,OUT"));
+        assertEquals(0, result.getDuplicateEntries());
+        assertEquals(1, result.getExits());
+        assertEquals(0, result.getUnmatchedExits());
+        assertEquals(0, new BigDecimal(3).compareTo(result.getRevenue()));
+        assertEquals(2, parking.getAvailableCapacity());
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.parking.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.parking.Parking;
+import com.parking.PricingPolicy;
+
+public class SimulatorTest {
+
+    /**
+     * Simple vehicle for the scenarios
+     */
+    static final class Car {
+        final boolean electric;
+
+        Car(boolean electric) {
+            this.electric = electric;
+        }
+    }
+
+    private static Scenario<Car> scenario(String name, int electricSlots, int gasSlots) {
+        return new Scenario<Car>(name, () -> Parking.<Car>builder()
+                .setPricingPolicy(PricingPolicy.FIXED(new BigDecimal(2)))
+                .addSlots(car -> car.electric, electricSlots)
+                .addSlots(car -> !car.electric, gasSlots)
+                .build())
+                .addTraffic("electric", () -> new Car(true), ArrivalProcess.POISSON(20),
+                        StayDistribution.EXPONENTIAL(Duration.ofHours(1)))
+                .addTraffic("gas", () -> new Car(false), ArrivalProcess.POISSON(40),
+                        StayDistribution.LOG_NORMAL(Duration.ofMinutes(90), 0.5))
+                .setDuration(Duration.ofDays(2))
+                .setSeed(42);
+    }
+
+    @Test
+    public void fixedTraffic() {
+        // one car every 30 minutes staying 1 hour: 2 slots are always enough, 1 slot rejects every second car
+        Scenario<Car> scenario = new Scenario<Car>("fixed", () -> Parking.<Car>builder()
+                .setPricingPolicy(PricingPolicy.FIXED(BigDecimal.ONE))
+                .addSlots(car -> true, 1)
+                .build())
+                .addTraffic("all", () -> new Car(false), (previous, random) -> previous.plusMinutes(30),
+                        StayDistribution.FIXED(Duration.ofMinutes(45)))
+                .setStart(LocalDateTime.of(2020, 1, 1, 0, 0))
+                .setDuration(Duration.ofHours(10))
+                .setSamplingInterval(Duration.ofHours(1));
+
+        SimulationReport report = new Simulator().run(scenario);
+        // arrivals at 0:30, 1:00 ... 9:30
+        assertEquals(19, report.getTotalArrivals());
+        assertEquals(9, report.getTotalRejections());
+        // the car arrived at 9:30 is still in the parking at the end of the simulation
+        assertEquals(new BigDecimal(9), report.getRevenue());
+        assertEquals(1, report.getVehiclesLeftInParking());
+        assertEquals(10, report.getOccupancy().size());
+    }
+
+    @Test
+    public void sameSeedSameReport() {
+        Simulator simulator = new Simulator();
+        SimulationReport first = simulator.run(scenario("first", 10, 20));
+        SimulationReport second = simulator.run(scenario("second", 10, 20));
+        assertEquals(first.getArrivals(), second.getArrivals());
+        assertEquals(first.getRejections(), second.getRejections());
+        assertEquals(first.getRevenue(), second.getRevenue());
+    }
+
+    @Test
+    public void parallelScenarios() {
+        List<Scenario<Car>> scenarios = new ArrayList<>();
+        for (int electricSlots = 0; electricSlots <= 40; electricSlots += 5) {
+            scenarios.add(scenario("electric-" + electricSlots, electricSlots, 60));
+        }
+        List<SimulationReport> reports = new Simulator().runAll(scenarios);
+        assertEquals(scenarios.size(), reports.size());
+        for (int i = 0; i < reports.size(); i++) {
+            assertEquals(scenarios.get(i).getName(), reports.get(i).getScenarioName());
+        }
+        // without electric slots every electric car is rejected, more slots never reject more cars
+        assertEquals(1d, reports.get(0).getRejectionRate("electric"), 0d);
+        for (int i = 1; i < reports.size(); i++) {
+            assertTrue(reports.get(i).getRejectionRate("electric") <= reports.get(i - 1).getRejectionRate("electric"));
+        }
+    }
+
+}